@@ -0,0 +1,33 @@
+package com.lukashornych.mathmare.jmh;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs JMH benchmarks of game hot paths. Accepts all regular JMH command line options (e.g. benchmark name regexp,
+ * {@code -f}, {@code -wi}, {@code -rf json}), but always adds GC profiler, so that every benchmark reports allocation
+ * rate together with time.
+ *
+ * @author Lukáš Hornych 2021
+ */
+public class BenchmarkRunner {
+
+    public static void main(String[] args) throws RunnerException {
+        final CommandLineOptions commandLineOptions;
+        try {
+            commandLineOptions = new CommandLineOptions(args);
+        } catch (CommandLineOptionException e) {
+            throw new IllegalArgumentException(e.getMessage(), e);
+        }
+
+        new Runner(new OptionsBuilder()
+                .parent(commandLineOptions)
+                .addProfiler(GCProfiler.class)
+                .build()
+        ).run();
+    }
+}
@@ -0,0 +1,42 @@
+package com.lukashornych.mathmare.jmh;
+
+import com.lukashornych.mathmare.Camera;
+import com.lukashornych.mathmare.HeadlessGameManager;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures building of view and projection matrices of {@link Camera}, which is done every rendered frame.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CameraBenchmark {
+
+    private Camera camera;
+
+    @Setup
+    public void setup() {
+        // camera only reads configuration and viewport size, manager does not have to be initialized
+        camera = new Camera(new HeadlessGameManager(), new Vector3f(72.5f, 2.5f, -72.5f), 0.7f, 0.1f);
+    }
+
+    @Benchmark
+    public Matrix4f getView() {
+        camera.addAzimuth(0.001f);
+        return camera.getView();
+    }
+
+    @Benchmark
+    public Matrix4f getProjection() {
+        return camera.getProjection();
+    }
+}
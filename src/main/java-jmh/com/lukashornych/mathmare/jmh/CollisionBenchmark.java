@@ -0,0 +1,86 @@
+package com.lukashornych.mathmare.jmh;
+
+import com.lukashornych.mathmare.maze.MazeGenerator;
+import com.lukashornych.mathmare.maze.MazeTile;
+import com.lukashornych.mathmare.physics.BoundingBox;
+import com.lukashornych.mathmare.physics.PhysicsWorld;
+import com.lukashornych.mathmare.world.WorldBuilder;
+import org.joml.Vector2f;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures collision queries of player against {@link PhysicsWorld} of fixed-seed maze, i.e. with walls and doors
+ * of real game. Player boxes are placed around random walkable tiles, so queries both hit and miss colliders.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CollisionBenchmark {
+
+    private static final int BOXES_COUNT = 1024;
+    /**
+     * Same as half size of player box
+     */
+    private static final float HALF_SIZE = 0.5f;
+    /**
+     * Movement of player running for single simulation step
+     */
+    private static final float STEP_DISTANCE = 0.2f;
+
+    private PhysicsWorld physicsWorld;
+    private BoundingBox[] boxes;
+    private float[] movementsX;
+    private float[] movementsY;
+    private final Vector2f movement = new Vector2f();
+    private int next = 0;
+
+    @Setup
+    public void setup() {
+        final MazeTile[][] maze = MazeGenerator.generateMaze(42).getMaze();
+        physicsWorld = new WorldBuilder().buildMesh(maze).getPhysicsWorld();
+
+        final Random random = new Random(42);
+        boxes = new BoundingBox[BOXES_COUNT];
+        movementsX = new float[BOXES_COUNT];
+        movementsY = new float[BOXES_COUNT];
+        for (int i = 0; i < BOXES_COUNT; i++) {
+            int x;
+            int y;
+            do {
+                x = random.nextInt(maze.length);
+                y = random.nextInt(maze[0].length);
+            } while ((maze[x][y] != MazeTile.ROOM) && (maze[x][y] != MazeTile.CORRIDOR));
+
+            // anywhere within tile, so that some boxes touch walls of the tile
+            final float centerX = (x + random.nextFloat()) * PhysicsWorld.CELL_SIZE;
+            final float centerY = (y + random.nextFloat()) * PhysicsWorld.CELL_SIZE;
+            boxes[i] = new BoundingBox(centerX - HALF_SIZE, centerX + HALF_SIZE, centerY - HALF_SIZE, centerY + HALF_SIZE);
+
+            final double angle = random.nextDouble() * 2 * Math.PI;
+            movementsX[i] = (float) Math.cos(angle) * STEP_DISTANCE;
+            movementsY[i] = (float) Math.sin(angle) * STEP_DISTANCE;
+        }
+    }
+
+    @Benchmark
+    public boolean isColliding() {
+        final BoundingBox box = boxes[next];
+        next = (next + 1) % BOXES_COUNT;
+        return physicsWorld.isColliding(box);
+    }
+
+    @Benchmark
+    public Vector2f sweepAndSlide() {
+        final int i = next;
+        next = (next + 1) % BOXES_COUNT;
+        return physicsWorld.sweepAndSlide(boxes[i], movement.set(movementsX[i], movementsY[i]));
+    }
+}
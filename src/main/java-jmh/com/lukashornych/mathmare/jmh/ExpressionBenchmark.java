@@ -0,0 +1,75 @@
+package com.lukashornych.mathmare.jmh;
+
+import com.lukashornych.mathmare.Expression;
+import com.lukashornych.mathmare.ExpressionBank;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures generation of expressions and building of their display strings, both on demand and by taking them from
+ * {@link ExpressionBank}.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ExpressionBenchmark {
+
+    private Random random;
+    private SplittableRandom splittableRandom;
+    private Expression expression;
+    private ExpressionBank expressionBank;
+
+    @Setup
+    public void setup() {
+        random = new Random(42);
+        splittableRandom = new SplittableRandom(42);
+        expression = Expression.generate(random);
+    }
+
+    /**
+     * Every iteration starts with new bank, so that iterations do not differ by how much of the bank was drained
+     * by previous ones
+     */
+    @Setup(Level.Iteration)
+    public void setupBank() {
+        expressionBank = new ExpressionBank(42, null);
+    }
+
+    @TearDown(Level.Iteration)
+    public void tearDownBank() {
+        expressionBank.close();
+    }
+
+    @Benchmark
+    public Expression generate() {
+        return Expression.generate(random);
+    }
+
+    @Benchmark
+    public Expression generateSplittable() {
+        return Expression.generate(splittableRandom, Expression.Difficulty.NORMAL);
+    }
+
+    @Benchmark
+    public String toSolvableString() {
+        return expression.toSolvableString();
+    }
+
+    /**
+     * Takes expressions in tight loop, much faster than bank refills them in background, so apart from first batches
+     * of an iteration this measures mostly synchronous generation by calling thread of a drained bank, i.e. the worst
+     * case of game logic running out of pre-generated expressions
+     */
+    @Benchmark
+    public ExpressionBank.Entry takeFromDrainedBank() {
+        return expressionBank.take(Expression.Difficulty.NORMAL);
+    }
+}
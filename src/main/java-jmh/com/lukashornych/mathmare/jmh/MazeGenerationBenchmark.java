@@ -0,0 +1,31 @@
+package com.lukashornych.mathmare.jmh;
+
+import com.lukashornych.mathmare.maze.MazeDescriptor;
+import com.lukashornych.mathmare.maze.MazeGenerator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures generation of single maze by {@link MazeGenerator}.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MazeGenerationBenchmark {
+
+    /**
+     * Seed of next generated maze, every invocation generates different maze of same deterministic sequence
+     */
+    private long seed = 42;
+
+    @Benchmark
+    public MazeDescriptor generateMaze() {
+        return MazeGenerator.generateMaze(seed++);
+    }
+}
@@ -0,0 +1,42 @@
+package com.lukashornych.mathmare.jmh;
+
+import com.lukashornych.mathmare.maze.MazeGenerator;
+import com.lukashornych.mathmare.maze.MazeTile;
+import com.lukashornych.mathmare.world.WorldBuilder;
+import com.lukashornych.mathmare.world.WorldMesh;
+import com.lukashornych.mathmare.world.WorldRenderMode;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures CPU side of building world geometry and colliders of fixed-seed maze by {@link WorldBuilder}, nothing is
+ * uploaded to GPU.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class WorldMeshingBenchmark {
+
+    @Param({"MESH", "INSTANCED"})
+    private WorldRenderMode renderMode;
+
+    private MazeTile[][] maze;
+    private WorldBuilder worldBuilder;
+
+    @Setup
+    public void setup() {
+        maze = MazeGenerator.generateMaze(42).getMaze();
+        worldBuilder = new WorldBuilder(renderMode);
+    }
+
+    @Benchmark
+    public WorldMesh buildMesh() {
+        return worldBuilder.buildMesh(maze);
+    }
+}
@@ -0,0 +1,139 @@
+package com.lukashornych.mathmare.physics;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorMask;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+import lombok.ToString;
+
+/**
+ * Implementation of {@link ColliderBatchQuery} testing as many colliders at once as fit into preferred SIMD register
+ * by incubating Vector API. Bounds of candidates are gathered from {@link ColliderStore} arrays by their slot indexes,
+ * remainder of batch smaller than single vector is tested by scalar code.
+ *
+ * Requires JDK 16 or newer with {@code jdk.incubator.vector} module, it is compiled only by {@code vector-api} build
+ * profile and loaded reflectively by {@link ColliderBatchQueries}.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString
+public class VectorColliderBatchQuery implements ColliderBatchQuery {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+
+    @Override
+    public boolean isVectorized() {
+        return true;
+    }
+
+    @Override
+    public int overlap(ColliderStore store, int[] candidates, int candidatesCount,
+                       float minX, float maxX, float minY, float maxY,
+                       int[] result) {
+        final int vectorizedCount = SPECIES.loopBound(candidatesCount);
+
+        int overlapping = 0;
+        for (int i = 0; i < vectorizedCount; i += SPECIES.length()) {
+            final FloatVector colliderMinX = FloatVector.fromArray(SPECIES, store.minX, 0, candidates, i);
+            final FloatVector colliderMaxX = FloatVector.fromArray(SPECIES, store.maxX, 0, candidates, i);
+            final FloatVector colliderMinY = FloatVector.fromArray(SPECIES, store.minY, 0, candidates, i);
+            final FloatVector colliderMaxY = FloatVector.fromArray(SPECIES, store.maxY, 0, candidates, i);
+
+            final VectorMask<Float> colliding = colliderMinX.compare(VectorOperators.LE, maxX)
+                    .and(colliderMaxX.compare(VectorOperators.GE, minX))
+                    .and(colliderMinY.compare(VectorOperators.LE, maxY))
+                    .and(colliderMaxY.compare(VectorOperators.GE, minY));
+
+            // overlaps are rare, so enabled flags are checked only for overlapping lanes
+            long lanes = colliding.toLong();
+            while (lanes != 0) {
+                final int slot = candidates[i + Long.numberOfTrailingZeros(lanes)];
+                if (store.isEnabled(slot)) {
+                    if (result != null) {
+                        result[overlapping] = slot;
+                    }
+                    overlapping++;
+                }
+                lanes &= lanes - 1;
+            }
+        }
+
+        return ScalarColliderBatchQuery.overlapRange(
+                store, candidates, vectorizedCount, candidatesCount,
+                minX, maxX, minY, maxY,
+                result, overlapping
+        );
+    }
+
+    @Override
+    public float sweep(ColliderStore store, int[] candidates, int candidatesCount,
+                       float minX, float maxX, float minY, float maxY,
+                       float dx, float dy) {
+        final int vectorizedCount = SPECIES.loopBound(candidatesCount);
+
+        float hitTime = 1f;
+        for (int i = 0; i < vectorizedCount; i += SPECIES.length()) {
+            final FloatVector colliderMinX = FloatVector.fromArray(SPECIES, store.minX, 0, candidates, i);
+            final FloatVector colliderMaxX = FloatVector.fromArray(SPECIES, store.maxX, 0, candidates, i);
+            final FloatVector colliderMinY = FloatVector.fromArray(SPECIES, store.minY, 0, candidates, i);
+            final FloatVector colliderMaxY = FloatVector.fromArray(SPECIES, store.maxY, 0, candidates, i);
+
+            final FloatVector entry = axisEntry(colliderMinX, colliderMaxX, minX, maxX, dx)
+                    .max(axisEntry(colliderMinY, colliderMaxY, minY, maxY, dy));
+            final FloatVector exit = axisExit(colliderMinX, colliderMaxX, minX, maxX, dx)
+                    .min(axisExit(colliderMinY, colliderMaxY, minY, maxY, dy));
+
+            final VectorMask<Float> hit = entry.compare(VectorOperators.LT, exit)
+                    .and(entry.compare(VectorOperators.GE, 0f))
+                    .and(entry.compare(VectorOperators.LT, hitTime));
+
+            long lanes = hit.toLong();
+            while (lanes != 0) {
+                final int lane = Long.numberOfTrailingZeros(lanes);
+                final float laneEntry = entry.lane(lane);
+                if ((laneEntry < hitTime) && store.isEnabled(candidates[i + lane])) {
+                    hitTime = laneEntry;
+                }
+                lanes &= lanes - 1;
+            }
+        }
+
+        return ScalarColliderBatchQuery.sweepRange(
+                store, candidates, vectorizedCount, candidatesCount,
+                minX, maxX, minY, maxY,
+                dx, dy, hitTime
+        );
+    }
+
+
+    /**
+     * Computes times of entering colliders along single axis, same as scalar implementation
+     */
+    private FloatVector axisEntry(FloatVector colliderMin, FloatVector colliderMax, float min, float max, float delta) {
+        if (delta > 0f) {
+            return colliderMin.sub(max).div(delta);
+        }
+        if (delta < 0f) {
+            return colliderMax.sub(min).div(delta);
+        }
+
+        // without movement along the axis, colliders separated on it are never entered and others are entered always
+        final VectorMask<Float> separated = colliderMin.compare(VectorOperators.GE, max)
+                .or(colliderMax.compare(VectorOperators.LE, min));
+        return FloatVector.broadcast(SPECIES, Float.NEGATIVE_INFINITY)
+                .blend(FloatVector.broadcast(SPECIES, Float.POSITIVE_INFINITY), separated);
+    }
+
+    /**
+     * Computes times of leaving colliders along single axis, same as scalar implementation
+     */
+    private FloatVector axisExit(FloatVector colliderMin, FloatVector colliderMax, float min, float max, float delta) {
+        if (delta > 0f) {
+            return colliderMax.sub(min).div(delta);
+        }
+        if (delta < 0f) {
+            return colliderMin.sub(max).div(delta);
+        }
+        return FloatVector.broadcast(SPECIES, Float.POSITIVE_INFINITY);
+    }
+}
@@ -18,8 +18,8 @@ public class Camera {
     protected final GameManager gameManager;
 
     @Getter @Setter protected Vector3f position;
-    @Getter protected float azimuth;
-    @Getter protected float zenith;
+    @Getter @Setter protected float azimuth;
+    @Getter @Setter protected float zenith;
 
     protected Matrix4f projection;
     protected Matrix4f view;
@@ -43,8 +43,10 @@ public class Camera {
     public Matrix4f getProjection() {
         projection.identity();
 
-        float aspectRatio = gameManager.getWindow().getWidth() / (float) gameManager.getWindow().getHeight();
-        projection.perspective(1f, aspectRatio, 0.1f, 100f);
+        // nothing is rendered beyond render distance, so far plane is shrunk to it
+        final float farPlane = gameManager.getConfiguration().getRenderDistance();
+        float aspectRatio = gameManager.getViewportWidth() / (float) gameManager.getViewportHeight();
+        projection.perspective(1f, aspectRatio, 0.1f, farPlane);
 
         return projection;
     }
@@ -6,6 +6,8 @@ import lombok.Getter;
 import lombok.RequiredArgsConstructor;
 
 import java.util.Random;
+import java.util.SplittableRandom;
+import java.util.function.IntUnaryOperator;
 
 /**
  * Single randomly generated math expression to be resolved by player.
@@ -16,29 +18,29 @@ import java.util.Random;
 @RequiredArgsConstructor(access = AccessLevel.PRIVATE)
 public class Expression {
 
-    private final static Random RANDOM = new Random();
-
     private final int operandA;
     private final int operandB;
     private final Operator operator;
     @Getter(AccessLevel.PRIVATE) private final int expectedResult;
 
     /**
-     * Generates new random expression
+     * Generates new expression using given random generator, so that sequence of expressions can be reproduced
+     *
+     * @param random random generator to generate expression by
      */
-    public static Expression generate() {
-        int operandA = generateOperand();
-        int operandB = generateOperand();
-        if (operandA < operandB) {
-            final int operandTemp = operandA;
-            operandA = operandB;
-            operandB = operandTemp;
-        }
-
-        final Operator operator = generateOperator();
-        final int expectedResult = calculateExpectedResult(operandA, operandB, operator);
+    public static Expression generate(Random random) {
+        return generate(random::nextInt, Difficulty.NORMAL);
+    }
 
-        return new Expression(operandA, operandB, operator, expectedResult);
+    /**
+     * Generates new expression of given difficulty using given splittable random generator, which can be split for
+     * other threads
+     *
+     * @param random random generator to generate expression by
+     * @param difficulty difficulty of generated expression
+     */
+    public static Expression generate(SplittableRandom random, Difficulty difficulty) {
+        return generate(random::nextInt, difficulty);
     }
 
     /**
@@ -51,29 +53,46 @@ public class Expression {
     }
 
     /**
-     * Creates string from this expression to be displayed to solve
+     * Creates string from this expression to be displayed to solve. Operands are padded to two characters.
      */
     public String toSolvableString() {
-        final StringBuilder sb = new StringBuilder();
-        sb.append(String.format("%1$2d", operandA));
+        final StringBuilder sb = new StringBuilder(16);
+        appendOperand(sb, operandA);
         switch (operator) {
             case PLUS: sb.append(" + "); break;
             case MINUS: sb.append(" - "); break;
         }
-        sb.append(String.format("%1$2d", operandB));
+        appendOperand(sb, operandB);
         sb.append(" = ");
 
         return sb.toString();
     }
 
 
-    private static int generateOperand() {
-        return RANDOM.nextInt(30);
-    }
+    /**
+     * @param nextInt returns random number from 0 (inclusive) to given bound (exclusive)
+     */
+    private static Expression generate(IntUnaryOperator nextInt, Difficulty difficulty) {
+        int operandA = nextInt.applyAsInt(difficulty.getOperandsBound());
+        int operandB = nextInt.applyAsInt(difficulty.getOperandsBound());
+        if (operandA < operandB) {
+            final int operandTemp = operandA;
+            operandA = operandB;
+            operandB = operandTemp;
+        }
 
-    private static Operator generateOperator() {
         final Operator[] allOperators = Operator.values();
-        return allOperators[RANDOM.nextInt(allOperators.length)];
+        final Operator operator = allOperators[nextInt.applyAsInt(allOperators.length)];
+        final int expectedResult = calculateExpectedResult(operandA, operandB, operator);
+
+        return new Expression(operandA, operandB, operator, expectedResult);
+    }
+
+    private static void appendOperand(StringBuilder sb, int operand) {
+        if ((operand >= 0) && (operand < 10)) {
+            sb.append(' ');
+        }
+        sb.append(operand);
     }
 
     private static int calculateExpectedResult(int operandA, int operandB, Operator operator) {
@@ -90,4 +109,17 @@ public class Expression {
     public enum Operator {
         PLUS, MINUS
     }
+
+    /**
+     * Difficulty tier of expression, defines range of operands
+     */
+    @RequiredArgsConstructor
+    public enum Difficulty {
+        EASY(10), NORMAL(30), HARD(100);
+
+        /**
+         * Operands are from 0 (inclusive) to this bound (exclusive)
+         */
+        @Getter private final int operandsBound;
+    }
 }
@@ -0,0 +1,176 @@
+package com.lukashornych.mathmare;
+
+import com.lukashornych.mathmare.ui.GlyphSet;
+import com.lukashornych.mathmare.ui.TextLayout;
+import lombok.Data;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.util.Queue;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Bank of pre-generated expressions of each {@link Expression.Difficulty}. Expressions are generated in batches on
+ * background thread together with their display strings and text layouts, so taking expression by game logic costs
+ * single queue poll and drawing it does not build anything.
+ *
+ * Every difficulty has its own splittable random generator seeded from seed of the bank and batches of difficulty are
+ * always generated in same order, each by its own split generator. Sequence of expressions of difficulty therefore
+ * depends only on the seed, not on timing of background generation. If the bank runs out of expressions, missing batch
+ * is generated synchronously by calling thread.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class ExpressionBank {
+
+    private static final int BATCH_SIZE = 32;
+    /**
+     * New batch is generated in background when fewer entries than this are left
+     */
+    private static final int REFILL_THRESHOLD = 8;
+
+    /**
+     * Glyphs to lay out display strings by, null if nothing is rendered
+     */
+    private final GlyphSet glyphSet;
+    private final Tier[] tiers;
+    private final ExecutorService generator;
+
+    /**
+     * Creates bank and starts generating first batch of each difficulty in background
+     *
+     * @param seed seed of all generated expressions
+     * @param glyphSet glyphs to lay out display strings by, null if expressions are not rendered
+     */
+    public ExpressionBank(long seed, GlyphSet glyphSet) {
+        this.glyphSet = glyphSet;
+
+        final SplittableRandom random = new SplittableRandom(seed);
+        final Expression.Difficulty[] difficulties = Expression.Difficulty.values();
+        this.tiers = new Tier[difficulties.length];
+        for (int i = 0; i < difficulties.length; i++) {
+            tiers[i] = new Tier(difficulties[i], random.split());
+        }
+
+        this.generator = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "expression-generator");
+            thread.setDaemon(true);
+            return thread;
+        });
+        for (Tier tier : tiers) {
+            scheduleRefill(tier);
+        }
+    }
+
+    /**
+     * Takes next expression of difficulty
+     *
+     * @param difficulty difficulty of expression
+     * @return next pre-generated expression
+     */
+    public Entry take(@NonNull Expression.Difficulty difficulty) {
+        final Tier tier = tiers[difficulty.ordinal()];
+
+        Entry entry = tier.entries.poll();
+        if (entry == null) {
+            entry = tier.pollOrGenerate(glyphSet);
+        }
+
+        if (tier.entries.size() < REFILL_THRESHOLD) {
+            scheduleRefill(tier);
+        }
+        return entry;
+    }
+
+    /**
+     * Stops background generation
+     */
+    public void close() {
+        generator.shutdownNow();
+    }
+
+
+    private void scheduleRefill(Tier tier) {
+        if (!tier.refillScheduled.compareAndSet(false, true)) {
+            return;
+        }
+
+        try {
+            generator.execute(() -> {
+                try {
+                    tier.generateBatch(glyphSet);
+                } finally {
+                    tier.refillScheduled.set(false);
+                }
+            });
+        } catch (RuntimeException e) {
+            // bank is closed, expressions are generated by callers
+            tier.refillScheduled.set(false);
+        }
+    }
+
+
+    /**
+     * Pre-generated expression with its display string and layout
+     */
+    @Data
+    public static class Entry {
+        private final Expression expression;
+        private final String solvableString;
+        /**
+         * Layout of {@link #solvableString}, null if bank has no glyphs
+         */
+        private final TextLayout solvableLayout;
+    }
+
+    /**
+     * Queue of expressions of single difficulty
+     */
+    private static class Tier {
+        private final Expression.Difficulty difficulty;
+        /**
+         * Generator of split generators of batches, guarded by the tier
+         */
+        private final SplittableRandom random;
+        private final Queue<Entry> entries = new ConcurrentLinkedQueue<>();
+        private final AtomicBoolean refillScheduled = new AtomicBoolean(false);
+
+        private Tier(Expression.Difficulty difficulty, SplittableRandom random) {
+            this.difficulty = difficulty;
+            this.random = random;
+        }
+
+        /**
+         * Waits for batch being generated in background or generates next batch if there is none
+         */
+        private synchronized Entry pollOrGenerate(GlyphSet glyphSet) {
+            final Entry entry = entries.poll();
+            if (entry != null) {
+                return entry;
+            }
+            generateBatch(glyphSet);
+            return entries.poll();
+        }
+
+        /**
+         * Generates and appends next batch, batches are generated one at a time so their order is given
+         */
+        private synchronized void generateBatch(GlyphSet glyphSet) {
+            final SplittableRandom batchRandom = random.split();
+            for (int i = 0; i < BATCH_SIZE; i++) {
+                final Expression expression = Expression.generate(batchRandom, difficulty);
+                final String solvableString = expression.toSolvableString();
+                entries.add(new Entry(
+                        expression,
+                        solvableString,
+                        (glyphSet != null) ? glyphSet.layout(solvableString) : null
+                ));
+            }
+        }
+    }
+}
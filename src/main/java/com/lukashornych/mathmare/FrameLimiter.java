@@ -0,0 +1,64 @@
+package com.lukashornych.mathmare;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Limits frame rate to fixed number of frames per second. Waits until deadline of next frame by sleeping most of the
+ * remaining time and spinning the rest, as sleeping alone is not precise enough on most systems.
+ *
+ * Deadlines are scheduled from previous deadline rather than from current time, so the frame rate does not drift.
+ * If the loop falls behind by more than one frame, schedule is reset instead of rendering burst of frames.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString
+public class FrameLimiter {
+
+    /**
+     * Remaining time under which limiter spins instead of sleeping
+     */
+    private static final long SPIN_THRESHOLD_NANOS = 2_000_000;
+
+    @Getter
+    private final long frameNanos;
+    private long nextFrameDeadline;
+
+    /**
+     * @param framesPerSecond target frame rate
+     */
+    public FrameLimiter(int framesPerSecond) {
+        if (framesPerSecond <= 0) {
+            throw new IllegalArgumentException("Frame rate cap must be positive.");
+        }
+
+        this.frameNanos = 1_000_000_000L / framesPerSecond;
+        this.nextFrameDeadline = System.nanoTime() + frameNanos;
+    }
+
+    /**
+     * Waits until it is time to start next frame
+     */
+    public void waitForNextFrame() {
+        final long now = System.nanoTime();
+        long remaining = nextFrameDeadline - now;
+        if (remaining < -frameNanos) {
+            // fallen behind (e.g. by stall), catching up would render frames uncapped
+            nextFrameDeadline = now + frameNanos;
+            return;
+        }
+
+        while (remaining > SPIN_THRESHOLD_NANOS) {
+            LockSupport.parkNanos(remaining - SPIN_THRESHOLD_NANOS);
+            remaining = nextFrameDeadline - System.nanoTime();
+        }
+        while (remaining > 0) {
+            Thread.onSpinWait();
+            remaining = nextFrameDeadline - System.nanoTime();
+        }
+
+        nextFrameDeadline += frameNanos;
+    }
+}
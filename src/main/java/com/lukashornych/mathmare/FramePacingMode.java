@@ -0,0 +1,22 @@
+package com.lukashornych.mathmare;
+
+/**
+ * How are rendered frames paced.
+ *
+ * @see GameConfiguration
+ * @author Lukáš Hornych 2021
+ */
+public enum FramePacingMode {
+    /**
+     * Buffer swaps are synchronized with monitor refresh rate
+     */
+    VSYNC,
+    /**
+     * Frames are rendered as fast as possible, used for measuring throughput
+     */
+    UNCAPPED,
+    /**
+     * Frames are limited to configured frame rate by {@link FrameLimiter}, without vertical synchronization
+     */
+    CAPPED
+}
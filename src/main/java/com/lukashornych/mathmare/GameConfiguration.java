@@ -0,0 +1,86 @@
+package com.lukashornych.mathmare;
+
+import com.lukashornych.mathmare.world.WorldRenderMode;
+import lombok.Data;
+
+/**
+ * Configuration of single game instance. Default values are suitable for regular play.
+ *
+ * @see GameManager
+ * @author Lukáš Hornych 2021
+ */
+@Data
+public class GameConfiguration {
+
+    private int windowWidth = 1024;
+    private int windowHeight = 576;
+    /**
+     * Whether to show game window, hidden window is used for offscreen rendering
+     */
+    private boolean windowVisible = true;
+    /**
+     * How are rendered frames paced
+     */
+    private FramePacingMode framePacingMode = FramePacingMode.VSYNC;
+    /**
+     * Maximum frames per second in {@link FramePacingMode#CAPPED} mode
+     */
+    private int frameRateCap = 60;
+
+    /**
+     * Whether to cover distant geometry with fog
+     */
+    private boolean fogEnabled = true;
+    /**
+     * Distance from camera where fog starts
+     */
+    private float fogStart = 50f;
+    /**
+     * Distance from camera where fog fully covers geometry. Nothing beyond is rendered and camera far plane is set
+     * to this distance.
+     */
+    private float renderDistance = 100f;
+    /**
+     * How is static world geometry stored and rendered, instanced mode saves memory on very large mazes
+     */
+    private WorldRenderMode worldRenderMode = WorldRenderMode.MESH;
+
+    /**
+     * Time in seconds which render thread may spend every frame by uploading preloaded scenes to GPU
+     */
+    private float uploadFrameBudget = 0.002f;
+
+    /**
+     * Difficulty of expressions opening doors
+     */
+    private Expression.Difficulty expressionDifficulty = Expression.Difficulty.NORMAL;
+
+    /**
+     * Fixed time step of game simulation in seconds, independent of frame rate
+     */
+    private float simulationStep = 1f / 60f;
+    /**
+     * Maximum number of simulation steps run before rendering frame. If simulation falls further behind (e.g. after
+     * long stall), the remaining time is dropped instead of trying to catch up.
+     */
+    private int maxSimulationStepsPerFrame = 5;
+
+    /**
+     * Whether to measure frame stages also on GPU by timer queries
+     */
+    private boolean gpuTimingEnabled = true;
+
+    /**
+     * Seed of all random generators of game logic, null for random seed
+     */
+    private Long sessionSeed = null;
+    /**
+     * Path of file to record input of the session to, null if input should not be recorded
+     */
+    private String inputRecordingPath = null;
+    /**
+     * Path of previously recorded input log to replay instead of reading real input, null for real input. Session
+     * seed and simulation step are taken from the log.
+     */
+    private String inputReplayPath = null;
+}
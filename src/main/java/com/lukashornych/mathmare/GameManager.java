@@ -1,10 +1,25 @@
 package com.lukashornych.mathmare;
 
+import com.lukashornych.mathmare.diagnostics.FrameEvent;
+import com.lukashornych.mathmare.diagnostics.FrameProfiler;
+import com.lukashornych.mathmare.diagnostics.FrameStage;
+import com.lukashornych.mathmare.render.GLStateCache;
+import com.lukashornych.mathmare.render.RenderCommandQueue;
+import com.lukashornych.mathmare.render.RenderQueueExchange;
+import com.lukashornych.mathmare.replay.InputRecorder;
+import com.lukashornych.mathmare.replay.InputReplayer;
+import com.lukashornych.mathmare.scene.DungeonScene;
 import com.lukashornych.mathmare.scene.SceneManager;
+import com.lukashornych.mathmare.ui.SpriteBatch;
+import com.lukashornych.mathmare.ui.TextRendererFactory;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
+import lombok.NonNull;
 import lombok.ToString;
 
+import java.nio.file.Paths;
+import java.util.Random;
+
 import static org.lwjgl.glfw.GLFW.*;
 import static org.lwjgl.opengl.GL11.*;
 
@@ -12,6 +27,10 @@ import static org.lwjgl.opengl.GL11.*;
  * Manager of entire game instance. It manages flow of the game using underlying managers and should be also
  * passed to them to be accessible from anywhere.
  *
+ * Game runs on two threads. Thread calling {@link #init()} and {@link #run()} owns the window and OpenGL context and
+ * only polls events and renders frames. Input handling, simulation and recording of frames run on separate
+ * simulation thread, see {@link SimulationLoop}.
+ *
  * @author Lukáš Hornych
  */
 @Getter
@@ -19,15 +38,66 @@ import static org.lwjgl.opengl.GL11.*;
 @EqualsAndHashCode
 public class GameManager {
 
+    protected final GameConfiguration configuration;
+
     protected Window window;
+    protected GLStateCache glStateCache;
+    protected RenderQueueExchange renderQueueExchange;
+    protected RenderThreadExecutor renderThreadExecutor;
+    protected FrameProfiler frameProfiler;
+    /**
+     * Limiter of frame rate, null if frames are not capped
+     */
+    protected FrameLimiter frameLimiter;
+    /**
+     * Profiler of simulation thread, measures only CPU time of simulation
+     */
+    protected FrameProfiler simulationProfiler;
+    protected SpriteBatch spriteBatch;
+    protected TextRendererFactory textRendererFactory;
 
     protected InputManager inputManager;
     protected SceneManager sceneManager;
 
     /**
-     * Creates new game manager for current GLFW window. This manager should only one in game instance.
+     * Seed of {@link #sessionRandom}, replayed session uses seed of recorded session
+     */
+    protected long sessionSeed;
+    /**
+     * Source of all randomness of game logic (mazes, expressions) so that whole session can be reproduced from its
+     * seed and recorded input. Must be used only by game logic, i.e. on simulation thread or in scene switches.
+     */
+    protected Random sessionRandom;
+    /**
+     * Expressions of session, seeded by {@link #sessionRandom}
+     */
+    protected ExpressionBank expressionBank;
+
+    /**
+     * Set when game should end, e.g. by main menu or end of replayed input
+     */
+    protected volatile boolean exitRequested = false;
+    /**
+     * Failure which ended simulation thread, rethrown by render thread
+     */
+    protected volatile Throwable simulationFailure = null;
+
+    /**
+     * Creates new game manager with default configuration. This manager should only one in game instance.
      */
     public GameManager() {
+        this(new GameConfiguration());
+    }
+
+    /**
+     * Creates new game manager for current GLFW window. This manager should only one in game instance.
+     *
+     * @param configuration configuration of game instance
+     */
+    public GameManager(@NonNull GameConfiguration configuration) {
+        this.configuration = configuration;
+        this.frameProfiler = new FrameProfiler();
+        this.simulationProfiler = new FrameProfiler();
         this.inputManager = new InputManager(this);
         this.sceneManager = new SceneManager(this);
     }
@@ -36,42 +106,199 @@ public class GameManager {
      * Initialize this manager as well as all underlying managers to usable state.
      */
     public void init() {
-        window = new Window(1024, 576);
+        initSession();
+
+        window = new Window(
+                configuration.getWindowWidth(),
+                configuration.getWindowHeight(),
+                configuration.isWindowVisible(),
+                configuration.getFramePacingMode() == FramePacingMode.VSYNC
+        );
         window.init();
+        renderThreadExecutor = new RenderThreadExecutor(Thread.currentThread());
+        if (configuration.getFramePacingMode() == FramePacingMode.CAPPED) {
+            frameLimiter = new FrameLimiter(configuration.getFrameRateCap());
+        }
+        frameProfiler.init(configuration.isGpuTimingEnabled());
+        glStateCache = new GLStateCache();
+        spriteBatch = new SpriteBatch(window, glStateCache);
+        spriteBatch.init();
+        textRendererFactory = new TextRendererFactory(spriteBatch);
+        expressionBank = new ExpressionBank(
+                sessionRandom.nextLong(),
+                textRendererFactory.getTextRenderer(DungeonScene.EXPRESSION_FONT_SIZE).getGlyphSet()
+        );
+        renderQueueExchange = new RenderQueueExchange(
+                new RenderCommandQueue(frameProfiler, spriteBatch),
+                new RenderCommandQueue(frameProfiler, spriteBatch),
+                new RenderCommandQueue(frameProfiler, spriteBatch)
+        );
 
         inputManager.init();
         sceneManager.init();
     }
 
     /**
-     * Updates game
+     * Runs the game until window is closed. Starts simulation thread and renders latest frame published by it. If no
+     * new frame has been published since previous render, previous frame is rendered again.
      */
     public void run() {
-        long prevTime = System.currentTimeMillis();
-        float deltaTime = -1.0f;
+        final Thread simulationThread = new Thread(new SimulationLoop(this), "simulation");
+        simulationThread.start();
 
-        while (!glfwWindowShouldClose(window.getId())) {
-            glViewport(0, 0, window.getWidth(), window.getHeight());
+        final long uploadBudgetNanos = (long) (configuration.getUploadFrameBudget() * 1_000_000_000.0);
 
-            glfwPollEvents();
+        long frameNumber = 0;
+        try {
+            while (!exitRequested && !glfwWindowShouldClose(window.getId())) {
+                final FrameEvent frameEvent = new FrameEvent();
+                frameEvent.begin();
+                frameProfiler.beginFrame();
 
-            glClearColor(0.0f, 0.0f, 0.0f, 0.0f);
-            glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+                glViewport(0, 0, window.getWidth(), window.getHeight());
 
-            if (deltaTime > 0) {
-                inputManager.update();
-                sceneManager.update(deltaTime);
-            }
+                glfwPollEvents();
+                renderThreadExecutor.runPendingTasks();
+
+                frameProfiler.beginStage(FrameStage.UPLOAD);
+                renderThreadExecutor.runTimeSlicedTasks(uploadBudgetNanos);
+                frameProfiler.endStage(FrameStage.UPLOAD);
+
+                // state could have been changed by other renderers during previous frame
+                glStateCache.invalidate();
 
-            glfwSwapBuffers(window.getId());
+                glClearColor(0.0f, 0.0f, 0.0f, 0.0f);
+                glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
 
-            final long currentTime = System.currentTimeMillis();
-            deltaTime = (currentTime - prevTime) / 1000.0f;
-            prevTime = currentTime;
+                renderQueueExchange.acquire().submit();
+
+                frameProfiler.beginStage(FrameStage.SWAP);
+                glfwSwapBuffers(window.getId());
+                frameProfiler.endStage(FrameStage.SWAP);
+
+                if (frameLimiter != null) {
+                    frameProfiler.beginStage(FrameStage.PACING);
+                    frameLimiter.waitForNextFrame();
+                    frameProfiler.endStage(FrameStage.PACING);
+                }
+
+                frameProfiler.endFrame();
+                frameEvent.frameNumber = frameNumber++;
+                frameEvent.commit();
+            }
+        } finally {
+            stopSimulationThread(simulationThread);
+        }
+
+        if (simulationFailure != null) {
+            throw new IllegalStateException("Simulation thread failed.", simulationFailure);
         }
     }
 
+    /**
+     * Requests end of the game. Game loop ends after current frame. Can be called from any thread.
+     */
+    public void requestExit() {
+        exitRequested = true;
+    }
+
+    /**
+     * Ends the game because simulation thread failed. Game loop ends after current frame and rethrows the failure.
+     *
+     * @param failure failure which ended simulation thread
+     */
+    public void failSimulation(@NonNull Throwable failure) {
+        simulationFailure = failure;
+        requestExit();
+    }
+
+    /**
+     * @return true if game runs without window and OpenGL context, i.e. nothing is rendered and scenes must not touch
+     *         OpenGL
+     */
+    public boolean isHeadless() {
+        return false;
+    }
+
+    /**
+     * @return true if whole session must be reproducible from its seed and input, i.e. game logic must not depend on
+     *         timing of loading (game is headless or its input is recorded or replayed)
+     */
+    public boolean isReproducible() {
+        return isHeadless() || (inputManager.getRecorder() != null) || (inputManager.getReplayer() != null);
+    }
+
+    /**
+     * @return width of rendered viewport in pixels, configured window width if there is no window
+     */
+    public int getViewportWidth() {
+        return (window != null) ? window.getWidth() : configuration.getWindowWidth();
+    }
+
+    /**
+     * @return height of rendered viewport in pixels, configured window height if there is no window
+     */
+    public int getViewportHeight() {
+        return (window != null) ? window.getHeight() : configuration.getWindowHeight();
+    }
+
     public void destroy() {
+        sceneManager.destroy();
+        frameProfiler.destroy();
+        spriteBatch.destroy();
         window.destroy();
+        closeSession();
+    }
+
+
+    /**
+     * Seeds session random generator and opens input recording or replay if configured
+     */
+    protected void initSession() {
+        sessionSeed = (configuration.getSessionSeed() != null) ? configuration.getSessionSeed() : new Random().nextLong();
+
+        if (configuration.getInputReplayPath() != null) {
+            final InputReplayer replayer = InputReplayer.open(Paths.get(configuration.getInputReplayPath()));
+            sessionSeed = replayer.getSessionSeed();
+            configuration.setSimulationStep(replayer.getSimulationStep());
+            inputManager.setReplayer(replayer);
+        }
+        if (configuration.getInputRecordingPath() != null) {
+            inputManager.setRecorder(InputRecorder.create(
+                    Paths.get(configuration.getInputRecordingPath()),
+                    sessionSeed,
+                    configuration.getSimulationStep()
+            ));
+        }
+
+        sessionRandom = new Random(sessionSeed);
+    }
+
+    /**
+     * Closes input recording and replay and stops generating expressions
+     */
+    protected void closeSession() {
+        if (expressionBank != null) {
+            expressionBank.close();
+            expressionBank = null;
+        }
+        if (inputManager.getRecorder() != null) {
+            inputManager.getRecorder().close();
+            inputManager.setRecorder(null);
+        }
+        if (inputManager.getReplayer() != null) {
+            inputManager.getReplayer().close();
+            inputManager.setReplayer(null);
+        }
+    }
+
+
+    private void stopSimulationThread(Thread simulationThread) {
+        simulationThread.interrupt();
+        try {
+            simulationThread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 }
@@ -0,0 +1,86 @@
+package com.lukashornych.mathmare;
+
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * Game manager running game logic without window, OpenGL context and rendering. Input is provided by
+ * {@link SyntheticInputManager}. Simulation is not bound to real time, every {@link #step()} advances game by one
+ * fixed simulation step, so the game can be simulated as fast as possible, e.g. for simulation throughput
+ * measurements or automated sessions.
+ *
+ * Everything runs on thread calling {@link #init()}, there is no render thread. Input log recorded by the game can be
+ * replayed headless too, {@link #run()} then ends with end of the log.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString(callSuper = true)
+@EqualsAndHashCode(callSuper = true)
+public class HeadlessGameManager extends GameManager {
+
+    /**
+     * Number of simulated steps since initialization
+     */
+    @Getter
+    private long stepsCount = 0;
+
+    public HeadlessGameManager() {
+        this(new GameConfiguration());
+    }
+
+    public HeadlessGameManager(@NonNull GameConfiguration configuration) {
+        super(configuration);
+        this.inputManager = new SyntheticInputManager(this);
+    }
+
+    @Override
+    public void init() {
+        initSession();
+        expressionBank = new ExpressionBank(sessionRandom.nextLong(), null);
+
+        inputManager.init();
+        sceneManager.init();
+    }
+
+    /**
+     * Simulates game until exit is requested
+     */
+    @Override
+    public void run() {
+        while (!exitRequested) {
+            step();
+        }
+    }
+
+    /**
+     * Simulates single fixed step of game. Requested scene switch is performed right after the step.
+     */
+    public void step() {
+        inputManager.update();
+        sceneManager.update(configuration.getSimulationStep());
+        stepsCount++;
+
+        if (sceneManager.hasPendingSceneSwitch()) {
+            sceneManager.applyPendingSceneSwitch();
+        }
+    }
+
+    @Override
+    public void destroy() {
+        // there are no OpenGL objects nor window to destroy
+        sceneManager.destroy();
+        closeSession();
+    }
+
+    @Override
+    public boolean isHeadless() {
+        return true;
+    }
+
+    @Override
+    public SyntheticInputManager getInputManager() {
+        return (SyntheticInputManager) inputManager;
+    }
+}
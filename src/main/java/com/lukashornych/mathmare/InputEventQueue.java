@@ -0,0 +1,166 @@
+package com.lukashornych.mathmare;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free bounded queue of input events between single producer (GLFW callbacks on main thread) and single consumer
+ * (simulation thread). Events are stored in preallocated parallel arrays, so neither offering nor draining allocates.
+ *
+ * Cursor positions are not queued. Only the latest absolute position is kept outside of the queue and it is passed
+ * to handler as single {@link InputEventType#CURSOR} event after queued events of each drain. High rate mouse therefore
+ * cannot fill the queue, and as mouse delta is computed from absolute positions, it is not changed by coalescing.
+ *
+ * If consumer falls behind and the queue is full, new events are dropped instead of blocking the producer.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class InputEventQueue {
+
+    private final int capacity;
+    private final int mask;
+
+    private final InputEventType[] types;
+    private final int[] codes;
+    private final int[] actions;
+    private final double[] xs;
+    private final double[] ys;
+
+    /**
+     * Index of next event to be read, written only by consumer
+     */
+    private final AtomicLong head = new AtomicLong();
+    /**
+     * Index of next event to be written, written only by producer
+     */
+    private final AtomicLong tail = new AtomicLong();
+
+    /**
+     * Latest cursor position guarded by sequence lock, version is odd while producer writes the position
+     */
+    private final AtomicLong cursorVersion = new AtomicLong();
+    private volatile double cursorX;
+    private volatile double cursorY;
+    /**
+     * Version of cursor position passed to handler by last drain, used only by consumer
+     */
+    private long drainedCursorVersion = 0;
+
+    /**
+     * Number of events dropped because the queue was full. Written only by producer.
+     */
+    @Getter @ToString.Include
+    private volatile long droppedEventsCount = 0;
+
+    /**
+     * Creates empty queue
+     *
+     * @param capacity maximum number of not consumed events, must be power of two
+     */
+    public InputEventQueue(int capacity) {
+        if ((capacity <= 0) || (Integer.bitCount(capacity) != 1)) {
+            throw new IllegalArgumentException("Capacity must be power of two.");
+        }
+
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.types = new InputEventType[capacity];
+        this.codes = new int[capacity];
+        this.actions = new int[capacity];
+        this.xs = new double[capacity];
+        this.ys = new double[capacity];
+    }
+
+    /**
+     * Adds event to the queue. Must be called only from producer thread.
+     *
+     * @return false if the queue is full and event has been dropped
+     */
+    public boolean offer(InputEventType type, int code, int action, double x, double y) {
+        final long currentTail = tail.get();
+        if (currentTail - head.get() == capacity) {
+            droppedEventsCount++;
+            return false;
+        }
+
+        final int index = (int) (currentTail & mask);
+        types[index] = type;
+        codes[index] = code;
+        actions[index] = action;
+        xs[index] = x;
+        ys[index] = y;
+
+        // ordered write publishes event data to consumer
+        tail.lazySet(currentTail + 1);
+        return true;
+    }
+
+    /**
+     * Sets latest absolute cursor position, replaces position not drained yet. Must be called only from producer
+     * thread.
+     */
+    public void offerCursor(double x, double y) {
+        final long version = cursorVersion.get();
+        cursorVersion.set(version + 1);
+        cursorX = x;
+        cursorY = y;
+        cursorVersion.set(version + 2);
+    }
+
+    /**
+     * Passes all currently queued events in order to handler and removes them, followed by latest cursor position if
+     * it has changed since previous drain. Must be called only from consumer thread.
+     *
+     * @param handler handler of events
+     * @return number of handled events
+     */
+    public int drain(Handler handler) {
+        final long currentHead = head.get();
+        final long currentTail = tail.get();
+
+        for (long i = currentHead; i < currentTail; i++) {
+            final int index = (int) (i & mask);
+            handler.handle(types[index], codes[index], actions[index], xs[index], ys[index]);
+        }
+
+        // ordered write returns slots to producer only after they have been read
+        head.lazySet(currentTail);
+        int drainedCount = (int) (currentTail - currentHead);
+
+        if (cursorVersion.get() != drainedCursorVersion) {
+            long version;
+            double x;
+            double y;
+            do {
+                version = cursorVersion.get();
+                if ((version & 1) != 0) {
+                    // producer is writing position right now
+                    Thread.onSpinWait();
+                    continue;
+                }
+                x = cursorX;
+                y = cursorY;
+                if (cursorVersion.get() == version) {
+                    break;
+                }
+            } while (true);
+
+            drainedCursorVersion = version;
+            handler.handle(InputEventType.CURSOR, 0, 0, x, y);
+            drainedCount++;
+        }
+        return drainedCount;
+    }
+
+    /**
+     * Handler of drained events
+     */
+    @FunctionalInterface
+    public interface Handler {
+
+        void handle(InputEventType type, int code, int action, double x, double y);
+    }
+}
@@ -0,0 +1,31 @@
+package com.lukashornych.mathmare;
+
+/**
+ * Type of input event passed through {@link InputEventQueue}.
+ *
+ * @author Lukáš Hornych 2021
+ */
+public enum InputEventType {
+
+    /**
+     * Key pressed or released, code is GLFW key and action is GLFW action
+     */
+    KEY,
+    /**
+     * Mouse button pressed or released, code is GLFW mouse button and action is GLFW action
+     */
+    MOUSE_BUTTON,
+    /**
+     * Cursor moved to absolute window position x and y, positions are coalesced by
+     * {@link InputEventQueue#offerCursor(double, double)} to single latest one per drain
+     */
+    CURSOR,
+    /**
+     * Cursor moved by relative offset x and y, used by replayed input which does not know absolute position
+     */
+    MOUSE_MOVE,
+    /**
+     * Unicode character typed, code is code point
+     */
+    CHAR
+}
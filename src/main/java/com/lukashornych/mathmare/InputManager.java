@@ -1,12 +1,14 @@
 package com.lukashornych.mathmare;
 
+import com.lukashornych.mathmare.replay.InputRecorder;
+import com.lukashornych.mathmare.replay.InputReplayer;
 import lombok.EqualsAndHashCode;
 import lombok.Getter;
 import lombok.NonNull;
+import lombok.Setter;
 import lombok.ToString;
-import org.lwjgl.BufferUtils;
 
-import java.nio.DoubleBuffer;
+import java.util.Arrays;
 
 import static org.lwjgl.glfw.GLFW.*;
 
@@ -14,6 +16,15 @@ import static org.lwjgl.glfw.GLFW.*;
  * Manages all GLFW inputs into suitable form for this game. It manages both keyboard input and mouse input and should
  * be main source of getting current input information as it is holds current input states.
  *
+ * GLFW callbacks are called on main thread while input is read on simulation thread. Callbacks only push events into
+ * preallocated lock-free {@link InputEventQueue}, where cursor positions are coalesced into the latest one, and
+ * {@link #update()} applies all queued events at the beginning of each simulation step. Besides current states, manager provides edges of keys and mouse buttons (pressed or released
+ * in current step), characters typed in current step and mouse movement accumulated since previous step. Nothing is
+ * allocated nor reset as a whole per step, edges are detected by remembering step in which they happened.
+ *
+ * Input seen by each simulation step can be recorded by {@link InputRecorder}. When {@link InputReplayer} is set, input
+ * is taken only from it and GLFW input is ignored.
+ *
  * @see GameManager
  * @author Lukáš Hornych
  */
@@ -21,24 +32,69 @@ import static org.lwjgl.glfw.GLFW.*;
 @EqualsAndHashCode
 public class InputManager {
 
+    public static final int KEYS_COUNT = 349;
+    public static final int MOUSE_BUTTONS_COUNT = 8;
+
+    private static final int EVENT_QUEUE_CAPACITY = 1024;
+    private static final int MAX_TYPED_CHARS = 32;
+    private static final long NEVER = -1;
+
     @Getter
     private final GameManager gameManager;
 
+    @ToString.Exclude @EqualsAndHashCode.Exclude
+    protected final InputEventQueue eventQueue = new InputEventQueue(EVENT_QUEUE_CAPACITY);
+    @ToString.Exclude @EqualsAndHashCode.Exclude
+    private final InputEventQueue.Handler eventHandler = this::handleEvent;
 
-    protected boolean[] keysPressed = new boolean[349];
-
-    protected double previousMouseX;
-    protected double previousMouseY;
+    /**
+     * Number of current simulation step, incremented by every {@link #update()}
+     */
     @Getter
-    protected double currentMouseX;
+    protected long currentStep = 0;
+
+    protected final boolean[] keysPressed = new boolean[KEYS_COUNT];
+    /**
+     * Steps in which each key has been last pressed and released
+     */
+    protected final long[] keyPressSteps = new long[KEYS_COUNT];
+    protected final long[] keyReleaseSteps = new long[KEYS_COUNT];
+
+    protected final boolean[] mouseButtonsPressed = new boolean[MOUSE_BUTTONS_COUNT];
+    protected final long[] mouseButtonPressSteps = new long[MOUSE_BUTTONS_COUNT];
+    protected final long[] mouseButtonReleaseSteps = new long[MOUSE_BUTTONS_COUNT];
+
+    /**
+     * Characters typed in current step, characters beyond capacity are ignored
+     */
+    protected final int[] typedChars = new int[MAX_TYPED_CHARS];
     @Getter
-    protected double currentMouseY;
+    protected int typedCharsCount = 0;
+
+    /**
+     * Mouse movement accumulated from all cursor events of current step
+     */
     @Getter
     protected double deltaMouseX;
     @Getter
     protected double deltaMouseY;
 
-    protected boolean[] mouseButtonsPressed = new boolean[8];
+    /**
+     * Last cursor position applied by simulation thread
+     */
+    protected double cursorX;
+    protected double cursorY;
+
+    /**
+     * Recorder of input of every step, null if input is not recorded. Must be set before {@link #init()}.
+     */
+    @Getter @Setter
+    protected InputRecorder recorder;
+    /**
+     * Source of replayed input, null if input is read from GLFW. Must be set before {@link #init()}.
+     */
+    @Getter @Setter
+    protected InputReplayer replayer;
 
     /**
      * Creates uninitialized input manager. The {@link #init()} must be called before using.
@@ -47,6 +103,11 @@ public class InputManager {
      */
     public InputManager(@NonNull GameManager gameManager) {
         this.gameManager = gameManager;
+
+        Arrays.fill(keyPressSteps, NEVER);
+        Arrays.fill(keyReleaseSteps, NEVER);
+        Arrays.fill(mouseButtonPressSteps, NEVER);
+        Arrays.fill(mouseButtonReleaseSteps, NEVER);
     }
 
     /**
@@ -55,16 +116,38 @@ public class InputManager {
      */
     public void init() {
         glfwSetKeyCallback(gameManager.getWindow().getId(), this::keyboardCallback);
+        glfwSetCharCallback(gameManager.getWindow().getId(), this::charCallback);
 
         glfwSetMouseButtonCallback(gameManager.getWindow().getId(), this::mouseButtonsCallback);
+        glfwSetCursorPosCallback(gameManager.getWindow().getId(), this::cursorPositionCallback);
+        final double[] initialCursorX = new double[1];
+        final double[] initialCursorY = new double[1];
+        glfwGetCursorPos(gameManager.getWindow().getId(), initialCursorX, initialCursorY);
+        cursorX = initialCursorX[0];
+        cursorY = initialCursorY[0];
+
         setMouseMode(MouseMode.INTERACTIVE);
     }
 
     /**
-     * Updates current input data
+     * Applies all input events queued since previous step and starts new step. Called from simulation thread.
      */
     public void update() {
-        updateMouserPosition();
+        currentStep++;
+        typedCharsCount = 0;
+        deltaMouseX = 0;
+        deltaMouseY = 0;
+
+        final boolean replaying = (replayer != null) && replayer.replayStep(eventQueue);
+
+        eventQueue.drain(eventHandler);
+
+        if (recorder != null) {
+            recorder.recordStep(deltaMouseX, deltaMouseY);
+        }
+        if (replaying && replayer.isFinished()) {
+            gameManager.requestExit();
+        }
     }
 
     /**
@@ -74,7 +157,7 @@ public class InputManager {
      * @return true if pressed, false if not pressed or key not found
      */
     public boolean isKeyPressed(int key) {
-        if ((key < 0) || (key >= keysPressed.length)) {
+        if ((key < 0) || (key >= KEYS_COUNT)) {
             return false;
         }
 
@@ -82,10 +165,31 @@ public class InputManager {
     }
 
     /**
-     * Resets states of all keys
+     * Checks if the key has been pressed in current step, i.e. holding the key is reported only once.
+     *
+     * @param key GLFW key
+     * @return true if pressed in current step, false otherwise or if key not found
+     */
+    public boolean isKeyPressedThisStep(int key) {
+        if ((key < 0) || (key >= KEYS_COUNT)) {
+            return false;
+        }
+
+        return keyPressSteps[key] == currentStep;
+    }
+
+    /**
+     * Checks if the key has been released in current step
+     *
+     * @param key GLFW key
+     * @return true if released in current step, false otherwise or if key not found
      */
-    public void resetKeyStates() {
-        keysPressed = new boolean[349];
+    public boolean isKeyReleasedThisStep(int key) {
+        if ((key < 0) || (key >= KEYS_COUNT)) {
+            return false;
+        }
+
+        return keyReleaseSteps[key] == currentStep;
     }
 
     /**
@@ -95,7 +199,7 @@ public class InputManager {
      * @return true if pressed, false if not pressed or mouse button not found
      */
     public boolean isMouseButtonPressed(int mouseButton) {
-        if ((mouseButton < 0) || (mouseButton >= mouseButtonsPressed.length)) {
+        if ((mouseButton < 0) || (mouseButton >= MOUSE_BUTTONS_COUNT)) {
             return false;
         }
 
@@ -103,7 +207,49 @@ public class InputManager {
     }
 
     /**
-     * Changes current mouse mode
+     * Checks if the mouse button has been pressed in current step
+     *
+     * @param mouseButton GLFW mouse button
+     * @return true if pressed in current step, false otherwise or if mouse button not found
+     */
+    public boolean isMouseButtonPressedThisStep(int mouseButton) {
+        if ((mouseButton < 0) || (mouseButton >= MOUSE_BUTTONS_COUNT)) {
+            return false;
+        }
+
+        return mouseButtonPressSteps[mouseButton] == currentStep;
+    }
+
+    /**
+     * Checks if the mouse button has been released in current step
+     *
+     * @param mouseButton GLFW mouse button
+     * @return true if released in current step, false otherwise or if mouse button not found
+     */
+    public boolean isMouseButtonReleasedThisStep(int mouseButton) {
+        if ((mouseButton < 0) || (mouseButton >= MOUSE_BUTTONS_COUNT)) {
+            return false;
+        }
+
+        return mouseButtonReleaseSteps[mouseButton] == currentStep;
+    }
+
+    /**
+     * Returns character typed in current step
+     *
+     * @param index index of character between 0 and {@link #getTypedCharsCount()}
+     * @return unicode code point of character
+     */
+    public int getTypedChar(int index) {
+        if ((index < 0) || (index >= typedCharsCount)) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of typed characters.");
+        }
+
+        return typedChars[index];
+    }
+
+    /**
+     * Changes current mouse mode. Must be called from main thread, e.g. in scene initialization.
      *
      * @param mouseMode new mouse mode
      */
@@ -122,20 +268,43 @@ public class InputManager {
     }
 
     /**
-     * Updates mouse position data with current window mouse position data
+     * Applies single queued input event to current input state
      */
-    protected void updateMouserPosition() {
-        previousMouseX = currentMouseX;
-        previousMouseY = currentMouseY;
-
-        final DoubleBuffer currentMouseXBuffer = BufferUtils.createDoubleBuffer(1);
-        final DoubleBuffer currentMouseYBuffer = BufferUtils.createDoubleBuffer(1);
-        glfwGetCursorPos(gameManager.getWindow().getId(), currentMouseXBuffer, currentMouseYBuffer);
-        currentMouseX = currentMouseXBuffer.get(0);
-        currentMouseY = currentMouseYBuffer.get(0);
-
-        deltaMouseX = previousMouseX - currentMouseX;
-        deltaMouseY = previousMouseY - currentMouseY;
+    protected void handleEvent(InputEventType type, int code, int action, double x, double y) {
+        switch (type) {
+            case KEY:
+                if ((code >= 0) && (code < KEYS_COUNT) && applyPress(action, code, keysPressed, keyPressSteps, keyReleaseSteps)) {
+                    if (recorder != null) {
+                        recorder.recordKey(code, keysPressed[code]);
+                    }
+                }
+                break;
+            case MOUSE_BUTTON:
+                if ((code >= 0) && (code < MOUSE_BUTTONS_COUNT) && applyPress(action, code, mouseButtonsPressed, mouseButtonPressSteps, mouseButtonReleaseSteps)) {
+                    if (recorder != null) {
+                        recorder.recordMouseButton(code, mouseButtonsPressed[code]);
+                    }
+                }
+                break;
+            case CURSOR:
+                deltaMouseX += cursorX - x;
+                deltaMouseY += cursorY - y;
+                cursorX = x;
+                cursorY = y;
+                break;
+            case MOUSE_MOVE:
+                deltaMouseX += x;
+                deltaMouseY += y;
+                break;
+            case CHAR:
+                if (typedCharsCount < MAX_TYPED_CHARS) {
+                    typedChars[typedCharsCount++] = code;
+                    if (recorder != null) {
+                        recorder.recordChar(code);
+                    }
+                }
+                break;
+        }
     }
 
     /**
@@ -148,15 +317,23 @@ public class InputManager {
      * @param mods
      */
     protected void keyboardCallback(long window, int key, int scancode, int action, int mods) {
-        try {
-            if (action == GLFW_PRESS) {
-                keysPressed[key] = true;
-            } else if (action == GLFW_RELEASE) {
-                keysPressed[key] = false;
-            }
-        } catch (Exception e) {
-            // unknown key, do nothing
+        if (replayer != null) {
+            return;
+        }
+        eventQueue.offer(InputEventType.KEY, key, action, 0, 0);
+    }
+
+    /**
+     * GLFW callback for typed characters
+     *
+     * @param window
+     * @param codepoint
+     */
+    protected void charCallback(long window, int codepoint) {
+        if (replayer != null) {
+            return;
         }
+        eventQueue.offer(InputEventType.CHAR, codepoint, 0, 0, 0);
     }
 
     /**
@@ -168,15 +345,44 @@ public class InputManager {
      * @param mods
      */
     protected void mouseButtonsCallback(long window, int button, int action, int mods) {
-        try {
-            if (action == GLFW_PRESS) {
-                mouseButtonsPressed[button] = true;
-            } else if (action == GLFW_RELEASE) {
-                mouseButtonsPressed[button] = false;
-            }
-        } catch (Exception e) {
-            // unknown key, do nothing
+        if (replayer != null) {
+            return;
+        }
+        eventQueue.offer(InputEventType.MOUSE_BUTTON, button, action, 0, 0);
+    }
+
+    /**
+     * GLFW callback for tracking cursor position
+     *
+     * @param window
+     * @param x
+     * @param y
+     */
+    protected void cursorPositionCallback(long window, double x, double y) {
+        if (replayer != null) {
+            return;
+        }
+        eventQueue.offerCursor(x, y);
+    }
+
+
+    /**
+     * Applies press or release of key or mouse button
+     *
+     * @return true if state has changed, repeats and releases of not pressed keys are ignored
+     */
+    private boolean applyPress(int action, int code, boolean[] pressed, long[] pressSteps, long[] releaseSteps) {
+        if ((action == GLFW_PRESS) && !pressed[code]) {
+            pressed[code] = true;
+            pressSteps[code] = currentStep;
+            return true;
+        }
+        if ((action == GLFW_RELEASE) && pressed[code]) {
+            pressed[code] = false;
+            releaseSteps[code] = currentStep;
+            return true;
         }
+        return false;
     }
 
     /**
@@ -1,21 +1,121 @@
 package com.lukashornych.mathmare;
 
+import com.lukashornych.mathmare.benchmark.AgentBenchmark;
+import com.lukashornych.mathmare.benchmark.CollisionBenchmark;
+import com.lukashornych.mathmare.benchmark.RenderBenchmark;
+import com.lukashornych.mathmare.benchmark.SimulationBenchmark;
+import com.lukashornych.mathmare.world.WorldRenderMode;
+
 /**
  * Application which start the whole game.
  *
+ * Running with {@code --benchmark} argument runs headless {@link RenderBenchmark} instead of the game. The benchmark
+ * can be further configured by {@code --frames=<count>}, {@code --warmup=<count>}, {@code --seed=<seed>} and
+ * {@code --world-render-mode=<mesh|instanced>}.
+ *
+ * Running with {@code --simulation-benchmark} argument plays automated sessions of {@link SimulationBenchmark} without
+ * window and OpenGL. It can be configured by {@code --sessions=<count>}, {@code --steps=<max steps per session>} and
+ * {@code --seed=<seed>}.
+ *
+ * Running with {@code --collision-benchmark} argument measures throughput of scalar and vectorized batch collision
+ * queries by {@link CollisionBenchmark}. It can be configured by {@code --colliders=<count>},
+ * {@code --batch=<candidates per query>}, {@code --queries=<count>} and {@code --seed=<seed>}.
+ *
+ * Running with {@code --agent-benchmark} argument measures scaling of parallel {@link AgentBenchmark} simulation of
+ * many agents over growing number of cores. It can be configured by {@code --agents=<count>},
+ * {@code --ticks=<count>} and {@code --seed=<seed>}.
+ *
+ * Engine emits JDK Flight Recorder events (category Mathmare) of frames, scene switches, maze generation, world
+ * building, texture loading and expression solving, which can be recorded by e.g. {@code -XX:StartFlightRecording}.
+ *
+ * Frame pacing of the game can be changed by {@code --frame-pacing=<vsync|uncapped|capped>} and
+ * {@code --frame-rate-cap=<fps>}.
+ *
+ * Input of the session can be recorded by {@code --record-input=<file>} and exactly replayed later by
+ * {@code --replay-input=<file>}, e.g. to compare frame times of same play-through between builds.
+ *
  * @author Lukáš Hornych
  */
 public class Mathmare {
 
 
     public static void main(String... args) {
-        new Mathmare().run();
+        if (hasArgument(args, "--benchmark")) {
+            final RenderBenchmark benchmark = new RenderBenchmark(
+                    Integer.parseInt(getArgument(args, "--frames", "2000")),
+                    Integer.parseInt(getArgument(args, "--warmup", "200")),
+                    Long.parseLong(getArgument(args, "--seed", "42")),
+                    WorldRenderMode.valueOf(getArgument(args, "--world-render-mode", "mesh").toUpperCase())
+            );
+            System.out.println(benchmark.run().toReport());
+            return;
+        }
+        if (hasArgument(args, "--simulation-benchmark")) {
+            final SimulationBenchmark benchmark = new SimulationBenchmark(
+                    Integer.parseInt(getArgument(args, "--sessions", "100")),
+                    Integer.parseInt(getArgument(args, "--steps", "36000")),
+                    Long.parseLong(getArgument(args, "--seed", "42"))
+            );
+            System.out.println(benchmark.run().toReport());
+            return;
+        }
+
+        if (hasArgument(args, "--collision-benchmark")) {
+            final CollisionBenchmark benchmark = new CollisionBenchmark(
+                    Integer.parseInt(getArgument(args, "--colliders", "4096")),
+                    Integer.parseInt(getArgument(args, "--batch", "64")),
+                    Integer.parseInt(getArgument(args, "--queries", "5000000")),
+                    Long.parseLong(getArgument(args, "--seed", "42"))
+            );
+            System.out.println(benchmark.run().toReport());
+            return;
+        }
+
+        if (hasArgument(args, "--agent-benchmark")) {
+            final AgentBenchmark benchmark = new AgentBenchmark(
+                    Integer.parseInt(getArgument(args, "--agents", "20000")),
+                    Integer.parseInt(getArgument(args, "--ticks", "600")),
+                    Long.parseLong(getArgument(args, "--seed", "42"))
+            );
+            System.out.println(benchmark.run().toReport());
+            return;
+        }
+
+        final GameConfiguration configuration = new GameConfiguration();
+        configuration.setFramePacingMode(FramePacingMode.valueOf(getArgument(args, "--frame-pacing", "vsync").toUpperCase()));
+        configuration.setFrameRateCap(Integer.parseInt(getArgument(args, "--frame-rate-cap", "60")));
+        configuration.setInputRecordingPath(getArgument(args, "--record-input", null));
+        configuration.setInputReplayPath(getArgument(args, "--replay-input", null));
+
+        new Mathmare().run(configuration);
+    }
+
+    private static boolean hasArgument(String[] args, String name) {
+        for (String arg : args) {
+            if (arg.equals(name)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static String getArgument(String[] args, String name, String defaultValue) {
+        for (String arg : args) {
+            if (arg.startsWith(name + "=")) {
+                return arg.substring(name.length() + 1);
+            }
+        }
+        return defaultValue;
     }
 
-    public void run() {
-        final GameManager gameManager = new GameManager();
+    public void run(GameConfiguration configuration) {
+        final GameManager gameManager = new GameManager(configuration);
         gameManager.init();
-        gameManager.run();
-        gameManager.destroy();
+        try {
+            gameManager.run();
+            System.out.println("Frame times: " + gameManager.getFrameProfiler().getFrameTimeHistogram().toReport());
+        } finally {
+            gameManager.destroy();
+        }
     }
 }
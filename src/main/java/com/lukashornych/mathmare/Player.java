@@ -5,6 +5,7 @@ import com.lukashornych.mathmare.physics.PhysicsWorld;
 import lombok.Data;
 import lombok.NonNull;
 import org.joml.Math;
+import org.joml.Vector2f;
 import org.joml.Vector3f;
 
 import static org.lwjgl.glfw.GLFW.*;
@@ -12,6 +13,10 @@ import static org.lwjgl.glfw.GLFW.*;
 /**
  * Actual player which reacts to player's handling. It wraps camera.
  *
+ * Player is moved by fixed simulation steps, so it remembers its position from previous step and rendering uses
+ * separate render camera interpolated between previous and current position to keep movement smooth at any frame rate.
+ * Both cameras belong to simulation thread, render thread gets only copy of render camera pose.
+ *
  * @author Lukáš Hornych 2021
  */
 @Data
@@ -23,6 +28,12 @@ public class Player {
 
     private final PhysicsWorld physicsWorld;
     private final Camera camera;
+    private final Camera renderCamera;
+
+    /**
+     * Position of player before last simulation step
+     */
+    private final Vector3f previousPosition;
 
     /**
      * Creates and initializes new player to usable state
@@ -34,18 +45,22 @@ public class Player {
         this.gameManager = gameManager;
         this.physicsWorld = physicsWorld;
         this.camera = new Camera(gameManager, initialPosition, 0f, 0f);
+        this.renderCamera = new Camera(gameManager, new Vector3f(initialPosition), 0f, 0f);
+        this.previousPosition = new Vector3f(initialPosition);
     }
 
     /**
      * Updates current position by player input
      *
-     * @param dt delta time
+     * @param dt fixed simulation step
      */
     public void updatePosition(float dt) {
+        previousPosition.set(camera.getPosition());
+
         final InputManager inputManager = getGameManager().getInputManager();
 
-        camera.addAzimuth((float) (Math.PI * inputManager.getDeltaMouseX()) / gameManager.getWindow().getWidth());
-        camera.addZenith((float) (Math.PI * inputManager.getDeltaMouseY()) / gameManager.getWindow().getHeight());
+        camera.addAzimuth((float) (Math.PI * inputManager.getDeltaMouseX()) / gameManager.getViewportWidth());
+        camera.addZenith((float) (Math.PI * inputManager.getDeltaMouseY()) / gameManager.getViewportHeight());
 
         if (inputManager.isKeyPressed(GLFW_KEY_W)) {
             moveForward(STEP_LENGTH * dt);
@@ -61,6 +76,26 @@ public class Player {
         }
     }
 
+    /**
+     * Keeps player at current position for this simulation step, so that render camera does not interpolate from
+     * older position
+     */
+    public void holdPosition() {
+        previousPosition.set(camera.getPosition());
+    }
+
+    /**
+     * Moves render camera between previous and current position of player. Orientation is not interpolated so that
+     * looking around stays responsive.
+     *
+     * @param alpha how far is rendered frame between previous and current simulation step
+     */
+    public void interpolateRenderCamera(float alpha) {
+        previousPosition.lerp(camera.getPosition(), alpha, renderCamera.getPosition());
+        renderCamera.setAzimuth(camera.getAzimuth());
+        renderCamera.setZenith(camera.getZenith());
+    }
+
     /**
      * @return current positions of player
      */
@@ -93,14 +128,19 @@ public class Player {
     }
 
     /**
-     * Moves player to new position if not colliding
+     * Moves player towards new position as far as world objects allow, player slides along objects blocking the
+     * movement
      *
      * @param newPos desired new position of player
      */
     private void moveToNewPosition(Vector3f newPos) {
-        if (!isCollidingWithWorld(newPos)) {
-            camera.setPosition(newPos);
-        }
+        final Vector3f position = camera.getPosition();
+
+        // bounding box y axis is world's negative z axis
+        final Vector2f movement = new Vector2f(newPos.x - position.x, -(newPos.z - position.z));
+        physicsWorld.sweepAndSlide(createPlayerBoundingBox(position), movement);
+
+        camera.setPosition(new Vector3f(position.x + movement.x, newPos.y, position.z - movement.y));
     }
 
     /**
@@ -116,25 +156,4 @@ public class Player {
                 -playerPosition.z + 0.5f
         );
     }
-
-    /**
-     * Checks if player at specific position is colliding with some world object
-     *
-     * @param playerPosition position of player to check
-     * @return true if colliding
-     */
-    private boolean isCollidingWithWorld(Vector3f playerPosition) {
-        final BoundingBox playerBoundingBox = createPlayerBoundingBox(playerPosition);
-
-        for (BoundingBox object : physicsWorld.getObjects()) {
-            final boolean colliding = (object.getMinX() <= playerBoundingBox.getMaxX() && object.getMaxX() >= playerBoundingBox.getMinX()) &&
-                                      (object.getMinY() <= playerBoundingBox.getMaxY() && object.getMaxY() >= playerBoundingBox.getMinY()) &&
-                                      object.isEnabled();
-            if (colliding) {
-                return true;
-            }
-        }
-
-        return false;
-    }
 }
@@ -0,0 +1,130 @@
+package com.lukashornych.mathmare;
+
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.FutureTask;
+
+/**
+ * Runs tasks needing OpenGL context or GLFW (e.g. scene initialization) on render thread on behalf of other threads.
+ * Pending tasks are run by render thread at the start of each frame.
+ *
+ * Long running work can be submitted as {@link TimeSlicedTask}, which is run in slices by limited time each frame, so
+ * frames keep being rendered at full rate while the work progresses.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class RenderThreadExecutor {
+
+    private final Thread renderThread;
+    private final Queue<FutureTask<Void>> pendingTasks = new ConcurrentLinkedQueue<>();
+    private final Queue<ScheduledSlicedTask> timeSlicedTasks = new ConcurrentLinkedQueue<>();
+
+    /**
+     * @param renderThread thread owning OpenGL context
+     */
+    public RenderThreadExecutor(@NonNull Thread renderThread) {
+        this.renderThread = renderThread;
+    }
+
+    /**
+     * Runs task on render thread and waits until it is finished. If called from render thread, the task is run
+     * directly. Waiting is abandoned if calling thread is interrupted.
+     *
+     * @param task task to run
+     */
+    public void runAndWait(@NonNull Runnable task) {
+        if (Thread.currentThread() == renderThread) {
+            task.run();
+            return;
+        }
+
+        final FutureTask<Void> futureTask = new FutureTask<>(task, null);
+        pendingTasks.add(futureTask);
+        try {
+            futureTask.get();
+        } catch (InterruptedException e) {
+            futureTask.cancel(false);
+            Thread.currentThread().interrupt();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Render thread task failed.", e.getCause());
+        }
+    }
+
+    /**
+     * Runs all pending tasks. Must be called from render thread.
+     */
+    public void runPendingTasks() {
+        FutureTask<Void> task;
+        while ((task = pendingTasks.poll()) != null) {
+            task.run();
+        }
+    }
+
+    /**
+     * Schedules long running task to be run in slices at the start of following frames. Tasks are run one after
+     * another in order of submission. Cancelling returned future skips the rest of the task. Can be called from any
+     * thread.
+     *
+     * @param task task to run
+     * @return future completed when whole task is finished
+     */
+    public CompletableFuture<Void> submitTimeSliced(@NonNull TimeSlicedTask task) {
+        final ScheduledSlicedTask scheduledTask = new ScheduledSlicedTask(task, new CompletableFuture<>());
+        timeSlicedTasks.add(scheduledTask);
+        return scheduledTask.future;
+    }
+
+    /**
+     * Runs scheduled time sliced tasks until all are finished or time budget is spent. Must be called from render
+     * thread.
+     *
+     * @param budgetNanos time the tasks may take in this frame
+     */
+    public void runTimeSlicedTasks(long budgetNanos) {
+        final long deadline = System.nanoTime() + budgetNanos;
+
+        ScheduledSlicedTask scheduledTask;
+        while ((scheduledTask = timeSlicedTasks.peek()) != null) {
+            if (scheduledTask.future.isDone()) {
+                // cancelled
+                timeSlicedTasks.poll();
+                continue;
+            }
+
+            final boolean finished;
+            try {
+                finished = scheduledTask.task.runSlice(deadline);
+            } catch (RuntimeException e) {
+                timeSlicedTasks.poll();
+                scheduledTask.future.completeExceptionally(e);
+                continue;
+            }
+            if (!finished) {
+                return;
+            }
+            timeSlicedTasks.poll();
+            scheduledTask.future.complete(null);
+
+            if (System.nanoTime() >= deadline) {
+                return;
+            }
+        }
+    }
+
+
+    /**
+     * Time sliced task together with future of its completion
+     */
+    @RequiredArgsConstructor
+    private static class ScheduledSlicedTask {
+        private final TimeSlicedTask task;
+        private final CompletableFuture<Void> future;
+    }
+}
@@ -0,0 +1,107 @@
+package com.lukashornych.mathmare;
+
+import com.lukashornych.mathmare.diagnostics.FrameProfiler;
+import com.lukashornych.mathmare.diagnostics.FrameStage;
+import com.lukashornych.mathmare.render.RenderCommandQueue;
+import com.lukashornych.mathmare.render.RenderQueueExchange;
+import com.lukashornych.mathmare.replay.InputRecorder;
+import com.lukashornych.mathmare.replay.InputReplayer;
+import com.lukashornych.mathmare.scene.SceneManager;
+import lombok.NonNull;
+import lombok.ToString;
+
+/**
+ * Game simulation running on its own thread. Simulation runs in fixed time steps, elapsed time is accumulated and
+ * consumed by as many steps as fit into it. After steps, current scene records frame interpolated by the remaining
+ * fraction of step and publishes it to render thread through {@link RenderQueueExchange}.
+ *
+ * Scene switches requested during step are performed on render thread, as scenes create OpenGL objects, and
+ * simulation waits for them.
+ *
+ * Real time elapsed by every frame is recorded together with input, when input is replayed, recorded times are used
+ * instead of clock.
+ *
+ * The loop stops when its thread is interrupted. If simulation fails, the failure is handed to game manager, which
+ * ends the game.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class SimulationLoop implements Runnable {
+
+    private final GameManager gameManager;
+
+    public SimulationLoop(@NonNull GameManager gameManager) {
+        this.gameManager = gameManager;
+    }
+
+    @Override
+    public void run() {
+        final GameConfiguration configuration = gameManager.getConfiguration();
+        final InputManager inputManager = gameManager.getInputManager();
+        final SceneManager sceneManager = gameManager.getSceneManager();
+        final FrameProfiler simulationProfiler = gameManager.getSimulationProfiler();
+        final RenderQueueExchange renderQueueExchange = gameManager.getRenderQueueExchange();
+        final InputRecorder recorder = inputManager.getRecorder();
+        final InputReplayer replayer = inputManager.getReplayer();
+
+        final float simulationStep = configuration.getSimulationStep();
+        final long simulationStepNanos = (long) (simulationStep * 1_000_000_000.0);
+        final long maxAccumulatedNanos = simulationStepNanos * configuration.getMaxSimulationStepsPerFrame();
+
+        long previousTime = System.nanoTime();
+        // first frame simulates single step so that scene is rendered with initialized state
+        long accumulatedNanos = simulationStepNanos;
+
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                final long currentTime = System.nanoTime();
+                long elapsedNanos = currentTime - previousTime;
+                previousTime = currentTime;
+                if (replayer != null) {
+                    // replayed frame timing reproduces same steps and interpolation of every frame
+                    final long replayedElapsedNanos = replayer.nextFrameElapsedNanos();
+                    if (replayedElapsedNanos >= 0) {
+                        elapsedNanos = replayedElapsedNanos;
+                    }
+                }
+                if (recorder != null) {
+                    recorder.recordFrame(elapsedNanos);
+                }
+                accumulatedNanos = Math.min(accumulatedNanos + elapsedNanos, maxAccumulatedNanos);
+
+                simulationProfiler.beginFrame();
+                simulationProfiler.beginStage(FrameStage.SIMULATION);
+                while (accumulatedNanos >= simulationStepNanos) {
+                    inputManager.update();
+                    sceneManager.update(simulationStep);
+                    accumulatedNanos -= simulationStepNanos;
+
+                    if (sceneManager.hasPendingSceneSwitch()) {
+                        gameManager.getRenderThreadExecutor().runAndWait(() -> {
+                            sceneManager.applyPendingSceneSwitch();
+                            renderQueueExchange.discardPublished();
+                        });
+
+                        // time spent loading new scene is not simulated
+                        previousTime = System.nanoTime();
+                        accumulatedNanos = 0;
+                        break;
+                    }
+                }
+                simulationProfiler.endStage(FrameStage.SIMULATION);
+
+                final RenderCommandQueue renderQueue = renderQueueExchange.beginRecording();
+                sceneManager.render(renderQueue, accumulatedNanos / (float) simulationStepNanos);
+                renderQueueExchange.publish();
+                simulationProfiler.endFrame();
+
+                // record next frame as soon as render thread takes this one, but do not wait past next step
+                renderQueueExchange.awaitConsumed(System.nanoTime() + (simulationStepNanos - accumulatedNanos));
+            }
+        } catch (Throwable e) {
+            // render thread would otherwise keep drawing last frame of dead simulation
+            gameManager.failSimulation(e);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.lukashornych.mathmare;
+
+import lombok.NonNull;
+import lombok.ToString;
+
+import static org.lwjgl.glfw.GLFW.GLFW_PRESS;
+import static org.lwjgl.glfw.GLFW.GLFW_RELEASE;
+
+/**
+ * Input manager without any window. Input is not read from GLFW but set programmatically, e.g. by automated player
+ * of {@link HeadlessGameManager}.
+ *
+ * Unlike GLFW callbacks, synthetic input must be set from simulation thread between simulation steps. Pressed keys
+ * stay pressed until released.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString(callSuper = true)
+public class SyntheticInputManager extends InputManager {
+
+    public SyntheticInputManager(@NonNull GameManager gameManager) {
+        super(gameManager);
+    }
+
+    @Override
+    public void init() {
+        // there are no callbacks to register nor cursor to set
+    }
+
+    @Override
+    public void setMouseMode(@NonNull MouseMode mouseMode) {
+        // there is no cursor
+    }
+
+    /**
+     * Presses key until it is released by {@link #releaseKey(int)}
+     *
+     * @param key GLFW key
+     */
+    public void pressKey(int key) {
+        keyboardCallback(0, key, 0, GLFW_PRESS, 0);
+    }
+
+    /**
+     * Releases key
+     *
+     * @param key GLFW key
+     */
+    public void releaseKey(int key) {
+        keyboardCallback(0, key, 0, GLFW_RELEASE, 0);
+    }
+
+    /**
+     * Types single character
+     *
+     * @param codepoint unicode code point of character
+     */
+    public void typeChar(int codepoint) {
+        charCallback(0, codepoint);
+    }
+
+    /**
+     * Moves cursor by given offset. Movement is reflected in mouse deltas after next {@link #update()}.
+     *
+     * @param dx offset on x axis in pixels
+     * @param dy offset on y axis in pixels
+     */
+    public void moveCursor(double dx, double dy) {
+        // mouse delta is measured from current to previous position
+        eventQueue.offer(InputEventType.MOUSE_MOVE, 0, 0, -dx, -dy);
+    }
+}
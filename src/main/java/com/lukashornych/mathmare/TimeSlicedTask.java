@@ -0,0 +1,21 @@
+package com.lukashornych.mathmare;
+
+/**
+ * Long running work on render thread (e.g. upload of large world to GPU) split into slices, so that it can be spread
+ * over several frames without stalling them.
+ *
+ * @see RenderThreadExecutor#submitTimeSliced(TimeSlicedTask)
+ * @author Lukáš Hornych 2021
+ */
+@FunctionalInterface
+public interface TimeSlicedTask {
+
+    /**
+     * Runs next part of the work until it is finished or deadline passes. Every call must make some progress even if
+     * the deadline has already passed.
+     *
+     * @param deadlineNanos {@link System#nanoTime()} after which the slice should return
+     * @return true if whole work is finished
+     */
+    boolean runSlice(long deadlineNanos);
+}
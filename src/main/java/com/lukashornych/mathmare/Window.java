@@ -29,15 +29,32 @@ public class Window {
     private int width;
     private int height;
 
+    private final boolean visible;
+    private final boolean vsync;
+
     /**
-     * Creates new window for game. The {@link #init()} must be called before using.
+     * Creates new visible window for game with vertical synchronization. The {@link #init()} must be called before using.
      *
      * @param width
      * @param height
      */
     public Window(int width, int height) {
+        this(width, height, true, true);
+    }
+
+    /**
+     * Creates new window for game. The {@link #init()} must be called before using.
+     *
+     * @param width
+     * @param height
+     * @param visible whether to show the window, hidden window can be still used for offscreen rendering
+     * @param vsync whether to synchronize buffer swaps with monitor refresh rate
+     */
+    public Window(int width, int height, boolean visible, boolean vsync) {
         this.width = width;
         this.height = height;
+        this.visible = visible;
+        this.vsync = vsync;
     }
 
     /**
@@ -57,26 +74,17 @@ public class Window {
         if (id == NULL)
             throw new RuntimeException("Failed to create the GLFW window");
 
-        try (MemoryStack stack = stackPush()) {
-            IntBuffer pWidth = stack.mallocInt(1);
-            IntBuffer pHeight = stack.mallocInt(1);
-
-            glfwGetWindowSize(id, pWidth, pHeight);
-
-            GLFWVidMode vidmode = glfwGetVideoMode(glfwGetPrimaryMonitor());
-
-            glfwSetWindowPos(
-                    id,
-                    (vidmode.width() - pWidth.get(0)) / 2,
-                    (vidmode.height() - pHeight.get(0)) / 2
-            );
+        if (visible) {
+            centerWindow();
         }
         glfwSetWindowSizeCallback(id, this::windowSizeCallback);
 
         glfwMakeContextCurrent(id);
-        glfwSwapInterval(1);
+        glfwSwapInterval(vsync ? 1 : 0);
 
-        glfwShowWindow(id);
+        if (visible) {
+            glfwShowWindow(id);
+        }
 
         GL.createCapabilities();
     }
@@ -92,6 +100,26 @@ public class Window {
         glfwSetErrorCallback(null).free();
     }
 
+    /**
+     * Places window to center of primary monitor
+     */
+    private void centerWindow() {
+        try (MemoryStack stack = stackPush()) {
+            IntBuffer pWidth = stack.mallocInt(1);
+            IntBuffer pHeight = stack.mallocInt(1);
+
+            glfwGetWindowSize(id, pWidth, pHeight);
+
+            GLFWVidMode vidmode = glfwGetVideoMode(glfwGetPrimaryMonitor());
+
+            glfwSetWindowPos(
+                    id,
+                    (vidmode.width() - pWidth.get(0)) / 2,
+                    (vidmode.height() - pHeight.get(0)) / 2
+            );
+        }
+    }
+
     /**
      * GLFW callback for capturing window size changes
      *
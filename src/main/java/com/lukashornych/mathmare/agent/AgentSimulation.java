@@ -0,0 +1,345 @@
+package com.lukashornych.mathmare.agent;
+
+import com.lukashornych.mathmare.physics.PhysicsQuery;
+import com.lukashornych.mathmare.physics.PhysicsWorld;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import org.joml.Vector2f;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Simulation of many autonomous agents (e.g. roaming NPCs or bots) wandering through {@link PhysicsWorld}. Agents
+ * collide with objects of the world (they slide along walls like player) and with each other.
+ *
+ * World is partitioned into square regions of several tiles. Every tick agents are sorted by region they are in and
+ * regions are updated in parallel by tasks of fork/join pool, each task updates range of regions. Agents are stored in
+ * struct-of-arrays layout and every tick reads only state of previous tick and writes state of next tick into
+ * separate arrays, so tasks never write shared state and result of tick does not depend on number of threads nor
+ * on order in which tasks run. Every agent has its own random generator for the same reason.
+ *
+ * Agents collide with other agents of their own and neighbouring regions, region is much larger than distance agent
+ * can move in single tick, so no collision is missed. Physics world must not be modified during tick.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class AgentSimulation {
+
+    /**
+     * Agent is box of same size as player
+     */
+    public static final float AGENT_HALF_SIZE = 0.5f;
+    /**
+     * Speed of agents in world units per second
+     */
+    public static final float AGENT_SPEED = 4f;
+    /**
+     * Maximum random change of heading in radians per second
+     */
+    private static final float WANDER_TURN_RATE = 2f;
+
+    /**
+     * Size of region in physics cells (maze tiles)
+     */
+    private static final int REGION_SIZE = 4;
+    /**
+     * Tasks with fewer agents than this are not split further
+     */
+    private static final int AGENTS_PER_TASK = 512;
+
+    private static final int INITIAL_CAPACITY = 256;
+
+    private final PhysicsWorld physicsWorld;
+    private final ForkJoinPool pool;
+    /**
+     * Working memory of each thread updating agents
+     */
+    private final ThreadLocal<Worker> workers;
+
+    private final int regionsX;
+    private final int regionsY;
+    private final float regionWorldSize;
+
+    @Getter @ToString.Include
+    private int agentsCount = 0;
+    @Getter @ToString.Include
+    private long ticksCount = 0;
+
+    private float[] positionsX = new float[INITIAL_CAPACITY];
+    private float[] positionsY = new float[INITIAL_CAPACITY];
+    private float[] headings = new float[INITIAL_CAPACITY];
+    private long[] randomStates = new long[INITIAL_CAPACITY];
+
+    private float[] nextPositionsX = new float[INITIAL_CAPACITY];
+    private float[] nextPositionsY = new float[INITIAL_CAPACITY];
+    private float[] nextHeadings = new float[INITIAL_CAPACITY];
+
+    /**
+     * Agents sorted by region, agents of region r are at indexes from regionStarts[r] to regionStarts[r + 1]
+     */
+    private int[] regionAgents = new int[INITIAL_CAPACITY];
+    private final int[] regionStarts;
+
+
+    /**
+     * Creates simulation updated by common fork/join pool
+     *
+     * @param physicsWorld world in which agents move
+     */
+    public AgentSimulation(@NonNull PhysicsWorld physicsWorld) {
+        this(physicsWorld, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Creates simulation without agents
+     *
+     * @param physicsWorld world in which agents move
+     * @param pool pool updating regions in parallel
+     */
+    public AgentSimulation(@NonNull PhysicsWorld physicsWorld, @NonNull ForkJoinPool pool) {
+        this.physicsWorld = physicsWorld;
+        this.pool = pool;
+        this.workers = ThreadLocal.withInitial(() -> new Worker(physicsWorld.createQuery()));
+
+        this.regionsX = (physicsWorld.getWidthInCells() + REGION_SIZE - 1) / REGION_SIZE;
+        this.regionsY = (physicsWorld.getHeightInCells() + REGION_SIZE - 1) / REGION_SIZE;
+        this.regionWorldSize = REGION_SIZE * PhysicsWorld.CELL_SIZE;
+        this.regionStarts = new int[regionsX * regionsY + 1];
+    }
+
+    /**
+     * Adds new agent. Must not be called during tick.
+     *
+     * @param x x of agent center in physics coordinates
+     * @param y y of agent center in physics coordinates
+     * @param heading direction of movement in radians
+     * @param seed seed of agent's random decisions
+     * @return index of new agent
+     */
+    public int addAgent(float x, float y, float heading, long seed) {
+        if (agentsCount == positionsX.length) {
+            grow();
+        }
+
+        final int agent = agentsCount++;
+        positionsX[agent] = x;
+        positionsY[agent] = y;
+        headings[agent] = heading;
+        // xorshift state must not be zero
+        randomStates[agent] = (seed != 0) ? seed : 0x9e3779b97f4a7c15L;
+        return agent;
+    }
+
+    /**
+     * Updates all agents by single step, blocks until all regions are updated
+     *
+     * @param dt length of step in seconds
+     */
+    public void tick(float dt) {
+        sortByRegion();
+        pool.invoke(new RegionsUpdate(0, regionsX * regionsY, dt));
+
+        float[] swapped = positionsX;
+        positionsX = nextPositionsX;
+        nextPositionsX = swapped;
+        swapped = positionsY;
+        positionsY = nextPositionsY;
+        nextPositionsY = swapped;
+        swapped = headings;
+        headings = nextHeadings;
+        nextHeadings = swapped;
+
+        ticksCount++;
+    }
+
+    public float getPositionX(int agent) {
+        return positionsX[agent];
+    }
+
+    public float getPositionY(int agent) {
+        return positionsY[agent];
+    }
+
+    public float getHeading(int agent) {
+        return headings[agent];
+    }
+
+
+    /**
+     * Sorts agents by their region (counting sort) into {@link #regionAgents}
+     */
+    private void sortByRegion() {
+        Arrays.fill(regionStarts, 0);
+        for (int agent = 0; agent < agentsCount; agent++) {
+            regionStarts[toRegion(positionsX[agent], positionsY[agent]) + 1]++;
+        }
+        for (int region = 0; region < regionStarts.length - 1; region++) {
+            regionStarts[region + 1] += regionStarts[region];
+        }
+
+        // region starts are shifted by one during placing and end up in place
+        for (int agent = 0; agent < agentsCount; agent++) {
+            final int region = toRegion(positionsX[agent], positionsY[agent]);
+            regionAgents[regionStarts[region]++] = agent;
+        }
+        System.arraycopy(regionStarts, 0, regionStarts, 1, regionStarts.length - 1);
+        regionStarts[0] = 0;
+    }
+
+    /**
+     * Updates all agents of single region
+     */
+    private void updateRegion(int region, float dt, Worker worker) {
+        for (int i = regionStarts[region]; i < regionStarts[region + 1]; i++) {
+            updateAgent(regionAgents[i], region, dt, worker);
+        }
+    }
+
+    /**
+     * Moves single agent, reads only current state and writes only next state of the agent
+     */
+    private void updateAgent(int agent, int region, float dt, Worker worker) {
+        final float x = positionsX[agent];
+        final float y = positionsY[agent];
+        float heading = headings[agent] + nextRandom(agent) * WANDER_TURN_RATE * dt;
+
+        final float desiredX = (float) Math.cos(heading) * AGENT_SPEED * dt;
+        final float desiredY = (float) Math.sin(heading) * AGENT_SPEED * dt;
+        final Vector2f movement = worker.movement.set(desiredX, desiredY);
+        worker.query.sweepAndSlide(
+                x - AGENT_HALF_SIZE, x + AGENT_HALF_SIZE,
+                y - AGENT_HALF_SIZE, y + AGENT_HALF_SIZE,
+                movement
+        );
+        if ((movement.x != desiredX) || (movement.y != desiredY)) {
+            // blocked by wall, turn to random side
+            heading += (float) (Math.PI / 2) * Math.signum(nextRandom(agent)) + nextRandom(agent);
+        }
+
+        float nextX = x + movement.x;
+        float nextY = y + movement.y;
+        if (isBlockedByOtherAgent(agent, region, x, y, nextX, nextY)) {
+            nextX = x;
+            nextY = y;
+            heading += (float) Math.PI;
+        }
+
+        nextPositionsX[agent] = nextX;
+        nextPositionsY[agent] = nextY;
+        nextHeadings[agent] = heading;
+    }
+
+    /**
+     * Checks if agent moved to next position would overlap other agent and get closer to it. Agents which already
+     * overlap may move away from each other.
+     */
+    private boolean isBlockedByOtherAgent(int agent, int region, float x, float y, float nextX, float nextY) {
+        final int regionX = region / regionsY;
+        final int regionY = region % regionsY;
+        final float minDistance = 2 * AGENT_HALF_SIZE;
+
+        for (int neighbourX = Math.max(0, regionX - 1); neighbourX <= Math.min(regionsX - 1, regionX + 1); neighbourX++) {
+            for (int neighbourY = Math.max(0, regionY - 1); neighbourY <= Math.min(regionsY - 1, regionY + 1); neighbourY++) {
+                final int neighbourRegion = neighbourX * regionsY + neighbourY;
+                for (int i = regionStarts[neighbourRegion]; i < regionStarts[neighbourRegion + 1]; i++) {
+                    final int other = regionAgents[i];
+                    if (other == agent) {
+                        continue;
+                    }
+
+                    final float otherX = positionsX[other];
+                    final float otherY = positionsY[other];
+                    final float nextDistanceX = Math.abs(nextX - otherX);
+                    final float nextDistanceY = Math.abs(nextY - otherY);
+                    if ((nextDistanceX < minDistance) && (nextDistanceY < minDistance)
+                            && (Math.max(nextDistanceX, nextDistanceY) < Math.max(Math.abs(x - otherX), Math.abs(y - otherY)))) {
+                        return true;
+                    }
+                }
+            }
+        }
+        return false;
+    }
+
+    private int toRegion(float x, float y) {
+        final int regionX = Math.max(0, Math.min(regionsX - 1, (int) Math.floor(x / regionWorldSize)));
+        final int regionY = Math.max(0, Math.min(regionsY - 1, (int) Math.floor(y / regionWorldSize)));
+        return regionX * regionsY + regionY;
+    }
+
+    /**
+     * Advances xorshift generator of agent
+     *
+     * @return random number from -1 to 1
+     */
+    private float nextRandom(int agent) {
+        long state = randomStates[agent];
+        state ^= state << 13;
+        state ^= state >>> 7;
+        state ^= state << 17;
+        randomStates[agent] = state;
+        return (state >>> 40) / (float) (1 << 23) - 1f;
+    }
+
+    private void grow() {
+        final int newCapacity = positionsX.length * 2;
+        positionsX = Arrays.copyOf(positionsX, newCapacity);
+        positionsY = Arrays.copyOf(positionsY, newCapacity);
+        headings = Arrays.copyOf(headings, newCapacity);
+        randomStates = Arrays.copyOf(randomStates, newCapacity);
+        nextPositionsX = new float[newCapacity];
+        nextPositionsY = new float[newCapacity];
+        nextHeadings = new float[newCapacity];
+        regionAgents = new int[newCapacity];
+    }
+
+
+    /**
+     * Working memory of single thread
+     */
+    private static class Worker {
+        private final PhysicsQuery query;
+        private final Vector2f movement = new Vector2f();
+
+        private Worker(PhysicsQuery query) {
+            this.query = query;
+        }
+    }
+
+    /**
+     * Updates range of regions, splits itself while the range holds many agents
+     */
+    private class RegionsUpdate extends RecursiveAction {
+
+        private static final long serialVersionUID = 1L;
+
+        private final int fromRegion;
+        private final int toRegion;
+        private final float dt;
+
+        private RegionsUpdate(int fromRegion, int toRegion, float dt) {
+            this.fromRegion = fromRegion;
+            this.toRegion = toRegion;
+            this.dt = dt;
+        }
+
+        @Override
+        protected void compute() {
+            final int agentsInRange = regionStarts[toRegion] - regionStarts[fromRegion];
+            if ((toRegion - fromRegion <= 1) || (agentsInRange <= AGENTS_PER_TASK)) {
+                final Worker worker = workers.get();
+                for (int region = fromRegion; region < toRegion; region++) {
+                    updateRegion(region, dt, worker);
+                }
+                return;
+            }
+
+            final int middleRegion = (fromRegion + toRegion) >>> 1;
+            invokeAll(new RegionsUpdate(fromRegion, middleRegion, dt), new RegionsUpdate(middleRegion, toRegion, dt));
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.lukashornych.mathmare.benchmark;
+
+import com.lukashornych.mathmare.agent.AgentSimulation;
+import com.lukashornych.mathmare.maze.MazeGenerator;
+import com.lukashornych.mathmare.maze.MazeTile;
+import com.lukashornych.mathmare.physics.PhysicsWorld;
+import com.lukashornych.mathmare.world.WorldBuilder;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Benchmark of {@link AgentSimulation} scaling. Builds large dungeon composed of several fixed-seed mazes, spawns
+ * agents at random floor tiles and simulates them by fork/join pools of growing parallelism (1, 2, 4, ... up to
+ * number of available processors). Reports how many agents are updated per millisecond by each parallelism and
+ * checks that all of them end in identical state.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString
+public class AgentBenchmark {
+
+    /**
+     * Dungeon consists of MAZES_PER_SIDE x MAZES_PER_SIDE generated mazes
+     */
+    private static final int MAZES_PER_SIDE = 8;
+    private static final float SIMULATION_STEP = 1f / 60f;
+
+    private final int agentsCount;
+    private final int ticksCount;
+    private final int warmupTicksCount;
+    private final long seed;
+
+    /**
+     * Creates new benchmark
+     *
+     * @param agentsCount number of simulated agents
+     * @param ticksCount number of measured ticks for each parallelism
+     * @param seed seed of dungeon and agents
+     */
+    public AgentBenchmark(int agentsCount, int ticksCount, long seed) {
+        if (agentsCount <= 0) {
+            throw new IllegalArgumentException("Agents count must be positive.");
+        }
+        if (ticksCount <= 0) {
+            throw new IllegalArgumentException("Ticks count must be positive.");
+        }
+
+        this.agentsCount = agentsCount;
+        this.ticksCount = ticksCount;
+        this.warmupTicksCount = Math.max(1, ticksCount / 5);
+        this.seed = seed;
+    }
+
+    /**
+     * Runs the benchmark on calling thread and pools created for it
+     *
+     * @return measured results
+     */
+    public AgentBenchmarkResult run() {
+        final MazeTile[][] dungeon = buildDungeon();
+        final PhysicsWorld physicsWorld = new WorldBuilder().buildMesh(dungeon).getPhysicsWorld();
+
+        final List<Integer> parallelisms = new ArrayList<>();
+        final int processors = Runtime.getRuntime().availableProcessors();
+        for (int parallelism = 1; parallelism < processors; parallelism *= 2) {
+            parallelisms.add(parallelism);
+        }
+        parallelisms.add(processors);
+
+        final double[] agentsPerMillisecond = new double[parallelisms.size()];
+        boolean deterministic = true;
+        long firstChecksum = 0;
+        for (int i = 0; i < parallelisms.size(); i++) {
+            final ForkJoinPool pool = new ForkJoinPool(parallelisms.get(i));
+            try {
+                final AgentSimulation simulation = spawnAgents(dungeon, physicsWorld, pool);
+                for (int tick = 0; tick < warmupTicksCount; tick++) {
+                    simulation.tick(SIMULATION_STEP);
+                }
+
+                final long start = System.nanoTime();
+                for (int tick = 0; tick < ticksCount; tick++) {
+                    simulation.tick(SIMULATION_STEP);
+                }
+                final long elapsedNanos = System.nanoTime() - start;
+                agentsPerMillisecond[i] = agentsCount * (double) ticksCount / (elapsedNanos / 1_000_000.0);
+
+                final long checksum = computeChecksum(simulation);
+                if (i == 0) {
+                    firstChecksum = checksum;
+                } else if (checksum != firstChecksum) {
+                    deterministic = false;
+                }
+            } finally {
+                pool.shutdown();
+            }
+        }
+
+        return new AgentBenchmarkResult(
+                seed,
+                agentsCount,
+                ticksCount,
+                dungeon.length,
+                parallelisms.stream().mapToInt(Integer::intValue).toArray(),
+                agentsPerMillisecond,
+                deterministic
+        );
+    }
+
+
+    /**
+     * Places generated mazes next to each other
+     */
+    private MazeTile[][] buildDungeon() {
+        final Random random = new Random(seed);
+        final int mazeSize = MazeGenerator.MAZE_SIZE;
+        final MazeTile[][] dungeon = new MazeTile[mazeSize * MAZES_PER_SIDE][mazeSize * MAZES_PER_SIDE];
+
+        for (int mazeX = 0; mazeX < MAZES_PER_SIDE; mazeX++) {
+            for (int mazeY = 0; mazeY < MAZES_PER_SIDE; mazeY++) {
+                final MazeTile[][] maze = MazeGenerator.generateMaze(random.nextLong()).getMaze();
+                for (int x = 0; x < mazeSize; x++) {
+                    System.arraycopy(maze[x], 0, dungeon[mazeX * mazeSize + x], mazeY * mazeSize, mazeSize);
+                }
+            }
+        }
+        return dungeon;
+    }
+
+    /**
+     * Spawns agents at centers of random walkable tiles, every simulation gets same agents
+     */
+    private AgentSimulation spawnAgents(MazeTile[][] dungeon, PhysicsWorld physicsWorld, ForkJoinPool pool) {
+        final Random random = new Random(seed);
+        final AgentSimulation simulation = new AgentSimulation(physicsWorld, pool);
+
+        while (simulation.getAgentsCount() < agentsCount) {
+            final int x = random.nextInt(dungeon.length);
+            final int y = random.nextInt(dungeon[0].length);
+            if ((dungeon[x][y] != MazeTile.ROOM) && (dungeon[x][y] != MazeTile.CORRIDOR)) {
+                continue;
+            }
+
+            simulation.addAgent(
+                    (x + 0.5f) * PhysicsWorld.CELL_SIZE,
+                    (y + 0.5f) * PhysicsWorld.CELL_SIZE,
+                    (float) (random.nextFloat() * 2 * Math.PI),
+                    random.nextLong()
+            );
+        }
+        return simulation;
+    }
+
+    private long computeChecksum(AgentSimulation simulation) {
+        long checksum = 0;
+        for (int agent = 0; agent < simulation.getAgentsCount(); agent++) {
+            checksum = checksum * 31 + Float.floatToIntBits(simulation.getPositionX(agent));
+            checksum = checksum * 31 + Float.floatToIntBits(simulation.getPositionY(agent));
+        }
+        return checksum;
+    }
+}
@@ -0,0 +1,51 @@
+package com.lukashornych.mathmare.benchmark;
+
+import lombok.Data;
+
+/**
+ * Measured results of single {@link AgentBenchmark} run.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@Data
+public class AgentBenchmarkResult {
+
+    private final long seed;
+    private final int agentsCount;
+    private final int ticksCount;
+    /**
+     * Width and height of dungeon in tiles
+     */
+    private final int dungeonSize;
+
+    /**
+     * Measured parallelisms of fork/join pool
+     */
+    private final int[] parallelisms;
+    /**
+     * Agents updated per millisecond by each parallelism
+     */
+    private final double[] agentsPerMillisecond;
+    /**
+     * Whether all parallelisms ended in identical state
+     */
+    private final boolean deterministic;
+
+    /**
+     * @return human readable report of results
+     */
+    public String toReport() {
+        final StringBuilder report = new StringBuilder(String.format(
+                "seed: %d, agents: %d, ticks: %d, dungeon: %dx%d tiles%n",
+                seed, agentsCount, ticksCount, dungeonSize, dungeonSize
+        ));
+        for (int i = 0; i < parallelisms.length; i++) {
+            report.append(String.format(
+                    "parallelism %d: %.0f agents per ms (speedup %.2fx)%n",
+                    parallelisms[i], agentsPerMillisecond[i], agentsPerMillisecond[i] / agentsPerMillisecond[0]
+            ));
+        }
+        report.append(String.format("identical results for all parallelisms: %b", deterministic));
+        return report.toString();
+    }
+}
@@ -0,0 +1,60 @@
+package com.lukashornych.mathmare.benchmark;
+
+import com.lukashornych.mathmare.world.WorldRenderMode;
+import lombok.Data;
+
+/**
+ * Measured results of single {@link RenderBenchmark} run.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@Data
+public class BenchmarkResult {
+
+    /**
+     * OpenGL renderer used for the run, e.g. llvmpipe for Mesa software rendering
+     */
+    private final String renderer;
+    private final long seed;
+    private final WorldRenderMode worldRenderMode;
+    /**
+     * Size of GPU buffers holding static world geometry
+     */
+    private final long staticGeometryBytes;
+    private final int framesCount;
+
+    private final long frameTimeP50Nanos;
+    private final long frameTimeP90Nanos;
+    private final long frameTimeP99Nanos;
+    private final long frameTimeMaxNanos;
+    /**
+     * Pacing jitter over last frames, see {@link com.lukashornych.mathmare.diagnostics.FrameProfiler}
+     */
+    private final long frameJitterP99Nanos;
+    private final double averageFps;
+
+    private final double averageDrawCalls;
+    private final double averageTriangles;
+    private final double averageAvoidedGLCalls;
+
+    /**
+     * @return human readable report of results
+     */
+    public String toReport() {
+        return String.format(
+                "renderer: %s%n" +
+                "seed: %d, frames: %d%n" +
+                "world render mode: %s, static geometry: %.2f MiB%n" +
+                "frame time p50: %.3f ms, p90: %.3f ms, p99: %.3f ms, max: %.3f ms, pacing jitter p99: %.3f ms%n" +
+                "average fps: %.1f%n" +
+                "draw calls per frame: %.1f, triangles per frame: %.0f, avoided GL calls per frame: %.1f",
+                renderer,
+                seed, framesCount,
+                worldRenderMode, staticGeometryBytes / (1024.0 * 1024.0),
+                frameTimeP50Nanos / 1_000_000.0, frameTimeP90Nanos / 1_000_000.0,
+                frameTimeP99Nanos / 1_000_000.0, frameTimeMaxNanos / 1_000_000.0, frameJitterP99Nanos / 1_000_000.0,
+                averageFps,
+                averageDrawCalls, averageTriangles, averageAvoidedGLCalls
+        );
+    }
+}
@@ -0,0 +1,162 @@
+package com.lukashornych.mathmare.benchmark;
+
+import com.lukashornych.mathmare.Camera;
+import com.lukashornych.mathmare.maze.MazeDescriptor;
+import com.lukashornych.mathmare.maze.MazeTile;
+import lombok.NonNull;
+import lombok.ToString;
+import org.joml.Math;
+import org.joml.Vector2i;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.lukashornych.mathmare.world.World.TILE_WORLD_SIZE;
+
+/**
+ * Scripted camera path through maze. The path leads from starting position to exit portal by shortest way through
+ * all walkable tiles (doors included) and back, so same maze always produces same path.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class CameraPath {
+
+    private static final float CAMERA_HEIGHT = 2.5f;
+
+    /**
+     * World x and z coordinates of path waypoints
+     */
+    private final float[] waypointsX;
+    private final float[] waypointsZ;
+
+    /**
+     * Total length of path in world units
+     */
+    @ToString.Include
+    private final float length;
+
+    private CameraPath(float[] waypointsX, float[] waypointsZ) {
+        this.waypointsX = waypointsX;
+        this.waypointsZ = waypointsZ;
+
+        float length = 0;
+        for (int i = 1; i < waypointsX.length; i++) {
+            length += Math.sqrt(segmentLengthSquared(i));
+        }
+        this.length = length;
+    }
+
+    /**
+     * Creates path from maze starting position to its exit portal and back
+     *
+     * @param mazeDescriptor maze to create path through
+     * @return new path
+     */
+    public static CameraPath throughMaze(@NonNull MazeDescriptor mazeDescriptor) {
+        final MazeTile[][] maze = mazeDescriptor.getMaze();
+        final Vector2i start = mazeDescriptor.getStartingPosition();
+
+        // breadth-first search from start to the exit portal
+        final int[][] previousTile = new int[maze.length][maze.length];
+        for (int[] column : previousTile) {
+            Arrays.fill(column, -1);
+        }
+        final ArrayDeque<Integer> queue = new ArrayDeque<>();
+        queue.add(start.x * maze.length + start.y);
+        previousTile[start.x][start.y] = start.x * maze.length + start.y;
+
+        int exitTile = -1;
+        while (!queue.isEmpty()) {
+            final int tile = queue.poll();
+            final int x = tile / maze.length;
+            final int y = tile % maze.length;
+            if (maze[x][y] == MazeTile.EXIT_PORTAL) {
+                exitTile = tile;
+                break;
+            }
+
+            final int[][] neighbours = { { x - 1, y }, { x + 1, y }, { x, y - 1 }, { x, y + 1 } };
+            for (int[] neighbour : neighbours) {
+                final int nx = neighbour[0];
+                final int ny = neighbour[1];
+                if ((nx < 0) || (ny < 0) || (nx >= maze.length) || (ny >= maze.length)) {
+                    continue;
+                }
+                if ((maze[nx][ny] == MazeTile.VOID) || (previousTile[nx][ny] != -1)) {
+                    continue;
+                }
+                previousTile[nx][ny] = tile;
+                queue.add(nx * maze.length + ny);
+            }
+        }
+
+        final List<Integer> tiles = new ArrayList<>();
+        if (exitTile == -1) {
+            tiles.add(start.x * maze.length + start.y);
+        } else {
+            for (int tile = exitTile; ; tile = previousTile[tile / maze.length][tile % maze.length]) {
+                tiles.add(tile);
+                if (tile == start.x * maze.length + start.y) {
+                    break;
+                }
+            }
+            Collections.reverse(tiles);
+        }
+
+        // there and back again so the path can be repeated seamlessly
+        final int waypointsCount = tiles.size() * 2 - 1;
+        final float[] waypointsX = new float[waypointsCount];
+        final float[] waypointsZ = new float[waypointsCount];
+        for (int i = 0; i < waypointsCount; i++) {
+            final int tile = (i < tiles.size()) ? tiles.get(i) : tiles.get(waypointsCount - 1 - i);
+            waypointsX[i] = (tile / maze.length) * TILE_WORLD_SIZE + TILE_WORLD_SIZE / 2;
+            waypointsZ[i] = -(tile % maze.length) * TILE_WORLD_SIZE - TILE_WORLD_SIZE / 2;
+        }
+
+        return new CameraPath(waypointsX, waypointsZ);
+    }
+
+    /**
+     * Places camera to position at given distance along the path and rotates it in direction of travel. Path is
+     * repeated if distance exceeds its length.
+     *
+     * @param camera camera to move
+     * @param distance travelled distance from beginning of path
+     */
+    public void apply(@NonNull Camera camera, float distance) {
+        if (length == 0) {
+            camera.getPosition().set(waypointsX[0], CAMERA_HEIGHT, waypointsZ[0]);
+            return;
+        }
+
+        float remaining = distance % length;
+        for (int i = 1; i < waypointsX.length; i++) {
+            final float segmentLength = Math.sqrt(segmentLengthSquared(i));
+            if ((remaining > segmentLength) && (i < waypointsX.length - 1)) {
+                remaining -= segmentLength;
+                continue;
+            }
+
+            final float directionX = (waypointsX[i] - waypointsX[i - 1]) / segmentLength;
+            final float directionZ = (waypointsZ[i] - waypointsZ[i - 1]) / segmentLength;
+            camera.getPosition().set(
+                    waypointsX[i - 1] + directionX * remaining,
+                    CAMERA_HEIGHT,
+                    waypointsZ[i - 1] + directionZ * remaining
+            );
+            // camera looks against its z axis
+            camera.setAzimuth(Math.atan2(-directionX, -directionZ));
+            return;
+        }
+    }
+
+    private float segmentLengthSquared(int segmentEnd) {
+        final float dx = waypointsX[segmentEnd] - waypointsX[segmentEnd - 1];
+        final float dz = waypointsZ[segmentEnd] - waypointsZ[segmentEnd - 1];
+        return dx * dx + dz * dz;
+    }
+}
@@ -0,0 +1,174 @@
+package com.lukashornych.mathmare.benchmark;
+
+import com.lukashornych.mathmare.physics.BoundingBox;
+import com.lukashornych.mathmare.physics.ColliderBatchQueries;
+import com.lukashornych.mathmare.physics.ColliderBatchQuery;
+import com.lukashornych.mathmare.physics.ColliderStore;
+import lombok.ToString;
+
+import java.util.Random;
+
+/**
+ * Micro benchmark of batch collision queries ({@link ColliderBatchQuery}). Random colliders and query boxes are
+ * generated from seed, every query tests box against batch of random candidate colliders by overlap and sweep query.
+ * Scalar implementation is always measured, vectorized one only if it is available (see {@link ColliderBatchQueries}).
+ * Results of both implementations are compared, so the benchmark also checks that they agree.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString
+public class CollisionBenchmark {
+
+    private static final float AREA_SIZE = 500f;
+    private static final float MAX_COLLIDER_SIZE = 25f;
+    private static final float QUERY_BOX_SIZE = 1f;
+    private static final float MAX_MOVEMENT = 5f;
+    /**
+     * Different prepared queries, cycled through during measurement
+     */
+    private static final int PREPARED_QUERIES_COUNT = 1024;
+
+    private final int collidersCount;
+    private final int batchSize;
+    private final int queriesCount;
+    private final int warmupQueriesCount;
+    private final long seed;
+
+    private ColliderStore store;
+    private int[][] batches;
+    private float[][] queries;
+
+    /**
+     * Creates new benchmark
+     *
+     * @param collidersCount number of stored colliders
+     * @param batchSize number of candidates tested by each query
+     * @param queriesCount number of measured queries of each kind and implementation
+     * @param seed seed of colliders and queries
+     */
+    public CollisionBenchmark(int collidersCount, int batchSize, int queriesCount, long seed) {
+        if (collidersCount <= 0) {
+            throw new IllegalArgumentException("Colliders count must be positive.");
+        }
+        if ((batchSize <= 0) || (batchSize > collidersCount)) {
+            throw new IllegalArgumentException("Batch size must be positive and not larger than colliders count.");
+        }
+        if (queriesCount <= 0) {
+            throw new IllegalArgumentException("Queries count must be positive.");
+        }
+
+        this.collidersCount = collidersCount;
+        this.batchSize = batchSize;
+        this.queriesCount = queriesCount;
+        this.warmupQueriesCount = queriesCount / 2;
+        this.seed = seed;
+    }
+
+    /**
+     * Runs the benchmark on calling thread
+     *
+     * @return measured results
+     */
+    public CollisionBenchmarkResult run() {
+        prepare();
+
+        final ColliderBatchQuery scalar = ColliderBatchQueries.scalar();
+        final ColliderBatchQuery vector = ColliderBatchQueries.vector();
+
+        final long scalarOverlapChecksum = measureOverlap(scalar, warmupQueriesCount)[1];
+        final long[] scalarOverlap = measureOverlap(scalar, queriesCount);
+        final double scalarSweepChecksum = measureSweep(scalar, warmupQueriesCount)[1];
+        final double[] scalarSweep = measureSweep(scalar, queriesCount);
+
+        double vectorOverlapQueriesPerSecond = Double.NaN;
+        double vectorSweepQueriesPerSecond = Double.NaN;
+        boolean resultsMatch = true;
+        if (vector != null) {
+            resultsMatch = measureOverlap(vector, warmupQueriesCount)[1] == scalarOverlapChecksum
+                    && measureSweep(vector, warmupQueriesCount)[1] == scalarSweepChecksum;
+            vectorOverlapQueriesPerSecond = toQueriesPerSecond(measureOverlap(vector, queriesCount)[0]);
+            vectorSweepQueriesPerSecond = toQueriesPerSecond(measureSweep(vector, queriesCount)[0]);
+        }
+
+        return new CollisionBenchmarkResult(
+                seed,
+                collidersCount,
+                batchSize,
+                queriesCount,
+                toQueriesPerSecond(scalarOverlap[0]),
+                toQueriesPerSecond(scalarSweep[0]),
+                vector != null,
+                vectorOverlapQueriesPerSecond,
+                vectorSweepQueriesPerSecond,
+                resultsMatch
+        );
+    }
+
+
+    private void prepare() {
+        final Random random = new Random(seed);
+
+        store = new ColliderStore();
+        for (int i = 0; i < collidersCount; i++) {
+            final float minX = random.nextFloat() * AREA_SIZE;
+            final float minY = random.nextFloat() * AREA_SIZE;
+            store.add(new BoundingBox(
+                    minX,
+                    minX + random.nextFloat() * MAX_COLLIDER_SIZE,
+                    minY,
+                    minY + random.nextFloat() * MAX_COLLIDER_SIZE
+            ));
+        }
+
+        batches = new int[PREPARED_QUERIES_COUNT][batchSize];
+        queries = new float[PREPARED_QUERIES_COUNT][];
+        for (int query = 0; query < PREPARED_QUERIES_COUNT; query++) {
+            for (int i = 0; i < batchSize; i++) {
+                batches[query][i] = random.nextInt(collidersCount);
+            }
+
+            final float minX = random.nextFloat() * AREA_SIZE;
+            final float minY = random.nextFloat() * AREA_SIZE;
+            queries[query] = new float[] {
+                    minX,
+                    minX + QUERY_BOX_SIZE,
+                    minY,
+                    minY + QUERY_BOX_SIZE,
+                    (random.nextFloat() * 2f - 1f) * MAX_MOVEMENT,
+                    (random.nextFloat() * 2f - 1f) * MAX_MOVEMENT
+            };
+        }
+    }
+
+    /**
+     * @return elapsed nanoseconds and total number of found overlaps
+     */
+    private long[] measureOverlap(ColliderBatchQuery batchQuery, int count) {
+        long overlaps = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            final int query = i % PREPARED_QUERIES_COUNT;
+            final float[] box = queries[query];
+            overlaps += batchQuery.overlap(store, batches[query], batchSize, box[0], box[1], box[2], box[3], null);
+        }
+        return new long[] { System.nanoTime() - start, overlaps };
+    }
+
+    /**
+     * @return elapsed nanoseconds and sum of all hit times
+     */
+    private double[] measureSweep(ColliderBatchQuery batchQuery, int count) {
+        double hitTimes = 0;
+        final long start = System.nanoTime();
+        for (int i = 0; i < count; i++) {
+            final int query = i % PREPARED_QUERIES_COUNT;
+            final float[] box = queries[query];
+            hitTimes += batchQuery.sweep(store, batches[query], batchSize, box[0], box[1], box[2], box[3], box[4], box[5]);
+        }
+        return new double[] { System.nanoTime() - start, hitTimes };
+    }
+
+    private double toQueriesPerSecond(double elapsedNanos) {
+        return queriesCount / (elapsedNanos / 1_000_000_000.0);
+    }
+}
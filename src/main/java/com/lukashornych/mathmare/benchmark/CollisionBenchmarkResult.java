@@ -0,0 +1,53 @@
+package com.lukashornych.mathmare.benchmark;
+
+import lombok.Data;
+
+/**
+ * Measured results of single {@link CollisionBenchmark} run.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@Data
+public class CollisionBenchmarkResult {
+
+    private final long seed;
+    private final int collidersCount;
+    private final int batchSize;
+    private final int queriesCount;
+
+    private final double scalarOverlapQueriesPerSecond;
+    private final double scalarSweepQueriesPerSecond;
+
+    /**
+     * Whether vectorized implementation was available and measured
+     */
+    private final boolean vectorMeasured;
+    private final double vectorOverlapQueriesPerSecond;
+    private final double vectorSweepQueriesPerSecond;
+    /**
+     * Whether vectorized implementation found same results as scalar one
+     */
+    private final boolean resultsMatch;
+
+    /**
+     * @return human readable report of results
+     */
+    public String toReport() {
+        final String vectorReport = vectorMeasured
+                ? String.format(
+                        "vector overlap queries per second: %.0f, sweep queries per second: %.0f%n" +
+                        "vector results match scalar: %b",
+                        vectorOverlapQueriesPerSecond, vectorSweepQueriesPerSecond, resultsMatch
+                )
+                : "vector queries not available (requires vector-api build profile and --add-modules jdk.incubator.vector)";
+
+        return String.format(
+                "seed: %d, colliders: %d, batch size: %d, queries: %d%n" +
+                "scalar overlap queries per second: %.0f, sweep queries per second: %.0f%n" +
+                "%s",
+                seed, collidersCount, batchSize, queriesCount,
+                scalarOverlapQueriesPerSecond, scalarSweepQueriesPerSecond,
+                vectorReport
+        );
+    }
+}
@@ -0,0 +1,175 @@
+package com.lukashornych.mathmare.benchmark;
+
+import com.lukashornych.mathmare.Camera;
+import com.lukashornych.mathmare.FramePacingMode;
+import com.lukashornych.mathmare.GameConfiguration;
+import com.lukashornych.mathmare.GameManager;
+import com.lukashornych.mathmare.maze.MazeDescriptor;
+import com.lukashornych.mathmare.maze.MazeGenerator;
+import com.lukashornych.mathmare.render.GLStateCache;
+import com.lukashornych.mathmare.render.OffscreenFramebuffer;
+import com.lukashornych.mathmare.world.World;
+import com.lukashornych.mathmare.world.WorldBuilder;
+import com.lukashornych.mathmare.world.WorldRenderMode;
+import com.lukashornych.mathmare.world.WorldRenderer;
+import lombok.NonNull;
+import lombok.ToString;
+import org.joml.Vector3f;
+
+import java.util.Arrays;
+
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Reproducible rendering benchmark. Renders fixed-seed maze into offscreen framebuffer of hidden window while camera
+ * flies scripted path through the maze, and measures frame times, draw calls and triangles.
+ *
+ * The benchmark needs only OpenGL context, so it can run on machine without GPU using Mesa software rendering, e.g.
+ * {@code xvfb-run -a env LIBGL_ALWAYS_SOFTWARE=1 java -jar mathmare.jar --benchmark}.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString
+public class RenderBenchmark {
+
+    /**
+     * Speed of camera in world units per frame, frames are not timed so that every run renders same images
+     */
+    private static final float CAMERA_STEP = 0.2f;
+
+    private final int framesCount;
+    private final int warmupFramesCount;
+    private final long seed;
+    private final WorldRenderMode worldRenderMode;
+
+    /**
+     * Creates new benchmark
+     *
+     * @param framesCount number of measured frames
+     * @param warmupFramesCount number of frames rendered before measuring
+     * @param seed seed of rendered maze
+     * @param worldRenderMode how should be world geometry rendered
+     */
+    public RenderBenchmark(int framesCount, int warmupFramesCount, long seed, @NonNull WorldRenderMode worldRenderMode) {
+        if (framesCount <= 0) {
+            throw new IllegalArgumentException("Frames count must be positive.");
+        }
+
+        this.framesCount = framesCount;
+        this.warmupFramesCount = warmupFramesCount;
+        this.seed = seed;
+        this.worldRenderMode = worldRenderMode;
+    }
+
+    /**
+     * Runs the benchmark. Creates and destroys its own hidden window.
+     *
+     * @return measured results
+     */
+    public BenchmarkResult run() {
+        final GameConfiguration configuration = new GameConfiguration();
+        configuration.setWindowVisible(false);
+        configuration.setFramePacingMode(FramePacingMode.UNCAPPED);
+        configuration.setWorldRenderMode(worldRenderMode);
+
+        final GameManager gameManager = new GameManager(configuration);
+        gameManager.init();
+        try {
+            return runInContext(gameManager);
+        } finally {
+            gameManager.destroy();
+        }
+    }
+
+    private BenchmarkResult runInContext(GameManager gameManager) {
+        final GLStateCache glStateCache = gameManager.getGlStateCache();
+
+        final MazeDescriptor mazeDescriptor = MazeGenerator.generateMaze(seed);
+        final World world = new WorldBuilder(worldRenderMode).buildWorld(mazeDescriptor.getMaze());
+        final Camera camera = new Camera(gameManager, new Vector3f(), 0f, 0f);
+        final WorldRenderer worldRenderer = new WorldRenderer(
+                world,
+                camera,
+                glStateCache,
+                gameManager.getConfiguration(),
+                gameManager.getFrameProfiler()
+        );
+        final CameraPath cameraPath = CameraPath.throughMaze(mazeDescriptor);
+
+        final OffscreenFramebuffer framebuffer = new OffscreenFramebuffer(
+                gameManager.getWindow().getWidth(),
+                gameManager.getWindow().getHeight()
+        );
+        framebuffer.init();
+        framebuffer.bind();
+        glViewport(0, 0, framebuffer.getWidth(), framebuffer.getHeight());
+
+        glEnable(GL_DEPTH_TEST);
+        glEnable(GL_TEXTURE_2D);
+        glEnable(GL_CULL_FACE);
+        glCullFace(GL_BACK);
+
+        final long[] frameTimes = new long[framesCount];
+        long drawCalls = 0;
+        long triangles = 0;
+        long avoidedGLCalls = 0;
+
+        for (int frame = 0; frame < warmupFramesCount + framesCount; frame++) {
+            gameManager.getFrameProfiler().beginFrame();
+            glStateCache.invalidate();
+            glStateCache.resetStatistics();
+            final long frameStart = System.nanoTime();
+
+            cameraPath.apply(camera, frame * CAMERA_STEP);
+
+            glClearColor(0.0f, 0.0f, 0.0f, 0.0f);
+            glClear(GL_COLOR_BUFFER_BIT | GL_DEPTH_BUFFER_BIT);
+            worldRenderer.renderWorld();
+            // wait for rendering so that frame time includes GPU (or software rasterizer) work
+            glFinish();
+
+            final long frameTime = System.nanoTime() - frameStart;
+            gameManager.getFrameProfiler().endFrame();
+
+            if (frame >= warmupFramesCount) {
+                frameTimes[frame - warmupFramesCount] = frameTime;
+                drawCalls += worldRenderer.getDrawCallsCount();
+                triangles += worldRenderer.getRenderedTrianglesCount();
+                avoidedGLCalls += glStateCache.getAvoidedCalls();
+            }
+        }
+
+        framebuffer.unbind();
+        framebuffer.destroy();
+        worldRenderer.destroy();
+
+        final long totalFrameTime = Arrays.stream(frameTimes).sum();
+        Arrays.sort(frameTimes);
+        return new BenchmarkResult(
+                glGetString(GL_RENDERER),
+                seed,
+                worldRenderMode,
+                world.getStaticGeometryBytes(),
+                framesCount,
+                percentile(frameTimes, 50),
+                percentile(frameTimes, 90),
+                percentile(frameTimes, 99),
+                frameTimes[framesCount - 1],
+                gameManager.getFrameProfiler().getFrameJitterStatistics().getPercentileNanos(99),
+                framesCount / (totalFrameTime / 1_000_000_000.0),
+                drawCalls / (double) framesCount,
+                triangles / (double) framesCount,
+                avoidedGLCalls / (double) framesCount
+        );
+    }
+
+    /**
+     * @param sortedValues sorted values
+     * @param percentile percentile between 0 and 100
+     * @return nearest-rank percentile of values
+     */
+    private long percentile(long[] sortedValues, double percentile) {
+        final int index = (int) Math.ceil(percentile / 100.0 * sortedValues.length) - 1;
+        return sortedValues[Math.max(0, Math.min(index, sortedValues.length - 1))];
+    }
+}
@@ -0,0 +1,137 @@
+package com.lukashornych.mathmare.benchmark;
+
+import com.lukashornych.mathmare.GameConfiguration;
+import com.lukashornych.mathmare.HeadlessGameManager;
+import com.lukashornych.mathmare.SyntheticInputManager;
+import com.lukashornych.mathmare.scene.DungeonScene;
+import com.lukashornych.mathmare.scene.EscapedScene;
+import com.lukashornych.mathmare.scene.Scene;
+import lombok.ToString;
+
+import java.util.Random;
+
+import static org.lwjgl.glfw.GLFW.*;
+
+/**
+ * Headless simulation benchmark. Plays automated sessions of dungeon by {@link HeadlessGameManager} without window
+ * and OpenGL and measures how many simulation steps per second can be simulated. Automated player walks forward,
+ * randomly turns, opens doors and enters random results of expressions. Same seed always plays same sessions.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString
+public class SimulationBenchmark {
+
+    private static final double TURN_PROBABILITY = 0.1;
+    private static final double INTERACT_PROBABILITY = 0.05;
+    private static final double ENTER_DIGIT_PROBABILITY = 0.1;
+    private static final double CONFIRM_PROBABILITY = 0.05;
+
+    private final int sessionsCount;
+    private final int maxStepsPerSession;
+    private final long seed;
+
+    /**
+     * Creates new benchmark
+     *
+     * @param sessionsCount number of played sessions
+     * @param maxStepsPerSession number of steps after which session is ended if player neither escaped nor run out
+     *                           of time
+     * @param seed seed of played mazes and automated player's decisions
+     */
+    public SimulationBenchmark(int sessionsCount, int maxStepsPerSession, long seed) {
+        if (sessionsCount <= 0) {
+            throw new IllegalArgumentException("Sessions count must be positive.");
+        }
+        if (maxStepsPerSession <= 0) {
+            throw new IllegalArgumentException("Max steps per session must be positive.");
+        }
+
+        this.sessionsCount = sessionsCount;
+        this.maxStepsPerSession = maxStepsPerSession;
+        this.seed = seed;
+    }
+
+    /**
+     * Runs all sessions on calling thread
+     *
+     * @return measured results
+     */
+    public SimulationBenchmarkResult run() {
+        final Random random = new Random(seed);
+
+        long totalSteps = 0;
+        int escapedSessions = 0;
+        int unfinishedSessions = 0;
+
+        final long start = System.nanoTime();
+        for (int session = 0; session < sessionsCount; session++) {
+            final GameConfiguration configuration = new GameConfiguration();
+            configuration.setSessionSeed(random.nextLong());
+            final HeadlessGameManager gameManager = new HeadlessGameManager(configuration);
+            gameManager.init();
+
+            final Scene endScene = playSession(gameManager, random);
+            if (endScene instanceof EscapedScene) {
+                escapedSessions++;
+            } else if (endScene instanceof DungeonScene) {
+                unfinishedSessions++;
+            }
+            totalSteps += gameManager.getStepsCount();
+
+            gameManager.destroy();
+        }
+        final long elapsedNanos = System.nanoTime() - start;
+
+        return new SimulationBenchmarkResult(
+                seed,
+                sessionsCount,
+                totalSteps,
+                escapedSessions,
+                sessionsCount - escapedSessions - unfinishedSessions,
+                unfinishedSessions,
+                totalSteps / (elapsedNanos / 1_000_000_000.0),
+                elapsedNanos / (double) sessionsCount
+        );
+    }
+
+    /**
+     * Plays single session from main menu until the dungeon is left or steps limit is reached
+     *
+     * @return scene in which session ended
+     */
+    private Scene playSession(HeadlessGameManager gameManager, Random random) {
+        final SyntheticInputManager input = gameManager.getInputManager();
+
+        input.pressKey(GLFW_KEY_ENTER);
+        gameManager.step();
+        input.releaseKey(GLFW_KEY_ENTER);
+
+        for (int step = 0; step < maxStepsPerSession; step++) {
+            if (!(gameManager.getSceneManager().getCurrentScene() instanceof DungeonScene)) {
+                break;
+            }
+
+            // keys are pressed only for single step, except of walking
+            input.releaseKey(GLFW_KEY_F);
+            input.releaseKey(GLFW_KEY_ENTER);
+            input.pressKey(GLFW_KEY_W);
+            if (random.nextDouble() < TURN_PROBABILITY) {
+                input.moveCursor(random.nextGaussian() * 50.0, 0.0);
+            }
+            if (random.nextDouble() < INTERACT_PROBABILITY) {
+                input.pressKey(GLFW_KEY_F);
+            }
+            if (random.nextDouble() < ENTER_DIGIT_PROBABILITY) {
+                input.typeChar('0' + random.nextInt(10));
+            }
+            if (random.nextDouble() < CONFIRM_PROBABILITY) {
+                input.pressKey(GLFW_KEY_ENTER);
+            }
+
+            gameManager.step();
+        }
+
+        return gameManager.getSceneManager().getCurrentScene();
+    }
+}
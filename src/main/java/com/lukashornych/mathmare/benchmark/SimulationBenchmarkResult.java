@@ -0,0 +1,40 @@
+package com.lukashornych.mathmare.benchmark;
+
+import lombok.Data;
+
+/**
+ * Measured results of single {@link SimulationBenchmark} run.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@Data
+public class SimulationBenchmarkResult {
+
+    private final long seed;
+    private final int sessionsCount;
+    private final long totalSteps;
+
+    private final int escapedSessions;
+    private final int gameOverSessions;
+    /**
+     * Sessions ended by steps limit
+     */
+    private final int unfinishedSessions;
+
+    private final double stepsPerSecond;
+    private final double averageSessionNanos;
+
+    /**
+     * @return human readable report of results
+     */
+    public String toReport() {
+        return String.format(
+                "seed: %d, sessions: %d, steps: %d%n" +
+                "escaped: %d, game over: %d, unfinished: %d%n" +
+                "simulation steps per second: %.0f, average session time: %.3f ms",
+                seed, sessionsCount, totalSteps,
+                escapedSessions, gameOverSessions, unfinishedSessions,
+                stepsPerSecond, averageSessionNanos / 1_000_000.0
+        );
+    }
+}
@@ -0,0 +1,28 @@
+package com.lukashornych.mathmare.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of player solving single expression, from showing the expression to submitting result.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@Name("mathmare.ExpressionSolving")
+@Label("Expression Solving")
+@Category({ "Mathmare", "Gameplay" })
+@Description("Player solving single expression")
+public class ExpressionSolvingEvent extends Event {
+
+    @Label("Expression")
+    public String expression;
+
+    @Label("Entered Result")
+    public int enteredResult;
+
+    @Label("Correct")
+    public boolean correct;
+}
@@ -0,0 +1,22 @@
+package com.lukashornych.mathmare.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of single rendered frame, from start of frame to end of buffer swap (and pacing wait).
+ *
+ * @author Lukáš Hornych 2021
+ */
+@Name("mathmare.Frame")
+@Label("Frame")
+@Category({ "Mathmare", "Rendering" })
+@Description("Single rendered frame")
+public class FrameEvent extends Event {
+
+    @Label("Frame Number")
+    public long frameNumber;
+}
@@ -0,0 +1,232 @@
+package com.lukashornych.mathmare.diagnostics;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import org.lwjgl.opengl.GL;
+import org.lwjgl.opengl.GLCapabilities;
+
+import static org.lwjgl.opengl.GL11.GL_FALSE;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL33.GL_TIME_ELAPSED;
+import static org.lwjgl.opengl.GL33.glGetQueryObjectui64;
+
+/**
+ * Measures how long individual {@link FrameStage}s of each frame take on CPU and on GPU and keeps rolling statistics
+ * of these measurements.
+ *
+ * CPU time is measured by nanosecond clock. GPU time is measured by OpenGL timer queries, results of which are read
+ * back several frames later only if they are already available, so the measurement never stalls the pipeline.
+ * Measured stages must not overlap.
+ *
+ * Durations of all frames are also recorded to {@link FrameTimeHistogram} to show rare stutters over whole session.
+ *
+ * Frame pacing is measured as interval between starts of consecutive frames, and pacing jitter as absolute difference
+ * between consecutive intervals.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class FrameProfiler {
+
+    private static final int STATISTICS_WINDOW_SIZE = 120;
+    /**
+     * How many frames old timer queries are read back
+     */
+    private static final int QUERY_FRAMES_IN_FLIGHT = 4;
+
+    private static final FrameStage[] STAGES = FrameStage.values();
+
+    private final StageStatistics[] cpuStatistics = new StageStatistics[STAGES.length];
+    private final StageStatistics[] gpuStatistics = new StageStatistics[STAGES.length];
+    /**
+     * Statistics of whole frame duration on CPU
+     */
+    @Getter @ToString.Include
+    private final StageStatistics frameStatistics = new StageStatistics(STATISTICS_WINDOW_SIZE);
+    /**
+     * Histogram of whole frame durations since start
+     */
+    @Getter
+    private final FrameTimeHistogram frameTimeHistogram = new FrameTimeHistogram();
+    /**
+     * Statistics of intervals between starts of consecutive frames
+     */
+    @Getter @ToString.Include
+    private final StageStatistics frameIntervalStatistics = new StageStatistics(STATISTICS_WINDOW_SIZE);
+    /**
+     * Statistics of differences between consecutive frame intervals
+     */
+    @Getter @ToString.Include
+    private final StageStatistics frameJitterStatistics = new StageStatistics(STATISTICS_WINDOW_SIZE);
+
+    private final long[] cpuStageStarts = new long[STAGES.length];
+    private final long[] cpuStageNanos = new long[STAGES.length];
+    private final boolean[] cpuStageMeasured = new boolean[STAGES.length];
+    private long frameStart;
+    private long previousFrameInterval = -1;
+
+    /**
+     * Whether GPU timer queries are supported and enabled
+     */
+    @Getter @ToString.Include
+    private boolean gpuTimingEnabled = false;
+    private int[][] queries;
+    private boolean[][] queriesIssued;
+    private int querySlot = 0;
+
+    public FrameProfiler() {
+        for (int i = 0; i < STAGES.length; i++) {
+            cpuStatistics[i] = new StageStatistics(STATISTICS_WINDOW_SIZE);
+            gpuStatistics[i] = new StageStatistics(STATISTICS_WINDOW_SIZE);
+        }
+    }
+
+    /**
+     * Initializes GPU timing. Must be called from thread owning OpenGL context if GPU timing is requested.
+     *
+     * @param gpuTimingRequested whether to measure stages also on GPU if supported
+     */
+    public void init(boolean gpuTimingRequested) {
+        if (!gpuTimingRequested) {
+            return;
+        }
+
+        final GLCapabilities capabilities = GL.getCapabilities();
+        gpuTimingEnabled = capabilities.OpenGL33 || capabilities.GL_ARB_timer_query;
+        if (!gpuTimingEnabled) {
+            return;
+        }
+
+        queries = new int[QUERY_FRAMES_IN_FLIGHT][STAGES.length];
+        queriesIssued = new boolean[QUERY_FRAMES_IN_FLIGHT][STAGES.length];
+        for (int slot = 0; slot < QUERY_FRAMES_IN_FLIGHT; slot++) {
+            glGenQueries(queries[slot]);
+        }
+    }
+
+    /**
+     * Releases timer queries
+     */
+    public void destroy() {
+        if (!gpuTimingEnabled) {
+            return;
+        }
+
+        for (int slot = 0; slot < QUERY_FRAMES_IN_FLIGHT; slot++) {
+            glDeleteQueries(queries[slot]);
+        }
+        gpuTimingEnabled = false;
+    }
+
+    /**
+     * Starts measuring new frame and collects GPU results of old frames
+     */
+    public void beginFrame() {
+        if (gpuTimingEnabled) {
+            querySlot = (querySlot + 1) % QUERY_FRAMES_IN_FLIGHT;
+            collectGpuResults(querySlot);
+        }
+
+        for (int i = 0; i < STAGES.length; i++) {
+            cpuStageNanos[i] = 0;
+            cpuStageMeasured[i] = false;
+        }
+
+        final long previousFrameStart = frameStart;
+        frameStart = System.nanoTime();
+        if (previousFrameStart != 0) {
+            final long frameInterval = frameStart - previousFrameStart;
+            frameIntervalStatistics.addSample(frameInterval);
+            if (previousFrameInterval >= 0) {
+                frameJitterStatistics.addSample(Math.abs(frameInterval - previousFrameInterval));
+            }
+            previousFrameInterval = frameInterval;
+        }
+    }
+
+    /**
+     * Finishes measuring current frame
+     */
+    public void endFrame() {
+        for (int i = 0; i < STAGES.length; i++) {
+            if (cpuStageMeasured[i]) {
+                cpuStatistics[i].addSample(cpuStageNanos[i]);
+            }
+        }
+        final long frameNanos = System.nanoTime() - frameStart;
+        frameStatistics.addSample(frameNanos);
+        frameTimeHistogram.record(frameNanos);
+    }
+
+    /**
+     * Starts measuring stage. Stage may be measured several times in single frame, CPU times are summed up but only
+     * first occurrence is measured on GPU.
+     *
+     * @param stage stage to measure
+     */
+    public void beginStage(@NonNull FrameStage stage) {
+        final int stageIndex = stage.ordinal();
+
+        if (gpuTimingEnabled && stage.isGpuMeasured() && !queriesIssued[querySlot][stageIndex]) {
+            glBeginQuery(GL_TIME_ELAPSED, queries[querySlot][stageIndex]);
+        }
+
+        cpuStageStarts[stageIndex] = System.nanoTime();
+    }
+
+    /**
+     * Finishes measuring stage previously started by {@link #beginStage(FrameStage)}
+     *
+     * @param stage stage to finish
+     */
+    public void endStage(@NonNull FrameStage stage) {
+        final int stageIndex = stage.ordinal();
+
+        cpuStageNanos[stageIndex] += System.nanoTime() - cpuStageStarts[stageIndex];
+        cpuStageMeasured[stageIndex] = true;
+
+        if (gpuTimingEnabled && stage.isGpuMeasured() && !queriesIssued[querySlot][stageIndex]) {
+            glEndQuery(GL_TIME_ELAPSED);
+            queriesIssued[querySlot][stageIndex] = true;
+        }
+    }
+
+    /**
+     * @param stage measured stage
+     * @return rolling statistics of CPU time of stage
+     */
+    public StageStatistics getCpuStatistics(@NonNull FrameStage stage) {
+        return cpuStatistics[stage.ordinal()];
+    }
+
+    /**
+     * @param stage measured stage
+     * @return rolling statistics of GPU time of stage, empty if GPU timing is not enabled
+     */
+    public StageStatistics getGpuStatistics(@NonNull FrameStage stage) {
+        return gpuStatistics[stage.ordinal()];
+    }
+
+
+    /**
+     * Reads results of timer queries issued in slot if they are available. Results not available yet are dropped
+     * rather than waited for.
+     *
+     * @param slot slot of queries to collect
+     */
+    private void collectGpuResults(int slot) {
+        for (int i = 0; i < STAGES.length; i++) {
+            if (!queriesIssued[slot][i]) {
+                continue;
+            }
+            queriesIssued[slot][i] = false;
+
+            final int query = queries[slot][i];
+            if (glGetQueryObjecti(query, GL_QUERY_RESULT_AVAILABLE) == GL_FALSE) {
+                continue;
+            }
+            gpuStatistics[i].addSample(glGetQueryObjectui64(query, GL_QUERY_RESULT));
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package com.lukashornych.mathmare.diagnostics;
+
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * Measured stage of single frame.
+ *
+ * @see FrameProfiler
+ * @author Lukáš Hornych 2021
+ */
+@RequiredArgsConstructor
+public enum FrameStage {
+    /**
+     * Scene update, i.e. input handling and simulation. Measured by separate profiler of simulation thread.
+     */
+    SIMULATION(false),
+    /**
+     * Time sliced upload of preloaded scenes to GPU
+     */
+    UPLOAD(true),
+    WALLS(true),
+    FLOOR(true),
+    DYNAMIC_OBJECTS(true),
+    UI(true),
+    SWAP(true),
+    /**
+     * Waiting of frame limiter for next frame
+     */
+    PACING(false);
+
+    /**
+     * Whether the stage issues GPU work and thus should be measured by GPU timer queries
+     */
+    @Getter
+    private final boolean gpuMeasured;
+}
@@ -0,0 +1,120 @@
+package com.lukashornych.mathmare.diagnostics;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Arrays;
+
+/**
+ * Histogram of frame times with bounded relative error, in the manner of HDR histogram. Values are stored in
+ * microseconds in buckets which are linear within each power of two, so every recorded value is kept with relative
+ * precision of at least 1/64 (about 1.6 %) regardless of its magnitude. Recording is constant time and does not
+ * allocate.
+ *
+ * Unlike {@link StageStatistics} the histogram keeps all values recorded since creation or last {@link #reset()},
+ * so it shows rare stutters (p99.9) over whole session.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class FrameTimeHistogram {
+
+    private static final long NANOS_PER_UNIT = 1_000;
+
+    /**
+     * Number of linear buckets of single power of two, values below twice of it are stored exactly
+     */
+    private static final int SUB_BUCKET_HALF_COUNT = 64;
+    private static final int SUB_BUCKET_HALF_BITS = 6;
+    private static final int SUB_BUCKET_COUNT = SUB_BUCKET_HALF_COUNT * 2;
+    /**
+     * Number of powers of two above exact range, covers values up to about 38 hours
+     */
+    private static final int MAX_SHIFT = 30;
+
+    private final long[] counts = new long[SUB_BUCKET_COUNT + MAX_SHIFT * SUB_BUCKET_HALF_COUNT];
+
+    @Getter @ToString.Include
+    private long totalCount = 0;
+    @Getter
+    private long maxNanos = 0;
+
+    /**
+     * Records single frame time
+     *
+     * @param nanos frame time in nanoseconds
+     */
+    public void record(long nanos) {
+        counts[indexOf(Math.max(nanos, 0) / NANOS_PER_UNIT)]++;
+        totalCount++;
+        maxNanos = Math.max(maxNanos, nanos);
+    }
+
+    /**
+     * @param percentile percentile between 0 and 100
+     * @return highest frame time equivalent to the percentile within histogram precision, 0 if nothing recorded
+     */
+    public long getValueAtPercentileNanos(double percentile) {
+        if (totalCount == 0) {
+            return 0;
+        }
+
+        final long targetCount = Math.max(1, (long) Math.ceil(percentile / 100.0 * totalCount));
+        long cumulativeCount = 0;
+        for (int i = 0; i < counts.length; i++) {
+            cumulativeCount += counts[i];
+            if (cumulativeCount >= targetCount) {
+                return Math.min(highestEquivalentValue(i) * NANOS_PER_UNIT, maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    /**
+     * Forgets all recorded values
+     */
+    public void reset() {
+        Arrays.fill(counts, 0);
+        totalCount = 0;
+        maxNanos = 0;
+    }
+
+    /**
+     * @return human readable summary of percentiles
+     */
+    @ToString.Include
+    public String toReport() {
+        return String.format(
+                "frames: %d, p50: %.3f ms, p99: %.3f ms, p99.9: %.3f ms, max: %.3f ms",
+                totalCount,
+                getValueAtPercentileNanos(50) / 1_000_000.0,
+                getValueAtPercentileNanos(99) / 1_000_000.0,
+                getValueAtPercentileNanos(99.9) / 1_000_000.0,
+                maxNanos / 1_000_000.0
+        );
+    }
+
+
+    private int indexOf(long value) {
+        if (value < SUB_BUCKET_COUNT) {
+            return (int) value;
+        }
+
+        final int shift = (63 - Long.numberOfLeadingZeros(value)) - SUB_BUCKET_HALF_BITS;
+        if (shift > MAX_SHIFT) {
+            return counts.length - 1;
+        }
+        final int subBucket = (int) (value >>> shift);
+        return SUB_BUCKET_COUNT + (shift - 1) * SUB_BUCKET_HALF_COUNT + (subBucket - SUB_BUCKET_HALF_COUNT);
+    }
+
+    private long highestEquivalentValue(int index) {
+        if (index < SUB_BUCKET_COUNT) {
+            return index;
+        }
+
+        final int shift = (index - SUB_BUCKET_COUNT) / SUB_BUCKET_HALF_COUNT + 1;
+        final long subBucket = (index - SUB_BUCKET_COUNT) % SUB_BUCKET_HALF_COUNT + SUB_BUCKET_HALF_COUNT;
+        return ((subBucket + 1) << shift) - 1;
+    }
+}
@@ -0,0 +1,25 @@
+package com.lukashornych.mathmare.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of generating maze recipe.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@Name("mathmare.MazeGeneration")
+@Label("Maze Generation")
+@Category({ "Mathmare", "World" })
+@Description("Generating random maze recipe")
+public class MazeGenerationEvent extends Event {
+
+    @Label("Maze Size")
+    public int mazeSize;
+
+    @Label("Rooms Count")
+    public int roomsCount;
+}
@@ -0,0 +1,25 @@
+package com.lukashornych.mathmare.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of switching scenes, i.e. destroying previous scene and initializing new one.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@Name("mathmare.SceneSwitch")
+@Label("Scene Switch")
+@Category({ "Mathmare", "Scenes" })
+@Description("Destroying previous scene and initializing new one")
+public class SceneSwitchEvent extends Event {
+
+    @Label("Previous Scene")
+    public String previousScene;
+
+    @Label("New Scene")
+    public String newScene;
+}
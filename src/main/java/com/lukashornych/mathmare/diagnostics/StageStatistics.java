@@ -0,0 +1,110 @@
+package com.lukashornych.mathmare.diagnostics;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Arrays;
+
+/**
+ * Rolling statistics of last measured durations of single frame stage.
+ *
+ * @see FrameProfiler
+ * @author Lukáš Hornych 2021
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class StageStatistics {
+
+    private final long[] samples;
+    private final long[] sortedSamples;
+    private int nextSample = 0;
+
+    /**
+     * Number of samples currently in window
+     */
+    @Getter @ToString.Include
+    private int samplesCount = 0;
+    /**
+     * Most recent sample in nanoseconds
+     */
+    @Getter @ToString.Include
+    private long lastNanos = 0;
+
+    /**
+     * Creates empty statistics
+     *
+     * @param windowSize how many last samples are kept
+     */
+    public StageStatistics(int windowSize) {
+        this.samples = new long[windowSize];
+        this.sortedSamples = new long[windowSize];
+    }
+
+    /**
+     * Adds new sample, oldest sample is discarded if window is full
+     *
+     * @param nanos measured duration
+     */
+    public void addSample(long nanos) {
+        samples[nextSample] = nanos;
+        nextSample = (nextSample + 1) % samples.length;
+        samplesCount = Math.min(samplesCount + 1, samples.length);
+        lastNanos = nanos;
+    }
+
+    /**
+     * @return average of samples in window in nanoseconds, 0 if no samples
+     */
+    @ToString.Include
+    public long getAverageNanos() {
+        if (samplesCount == 0) {
+            return 0;
+        }
+
+        long sum = 0;
+        for (int i = 0; i < samplesCount; i++) {
+            sum += samples[i];
+        }
+        return sum / samplesCount;
+    }
+
+    /**
+     * @return minimal sample in window in nanoseconds, 0 if no samples
+     */
+    public long getMinNanos() {
+        long min = samplesCount == 0 ? 0 : Long.MAX_VALUE;
+        for (int i = 0; i < samplesCount; i++) {
+            min = Math.min(min, samples[i]);
+        }
+        return min;
+    }
+
+    /**
+     * @return maximal sample in window in nanoseconds, 0 if no samples
+     */
+    @ToString.Include
+    public long getMaxNanos() {
+        long max = 0;
+        for (int i = 0; i < samplesCount; i++) {
+            max = Math.max(max, samples[i]);
+        }
+        return max;
+    }
+
+    /**
+     * Computes percentile of samples in window
+     *
+     * @param percentile percentile between 0 and 100
+     * @return percentile in nanoseconds, 0 if no samples
+     */
+    public long getPercentileNanos(double percentile) {
+        if (samplesCount == 0) {
+            return 0;
+        }
+
+        System.arraycopy(samples, 0, sortedSamples, 0, samplesCount);
+        Arrays.sort(sortedSamples, 0, samplesCount);
+
+        final int index = (int) Math.ceil(percentile / 100.0 * samplesCount) - 1;
+        return sortedSamples[Math.max(0, Math.min(index, samplesCount - 1))];
+    }
+}
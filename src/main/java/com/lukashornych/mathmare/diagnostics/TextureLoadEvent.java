@@ -0,0 +1,22 @@
+package com.lukashornych.mathmare.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of loading texture from file and uploading it to GPU.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@Name("mathmare.TextureLoad")
+@Label("Texture Load")
+@Category({ "Mathmare", "Rendering" })
+@Description("Loading texture from file and uploading it to GPU")
+public class TextureLoadEvent extends Event {
+
+    @Label("Path")
+    public String path;
+}
@@ -0,0 +1,33 @@
+package com.lukashornych.mathmare.diagnostics;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * JFR event of building world geometry and physics from maze recipe.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@Name("mathmare.WorldBuild")
+@Label("World Build")
+@Category({ "Mathmare", "World" })
+@Description("Building world geometry and physics from maze recipe")
+public class WorldBuildEvent extends Event {
+
+    @Label("Render Mode")
+    public String renderMode;
+
+    @Label("Chunks Count")
+    public int chunksCount;
+
+    @Label("Static Geometry Size")
+    @DataAmount
+    public long staticGeometryBytes;
+
+    @Label("Wall Colliders Count")
+    public int wallCollidersCount;
+}
@@ -1,5 +1,6 @@
 package com.lukashornych.mathmare.maze;
 
+import com.lukashornych.mathmare.diagnostics.MazeGenerationEvent;
 import org.joml.Vector2i;
 
 import java.util.Random;
@@ -23,13 +24,40 @@ public class MazeGenerator {
      * @return maze with additional metadata
      */
     public static MazeDescriptor generateMaze() {
+        return generateMaze(RANDOM);
+    }
+
+    /**
+     * Generates maze constructed of rooms and connections between them. Same seed always generates same maze.
+     *
+     * @param seed seed of random generator
+     * @return maze with additional metadata
+     */
+    public static MazeDescriptor generateMaze(long seed) {
+        return generateMaze(new Random(seed));
+    }
+
+    /**
+     * Generates maze constructed of rooms and connections between them
+     *
+     * @param random random generator to generate maze by
+     * @return maze with additional metadata
+     */
+    private static MazeDescriptor generateMaze(Random random) {
+        final MazeGenerationEvent event = new MazeGenerationEvent();
+        event.begin();
+
         final int[][] roomPlan = new int[ROOM_PLANE_SIZE][ROOM_PLANE_SIZE];
-        final int roomsCount = generateRoomPlan(roomPlan, ROOM_PLANE_SIZE / 2, ROOM_PLANE_SIZE / 2);
+        final int roomsCount = generateRoomPlan(random, roomPlan, ROOM_PLANE_SIZE / 2, ROOM_PLANE_SIZE / 2);
         placeExitPortal(roomPlan);
 
         final MazeTile[][] maze = new MazeTile[MAZE_SIZE][MAZE_SIZE];
         generateRooms(roomPlan, maze);
-        generateRoomConnections(maze);
+        generateRoomConnections(random, maze);
+
+        event.mazeSize = MAZE_SIZE;
+        event.roomsCount = roomsCount;
+        event.commit();
 
         return new MazeDescriptor(maze, new Vector2i(MAZE_SIZE / 2, MAZE_SIZE / 2), roomsCount);
     }
@@ -37,38 +65,39 @@ public class MazeGenerator {
     /**
      * Randomly generates room plan (where rooms will be logically placed in maze)
      *
+     * @param random random generator
      * @param roomPlan where the room plan will be generated to
      * @param x starting x in room plan
      * @param y starting y in room plan
      * @return number of rooms generated
      */
-    private static int generateRoomPlan(int[][] roomPlan, int x, int y) {
+    private static int generateRoomPlan(Random random, int[][] roomPlan, int x, int y) {
         if ((x < 0) || (y < 0) || (x > ROOM_PLANE_SIZE - 1) || (y > ROOM_PLANE_SIZE - 1) || (roomPlan[x][y] != 0)) {
             return 0;
         }
         roomPlan[x][y] = 1;
         int roomsCount = 1;
 
-        final byte directions = (byte) (RANDOM.nextInt(11) + 1);
+        final byte directions = (byte) (random.nextInt(11) + 1);
 
         final boolean canGoTop = ((directions & 0b1000) >> 3) == 1;
         if (canGoTop) {
-            roomsCount += generateRoomPlan(roomPlan, x, y - 1);
+            roomsCount += generateRoomPlan(random, roomPlan, x, y - 1);
         }
 
         final boolean canGoRight = ((directions & 0b0100) >> 2) == 1;
         if (canGoRight) {
-            roomsCount += generateRoomPlan(roomPlan, x + 1, y);
+            roomsCount += generateRoomPlan(random, roomPlan, x + 1, y);
         }
 
         final boolean canGoBottom = ((directions & 0b0010) >> 1) == 1;
         if (canGoBottom) {
-            roomsCount += generateRoomPlan(roomPlan, x, y + 1);
+            roomsCount += generateRoomPlan(random, roomPlan, x, y + 1);
         }
 
         final boolean canGoLeft = (directions & 0b0001) == 1;
         if (canGoLeft) {
-            roomsCount += generateRoomPlan(roomPlan, x - 1, y);
+            roomsCount += generateRoomPlan(random, roomPlan, x - 1, y);
         }
 
         return roomsCount;
@@ -136,9 +165,10 @@ public class MazeGenerator {
     /**
      * Generates connections (doors or corridors) between rooms in maze
      *
+     * @param random random generator
      * @param maze generated maze
      */
-    private static void generateRoomConnections(MazeTile[][] maze) {
+    private static void generateRoomConnections(Random random, MazeTile[][] maze) {
         for (int mazeX = 0; mazeX < MAZE_SIZE; mazeX += 2) {
             for (int mazeY = 0; mazeY < MAZE_SIZE; mazeY += 2) {
                 if ((mazeX == 0) || (mazeY == 0) || (mazeX == MAZE_SIZE - 1) || (mazeY == MAZE_SIZE - 1)) {
@@ -155,7 +185,7 @@ public class MazeGenerator {
                 final boolean topRoom = maze[mazeX][mazeY - 1].equals(MazeTile.ROOM);
                 final boolean bottomRoom = maze[mazeX][mazeY + 1].equals(MazeTile.ROOM);
                 if ((leftRoom && rightRoom) || (topRoom && bottomRoom)) {
-                    final boolean connectionIsDoor = RANDOM.nextInt(10) > 2;
+                    final boolean connectionIsDoor = random.nextInt(10) > 2;
                     if (connectionIsDoor) {
                         maze[mazeX][mazeY] = MazeTile.DOOR;
                         continue;
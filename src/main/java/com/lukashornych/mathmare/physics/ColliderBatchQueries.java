@@ -0,0 +1,52 @@
+package com.lukashornych.mathmare.physics;
+
+/**
+ * Provides implementations of {@link ColliderBatchQuery}.
+ *
+ * Vectorized implementation uses incubating Vector API, which is available only on JDK 16 and newer. It is compiled
+ * only by {@code vector-api} build profile and the JVM must be run with {@code --add-modules jdk.incubator.vector}, so
+ * it is loaded reflectively and scalar implementation is used whenever it cannot be loaded.
+ *
+ * @author Lukáš Hornych 2021
+ */
+public final class ColliderBatchQueries {
+
+    private static final String VECTOR_IMPLEMENTATION = "com.lukashornych.mathmare.physics.VectorColliderBatchQuery";
+
+    private static final ColliderBatchQuery SCALAR = new ScalarColliderBatchQuery();
+    private static final ColliderBatchQuery VECTOR = loadVector();
+
+    private ColliderBatchQueries() {
+    }
+
+    /**
+     * @return implementation working on every JVM
+     */
+    public static ColliderBatchQuery scalar() {
+        return SCALAR;
+    }
+
+    /**
+     * @return vectorized implementation or null if it is not available in this build or JVM
+     */
+    public static ColliderBatchQuery vector() {
+        return VECTOR;
+    }
+
+    /**
+     * @return fastest available implementation
+     */
+    public static ColliderBatchQuery best() {
+        return (VECTOR != null) ? VECTOR : SCALAR;
+    }
+
+
+    private static ColliderBatchQuery loadVector() {
+        try {
+            return (ColliderBatchQuery) Class.forName(VECTOR_IMPLEMENTATION).getDeclaredConstructor().newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // not compiled or jdk.incubator.vector module is not present
+            return null;
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package com.lukashornych.mathmare.physics;
+
+/**
+ * Tests box against batch of colliders of {@link ColliderStore}. Batch is given by array of slot indexes of
+ * candidate colliders, e.g. collected by broadphase. Removed and disabled colliders are never reported.
+ *
+ * Implementations are obtained by {@link ColliderBatchQueries}.
+ *
+ * @author Lukáš Hornych 2021
+ */
+public interface ColliderBatchQuery {
+
+    /**
+     * @return true if implementation tests several colliders at once by SIMD instructions
+     */
+    boolean isVectorized();
+
+    /**
+     * Finds candidate colliders overlapping (or touching) box
+     *
+     * @param store store of colliders
+     * @param candidates slot indexes of tested colliders
+     * @param candidatesCount number of tested candidates from start of the array
+     * @param minX min x of box
+     * @param maxX max x of box
+     * @param minY min y of box
+     * @param maxY max y of box
+     * @param result array for slot indexes of overlapping colliders (must be large enough for all candidates), or
+     *               null if they should be only counted
+     * @return number of overlapping colliders
+     */
+    int overlap(ColliderStore store, int[] candidates, int candidatesCount,
+                float minX, float maxX, float minY, float maxY,
+                int[] result);
+
+    /**
+     * Sweeps box along movement vector and finds when it first hits any candidate collider. Box hits collider when
+     * their interiors start to overlap, so box may slide along touched collider. Colliders which already overlap
+     * box at start of movement are ignored, so that box stuck in collider can get out.
+     *
+     * @param store store of colliders
+     * @param candidates slot indexes of tested colliders
+     * @param candidatesCount number of tested candidates from start of the array
+     * @param minX min x of box at start of movement
+     * @param maxX max x of box at start of movement
+     * @param minY min y of box at start of movement
+     * @param maxY max y of box at start of movement
+     * @param dx movement along x axis
+     * @param dy movement along y axis
+     * @return fraction of movement (from 0 to 1) at which box hits first collider, 1 if movement is free
+     */
+    float sweep(ColliderStore store, int[] candidates, int candidatesCount,
+                float minX, float maxX, float minY, float maxY,
+                float dx, float dy);
+}
@@ -0,0 +1,123 @@
+package com.lukashornych.mathmare.physics;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.Arrays;
+
+/**
+ * Struct-of-arrays storage of collider boxes. Bounds of all colliders are stored in parallel primitive arrays, so that
+ * batch queries ({@link ColliderBatchQuery}) read them sequentially or gather them by index without chasing pointers,
+ * which also allows to test several colliders at once by SIMD instructions.
+ *
+ * Every collider has stable slot index. Slots of removed colliders are reused by later added colliders.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class ColliderStore {
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    float[] minX = new float[INITIAL_CAPACITY];
+    float[] maxX = new float[INITIAL_CAPACITY];
+    float[] minY = new float[INITIAL_CAPACITY];
+    float[] maxY = new float[INITIAL_CAPACITY];
+    /**
+     * Bitset of enabled slots, removed and disabled colliders are never reported by queries
+     */
+    private long[] enabled = new long[INITIAL_CAPACITY / Long.SIZE];
+
+    /**
+     * Number of used slots, including slots of removed colliders
+     */
+    @Getter @ToString.Include
+    private int slotsCount = 0;
+    /**
+     * Number of stored colliders
+     */
+    @Getter @ToString.Include
+    private int collidersCount = 0;
+
+    private int[] freeSlots = new int[INITIAL_CAPACITY];
+    private int freeSlotsCount = 0;
+
+
+    /**
+     * Stores collider box
+     *
+     * @param box box of collider
+     * @return slot index of the collider
+     */
+    public int add(BoundingBox box) {
+        final int slot;
+        if (freeSlotsCount > 0) {
+            slot = freeSlots[--freeSlotsCount];
+        } else {
+            if (slotsCount == minX.length) {
+                grow();
+            }
+            slot = slotsCount++;
+        }
+
+        minX[slot] = box.getMinX();
+        maxX[slot] = box.getMaxX();
+        minY[slot] = box.getMinY();
+        maxY[slot] = box.getMaxY();
+        if (box.isEnabled()) {
+            enabled[slot >>> 6] |= 1L << slot;
+        } else {
+            enabled[slot >>> 6] &= ~(1L << slot);
+        }
+        collidersCount++;
+
+        return slot;
+    }
+
+    /**
+     * Removes collider, its slot may be reused by next added collider
+     *
+     * @param slot slot index of the collider
+     */
+    public void remove(int slot) {
+        enabled[slot >>> 6] &= ~(1L << slot);
+        if (freeSlotsCount == freeSlots.length) {
+            freeSlots = Arrays.copyOf(freeSlots, freeSlots.length * 2);
+        }
+        freeSlots[freeSlotsCount++] = slot;
+        collidersCount--;
+    }
+
+    /**
+     * @return true if collider in slot exists and is enabled
+     */
+    public boolean isEnabled(int slot) {
+        return (enabled[slot >>> 6] & (1L << slot)) != 0;
+    }
+
+    public float getMinX(int slot) {
+        return minX[slot];
+    }
+
+    public float getMaxX(int slot) {
+        return maxX[slot];
+    }
+
+    public float getMinY(int slot) {
+        return minY[slot];
+    }
+
+    public float getMaxY(int slot) {
+        return maxY[slot];
+    }
+
+
+    private void grow() {
+        final int newCapacity = minX.length * 2;
+        minX = Arrays.copyOf(minX, newCapacity);
+        maxX = Arrays.copyOf(maxX, newCapacity);
+        minY = Arrays.copyOf(minY, newCapacity);
+        maxY = Arrays.copyOf(maxY, newCapacity);
+        enabled = Arrays.copyOf(enabled, newCapacity / Long.SIZE);
+    }
+}
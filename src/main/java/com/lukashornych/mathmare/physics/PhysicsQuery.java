@@ -0,0 +1,144 @@
+package com.lukashornych.mathmare.physics;
+
+import lombok.ToString;
+import org.joml.Vector2f;
+
+import java.util.Arrays;
+
+/**
+ * Collision queries over {@link PhysicsWorld}. Query holds its own working memory, so every thread querying the world
+ * at once must use its own query object created by {@link PhysicsWorld#createQuery()}. The world must not be modified
+ * while it is being queried by several threads.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class PhysicsQuery {
+
+    /**
+     * Distance kept between moved box and object it hit, so that rounding errors never leave the box inside the
+     * object (which would let the box pass through it by next movement)
+     */
+    private static final float CONTACT_GAP = 0.001f;
+
+    private static final int INITIAL_CANDIDATES_CAPACITY = 32;
+
+    private final PhysicsWorld world;
+
+    /**
+     * Slots of objects of cells overlapped by currently queried box, objects overlapping several cells are present
+     * several times
+     */
+    private int[] candidates = new int[INITIAL_CANDIDATES_CAPACITY];
+
+    PhysicsQuery(PhysicsWorld world) {
+        this.world = world;
+    }
+
+    /**
+     * Checks if box overlaps (or touches) any enabled object of the world
+     *
+     * @param box box to check
+     * @return true if colliding
+     */
+    public boolean isColliding(BoundingBox box) {
+        return isColliding(box.getMinX(), box.getMaxX(), box.getMinY(), box.getMaxY());
+    }
+
+    /**
+     * Checks if box overlaps (or touches) any enabled object of the world
+     *
+     * @return true if colliding
+     */
+    public boolean isColliding(float minX, float maxX, float minY, float maxY) {
+        final int candidatesCount = gatherCandidates(minX, maxX, minY, maxY);
+        return world.batchQuery.overlap(world.colliders, candidates, candidatesCount, minX, maxX, minY, maxY, null) > 0;
+    }
+
+    /**
+     * Moves box by movement vector as far as possible without entering any enabled object. The box is swept
+     * continuously along its path, so it stops at first hit object regardless of movement length and cannot pass
+     * through thin objects even by very long movement (e.g. by long simulation step). Movement is resolved separately
+     * along x and then y axis, so when blocked along one axis the box still slides along the other one.
+     *
+     * @param box box at start of movement
+     * @param movement desired movement, replaced by allowed movement
+     * @return movement
+     */
+    public Vector2f sweepAndSlide(BoundingBox box, Vector2f movement) {
+        return sweepAndSlide(box.getMinX(), box.getMaxX(), box.getMinY(), box.getMaxY(), movement);
+    }
+
+    /**
+     * Moves box by movement vector as far as possible without entering any enabled object, see
+     * {@link #sweepAndSlide(BoundingBox, Vector2f)}
+     *
+     * @param movement desired movement, replaced by allowed movement
+     * @return movement
+     */
+    public Vector2f sweepAndSlide(float minX, float maxX, float minY, float maxY, Vector2f movement) {
+        final float allowedX = sweepAxis(minX, maxX, minY, maxY, movement.x, 0f);
+        final float allowedY = sweepAxis(minX + allowedX, maxX + allowedX, minY, maxY, 0f, movement.y);
+        return movement.set(allowedX, allowedY);
+    }
+
+
+    /**
+     * Sweeps box along single axis
+     *
+     * @return allowed movement along the axis
+     */
+    private float sweepAxis(float minX, float maxX, float minY, float maxY, float dx, float dy) {
+        final float delta = (dx != 0f) ? dx : dy;
+        if (delta == 0f) {
+            return 0f;
+        }
+
+        final int candidatesCount = gatherCandidates(
+                minX + Math.min(dx, 0f), maxX + Math.max(dx, 0f),
+                minY + Math.min(dy, 0f), maxY + Math.max(dy, 0f)
+        );
+        final float hitTime = world.batchQuery.sweep(
+                world.colliders, candidates, candidatesCount,
+                minX, maxX, minY, maxY,
+                dx, dy
+        );
+        if (hitTime >= 1f) {
+            return delta;
+        }
+
+        // stop right before hit object, never move backwards
+        final float allowed = Math.max(0f, Math.abs(delta) * hitTime - CONTACT_GAP);
+        return Math.copySign(allowed, delta);
+    }
+
+    /**
+     * Collects slots of objects of all cells overlapped by area into {@link #candidates}
+     *
+     * @return number of collected slots
+     */
+    private int gatherCandidates(float minX, float maxX, float minY, float maxY) {
+        final int minCellX = world.toCellX(minX);
+        final int maxCellX = world.toCellX(maxX);
+        final int minCellY = world.toCellY(minY);
+        final int maxCellY = world.toCellY(maxY);
+
+        int candidatesCount = 0;
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                final int cellIndex = cellX * world.heightInCells + cellY;
+                final int cellSize = world.cellSizes[cellIndex];
+                if (cellSize == 0) {
+                    continue;
+                }
+
+                if (candidatesCount + cellSize > candidates.length) {
+                    candidates = Arrays.copyOf(candidates, Math.max(candidates.length * 2, candidatesCount + cellSize));
+                }
+                System.arraycopy(world.cells[cellIndex], 0, candidates, candidatesCount, cellSize);
+                candidatesCount += cellSize;
+            }
+        }
+        return candidatesCount;
+    }
+}
@@ -1,17 +1,202 @@
 package com.lukashornych.mathmare.physics;
 
-import lombok.Data;
+import lombok.Getter;
+import lombok.ToString;
+import org.joml.Vector2f;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.IdentityHashMap;
+import java.util.Map;
 
 /**
  * Represents physics world to calculate collisions between objects
  *
+ * Objects are indexed by uniform grid with cells of size of single maze tile, each object is registered in all cells
+ * it overlaps. Collision query checks only objects of cells overlapped by queried box, so its cost depends only on
+ * size of the box and not on size of the world. Objects may be added and removed at any time. Objects outside of
+ * the grid are registered in nearest border cells, so they are still found, only less efficiently.
+ *
+ * Bounds of objects are kept in struct-of-arrays {@link ColliderStore} and cells hold only slot indexes of objects.
+ * Query gathers slot indexes from overlapped cells and tests them all at once by {@link ColliderBatchQuery}, which is
+ * vectorized if the JVM supports it. Queries are run by {@link PhysicsQuery}, several threads may query the world at
+ * once, each by its own query object.
+ *
  * @author Lukáš Hornych 2021
  */
-@Data
+@ToString(onlyExplicitlyIncluded = true)
 public class PhysicsWorld {
 
-    private final List<BoundingBox> objects = new ArrayList<>();
+    /**
+     * Size of grid cell in world units, same as size of maze tile
+     */
+    public static final float CELL_SIZE = 5f;
+
+    private static final int INITIAL_CELL_CAPACITY = 2;
+
+    @Getter @ToString.Include
+    private final int widthInCells;
+    @Getter @ToString.Include
+    final int heightInCells;
+
+    final ColliderStore colliders = new ColliderStore();
+    @Getter @ToString.Include
+    final ColliderBatchQuery batchQuery;
+    /**
+     * Slots of objects in {@link #colliders}
+     */
+    private final Map<BoundingBox, Integer> colliderSlots = new IdentityHashMap<>();
+
+    /**
+     * Slots of objects registered in each cell, indexed by x * heightInCells + y, created lazily
+     */
+    final int[][] cells;
+    final int[] cellSizes;
+
+    /**
+     * Query used by query methods of the world itself
+     */
+    private final PhysicsQuery query;
+
+    /**
+     * Creates empty world using fastest available batch query
+     *
+     * @param widthInCells width of grid in cells (i.e. maze tiles)
+     * @param heightInCells height of grid in cells (i.e. maze tiles)
+     */
+    public PhysicsWorld(int widthInCells, int heightInCells) {
+        this(widthInCells, heightInCells, ColliderBatchQueries.best());
+    }
+
+    /**
+     * Creates empty world
+     *
+     * @param widthInCells width of grid in cells (i.e. maze tiles)
+     * @param heightInCells height of grid in cells (i.e. maze tiles)
+     * @param batchQuery implementation of queries
+     */
+    public PhysicsWorld(int widthInCells, int heightInCells, ColliderBatchQuery batchQuery) {
+        if ((widthInCells <= 0) || (heightInCells <= 0)) {
+            throw new IllegalArgumentException("Physics world must have at least one cell.");
+        }
+        this.widthInCells = widthInCells;
+        this.heightInCells = heightInCells;
+        this.batchQuery = batchQuery;
+        this.cells = new int[widthInCells * heightInCells][];
+        this.cellSizes = new int[widthInCells * heightInCells];
+        this.query = new PhysicsQuery(this);
+    }
+
+    /**
+     * @return number of objects in the world
+     */
+    public int getObjectsCount() {
+        return colliders.getCollidersCount();
+    }
+
+    /**
+     * Adds new object to the world
+     *
+     * @param object bounding box of object
+     */
+    public void add(BoundingBox object) {
+        if (colliderSlots.containsKey(object)) {
+            return;
+        }
+        final int slot = colliders.add(object);
+        colliderSlots.put(object, slot);
+
+        final int minCellX = toCellX(object.getMinX());
+        final int maxCellX = toCellX(object.getMaxX());
+        final int minCellY = toCellY(object.getMinY());
+        final int maxCellY = toCellY(object.getMaxY());
+
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                final int cellIndex = cellX * heightInCells + cellY;
+                if (cells[cellIndex] == null) {
+                    cells[cellIndex] = new int[INITIAL_CELL_CAPACITY];
+                } else if (cellSizes[cellIndex] == cells[cellIndex].length) {
+                    cells[cellIndex] = Arrays.copyOf(cells[cellIndex], cellSizes[cellIndex] * 2);
+                }
+                cells[cellIndex][cellSizes[cellIndex]++] = slot;
+            }
+        }
+    }
+
+    /**
+     * Removes object from the world
+     *
+     * @param object bounding box of object previously added
+     * @return true if object was present in the world
+     */
+    public boolean remove(BoundingBox object) {
+        final Integer slot = colliderSlots.remove(object);
+        if (slot == null) {
+            return false;
+        }
+
+        final int minCellX = toCellX(object.getMinX());
+        final int maxCellX = toCellX(object.getMaxX());
+        final int minCellY = toCellY(object.getMinY());
+        final int maxCellY = toCellY(object.getMaxY());
+
+        for (int cellX = minCellX; cellX <= maxCellX; cellX++) {
+            for (int cellY = minCellY; cellY <= maxCellY; cellY++) {
+                final int cellIndex = cellX * heightInCells + cellY;
+                final int[] cell = cells[cellIndex];
+                for (int i = 0; i < cellSizes[cellIndex]; i++) {
+                    if (cell[i] == slot) {
+                        // order of slots in cell does not matter
+                        cell[i] = cell[--cellSizes[cellIndex]];
+                        break;
+                    }
+                }
+            }
+        }
+        colliders.remove(slot);
+
+        return true;
+    }
+
+    /**
+     * Checks if box overlaps (or touches) any enabled object of the world
+     *
+     * @param box box to check
+     * @return true if colliding
+     */
+    public boolean isColliding(BoundingBox box) {
+        return query.isColliding(box);
+    }
+
+    /**
+     * Moves box by movement vector as far as possible without entering any enabled object, see
+     * {@link PhysicsQuery#sweepAndSlide(BoundingBox, Vector2f)}
+     *
+     * @param box box at start of movement
+     * @param movement desired movement, replaced by allowed movement
+     * @return movement
+     */
+    public Vector2f sweepAndSlide(BoundingBox box, Vector2f movement) {
+        return query.sweepAndSlide(box, movement);
+    }
+
+    /**
+     * Creates query with its own working memory. Queries by different query objects may run concurrently on
+     * different threads, as long as the world is not modified meanwhile. Queries directly by world share single
+     * query object, so they must be run only by single thread.
+     *
+     * @return new query over this world
+     */
+    public PhysicsQuery createQuery() {
+        return new PhysicsQuery(this);
+    }
+
+
+    int toCellX(float x) {
+        return Math.max(0, Math.min(widthInCells - 1, (int) Math.floor(x / CELL_SIZE)));
+    }
+
+    int toCellY(float y) {
+        return Math.max(0, Math.min(heightInCells - 1, (int) Math.floor(y / CELL_SIZE)));
+    }
 }
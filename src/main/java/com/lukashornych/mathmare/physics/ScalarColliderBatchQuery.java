@@ -0,0 +1,110 @@
+package com.lukashornych.mathmare.physics;
+
+import lombok.ToString;
+
+/**
+ * Plain implementation of {@link ColliderBatchQuery} testing colliders one by one. Works on every JVM.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString
+public class ScalarColliderBatchQuery implements ColliderBatchQuery {
+
+    @Override
+    public boolean isVectorized() {
+        return false;
+    }
+
+    @Override
+    public int overlap(ColliderStore store, int[] candidates, int candidatesCount,
+                       float minX, float maxX, float minY, float maxY,
+                       int[] result) {
+        return overlapRange(store, candidates, 0, candidatesCount, minX, maxX, minY, maxY, result, 0);
+    }
+
+    @Override
+    public float sweep(ColliderStore store, int[] candidates, int candidatesCount,
+                       float minX, float maxX, float minY, float maxY,
+                       float dx, float dy) {
+        return sweepRange(store, candidates, 0, candidatesCount, minX, maxX, minY, maxY, dx, dy, 1f);
+    }
+
+
+    /**
+     * Overlap test of candidates from index {@code from} (inclusive) to {@code to} (exclusive), also used for
+     * remainders of vectorized batches
+     *
+     * @param overlapping number of overlapping colliders already stored in result
+     * @return total number of overlapping colliders
+     */
+    static int overlapRange(ColliderStore store, int[] candidates, int from, int to,
+                            float minX, float maxX, float minY, float maxY,
+                            int[] result, int overlapping) {
+        for (int i = from; i < to; i++) {
+            final int slot = candidates[i];
+            final boolean colliding = (store.minX[slot] <= maxX && store.maxX[slot] >= minX) &&
+                                      (store.minY[slot] <= maxY && store.maxY[slot] >= minY) &&
+                                      store.isEnabled(slot);
+            if (colliding) {
+                if (result != null) {
+                    result[overlapping] = slot;
+                }
+                overlapping++;
+            }
+        }
+        return overlapping;
+    }
+
+    /**
+     * Sweep test of candidates from index {@code from} (inclusive) to {@code to} (exclusive), also used for
+     * remainders of vectorized batches
+     *
+     * @param hitTime earliest hit time found so far
+     * @return earliest hit time
+     */
+    static float sweepRange(ColliderStore store, int[] candidates, int from, int to,
+                            float minX, float maxX, float minY, float maxY,
+                            float dx, float dy, float hitTime) {
+        for (int i = from; i < to; i++) {
+            final int slot = candidates[i];
+
+            final float entryX;
+            final float exitX;
+            if (dx > 0f) {
+                entryX = (store.minX[slot] - maxX) / dx;
+                exitX = (store.maxX[slot] - minX) / dx;
+            } else if (dx < 0f) {
+                entryX = (store.maxX[slot] - minX) / dx;
+                exitX = (store.minX[slot] - maxX) / dx;
+            } else if ((maxX <= store.minX[slot]) || (minX >= store.maxX[slot])) {
+                // never overlaps on this axis
+                continue;
+            } else {
+                entryX = Float.NEGATIVE_INFINITY;
+                exitX = Float.POSITIVE_INFINITY;
+            }
+
+            final float entryY;
+            final float exitY;
+            if (dy > 0f) {
+                entryY = (store.minY[slot] - maxY) / dy;
+                exitY = (store.maxY[slot] - minY) / dy;
+            } else if (dy < 0f) {
+                entryY = (store.maxY[slot] - minY) / dy;
+                exitY = (store.minY[slot] - maxY) / dy;
+            } else if ((maxY <= store.minY[slot]) || (minY >= store.maxY[slot])) {
+                continue;
+            } else {
+                entryY = Float.NEGATIVE_INFINITY;
+                exitY = Float.POSITIVE_INFINITY;
+            }
+
+            final float entry = Math.max(entryX, entryY);
+            final float exit = Math.min(exitX, exitY);
+            if ((entry < exit) && (entry >= 0f) && (entry < hitTime) && store.isEnabled(slot)) {
+                hitTime = entry;
+            }
+        }
+        return hitTime;
+    }
+}
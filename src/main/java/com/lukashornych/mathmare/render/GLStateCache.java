@@ -0,0 +1,165 @@
+package com.lukashornych.mathmare.render;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import lwjglutils.OGLTexture2D;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.GL_ELEMENT_ARRAY_BUFFER;
+import static org.lwjgl.opengl.GL15.glBindBuffer;
+import static org.lwjgl.opengl.GL20.glUseProgram;
+import static org.lwjgl.opengl.GL30.glBindVertexArray;
+
+/**
+ * Thin layer over OpenGL state which remembers currently bound objects and skips redundant binds and texture
+ * parameter calls. All game render code should go through this cache instead of calling OpenGL directly.
+ *
+ * Texture filtering is stored in texture object itself so it is set only once for each texture, which makes separate
+ * sampler objects unnecessary.
+ *
+ * Code outside of this cache (e.g. texture uploads) may change bound objects at any time, so the {@link #invalidate()}
+ * must be called before every frame.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString
+public class GLStateCache {
+
+    private static final int UNKNOWN = -1;
+
+    private int boundVertexArray = UNKNOWN;
+    private int boundElementArrayBuffer = UNKNOWN;
+    private int boundTexture2D = UNKNOWN;
+    private int usedProgram = UNKNOWN;
+
+    /**
+     * Element array buffer binding is part of vertex array state, so it is remembered for each vertex array
+     */
+    private final Map<Integer, Integer> vertexArrayElementBuffers = new HashMap<>();
+    /**
+     * Filter set to each texture object which has been bound through this cache
+     */
+    private final Map<Integer, Integer> textureFilters = new HashMap<>();
+
+    /**
+     * Number of OpenGL calls actually issued through this cache
+     */
+    @Getter private long issuedCalls = 0;
+    /**
+     * Number of redundant OpenGL calls skipped by this cache
+     */
+    @Getter private long avoidedCalls = 0;
+
+    /**
+     * Forgets all known bindings. Must be called whenever code outside of this cache could have changed them.
+     */
+    public void invalidate() {
+        boundVertexArray = UNKNOWN;
+        boundElementArrayBuffer = UNKNOWN;
+        boundTexture2D = UNKNOWN;
+        usedProgram = UNKNOWN;
+    }
+
+    /**
+     * Resets issued and avoided calls counters
+     */
+    public void resetStatistics() {
+        issuedCalls = 0;
+        avoidedCalls = 0;
+    }
+
+    /**
+     * Binds vertex array if not already bound
+     *
+     * @param vaoId vertex array to bind
+     */
+    public void bindVertexArray(int vaoId) {
+        if (boundVertexArray == vaoId) {
+            avoidedCalls++;
+            return;
+        }
+
+        glBindVertexArray(vaoId);
+        issuedCalls++;
+
+        boundVertexArray = vaoId;
+        boundElementArrayBuffer = vertexArrayElementBuffers.getOrDefault(vaoId, UNKNOWN);
+    }
+
+    /**
+     * Binds element array buffer to currently bound vertex array if not already bound
+     *
+     * @param iboId element array buffer to bind
+     */
+    public void bindElementArrayBuffer(int iboId) {
+        if ((boundElementArrayBuffer == iboId) && (boundVertexArray != UNKNOWN)) {
+            avoidedCalls++;
+            return;
+        }
+
+        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, iboId);
+        issuedCalls++;
+
+        boundElementArrayBuffer = iboId;
+        if (boundVertexArray != UNKNOWN) {
+            vertexArrayElementBuffers.put(boundVertexArray, iboId);
+        }
+    }
+
+    /**
+     * Uses shader program if not already used
+     *
+     * @param programId program to use, 0 for fixed pipeline
+     */
+    public void useProgram(int programId) {
+        if (usedProgram == programId) {
+            avoidedCalls++;
+            return;
+        }
+
+        glUseProgram(programId);
+        issuedCalls++;
+        usedProgram = programId;
+    }
+
+    /**
+     * Binds 2D texture if not already bound and sets its min and mag filter if it differs from previously set filter
+     *
+     * @param texture texture to bind
+     * @param filter OpenGL filter to use for both minification and magnification, e.g. {@code GL_NEAREST}
+     */
+    public void bindTexture(@NonNull OGLTexture2D texture, int filter) {
+        bindTexture(texture.getTextureId(), filter);
+    }
+
+    /**
+     * Binds 2D texture if not already bound and sets its min and mag filter if it differs from previously set filter
+     *
+     * @param textureId OpenGL texture to bind
+     * @param filter OpenGL filter to use for both minification and magnification, e.g. {@code GL_NEAREST}
+     */
+    public void bindTexture(int textureId, int filter) {
+        if (boundTexture2D == textureId) {
+            avoidedCalls++;
+        } else {
+            glBindTexture(GL_TEXTURE_2D, textureId);
+            issuedCalls++;
+            boundTexture2D = textureId;
+        }
+
+        final Integer currentFilter = textureFilters.get(textureId);
+        if ((currentFilter != null) && (currentFilter == filter)) {
+            avoidedCalls += 2;
+            return;
+        }
+
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, filter);
+        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, filter);
+        issuedCalls += 2;
+        textureFilters.put(textureId, filter);
+    }
+}
@@ -0,0 +1,84 @@
+package com.lukashornych.mathmare.render;
+
+import lombok.Getter;
+import lombok.ToString;
+
+import static org.lwjgl.opengl.GL11.GL_RGBA8;
+import static org.lwjgl.opengl.GL30.*;
+
+/**
+ * Framebuffer with color and depth renderbuffers for rendering without presenting to window.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@Getter
+@ToString
+public class OffscreenFramebuffer {
+
+    private final int width;
+    private final int height;
+
+    private int framebufferId;
+    private int colorRenderbufferId;
+    private int depthRenderbufferId;
+
+    /**
+     * Creates uninitialized framebuffer. The {@link #init()} must be called before using.
+     *
+     * @param width width of framebuffer in pixels
+     * @param height height of framebuffer in pixels
+     */
+    public OffscreenFramebuffer(int width, int height) {
+        this.width = width;
+        this.height = height;
+    }
+
+    /**
+     * Creates framebuffer and its renderbuffers
+     */
+    public void init() {
+        framebufferId = glGenFramebuffers();
+        glBindFramebuffer(GL_FRAMEBUFFER, framebufferId);
+
+        colorRenderbufferId = glGenRenderbuffers();
+        glBindRenderbuffer(GL_RENDERBUFFER, colorRenderbufferId);
+        glRenderbufferStorage(GL_RENDERBUFFER, GL_RGBA8, width, height);
+        glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_COLOR_ATTACHMENT0, GL_RENDERBUFFER, colorRenderbufferId);
+
+        depthRenderbufferId = glGenRenderbuffers();
+        glBindRenderbuffer(GL_RENDERBUFFER, depthRenderbufferId);
+        glRenderbufferStorage(GL_RENDERBUFFER, GL_DEPTH_COMPONENT24, width, height);
+        glFramebufferRenderbuffer(GL_FRAMEBUFFER, GL_DEPTH_ATTACHMENT, GL_RENDERBUFFER, depthRenderbufferId);
+
+        glBindRenderbuffer(GL_RENDERBUFFER, 0);
+
+        final int status = glCheckFramebufferStatus(GL_FRAMEBUFFER);
+        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+        if (status != GL_FRAMEBUFFER_COMPLETE) {
+            throw new IllegalStateException("Offscreen framebuffer is not complete: " + status);
+        }
+    }
+
+    /**
+     * Redirects all following rendering to this framebuffer
+     */
+    public void bind() {
+        glBindFramebuffer(GL_FRAMEBUFFER, framebufferId);
+    }
+
+    /**
+     * Redirects all following rendering back to window
+     */
+    public void unbind() {
+        glBindFramebuffer(GL_FRAMEBUFFER, 0);
+    }
+
+    /**
+     * Deletes framebuffer and its renderbuffers
+     */
+    public void destroy() {
+        glDeleteFramebuffers(framebufferId);
+        glDeleteRenderbuffers(colorRenderbufferId);
+        glDeleteRenderbuffers(depthRenderbufferId);
+    }
+}
@@ -0,0 +1,266 @@
+package com.lukashornych.mathmare.render;
+
+import com.lukashornych.mathmare.Camera;
+import com.lukashornych.mathmare.diagnostics.FrameProfiler;
+import com.lukashornych.mathmare.diagnostics.FrameStage;
+import com.lukashornych.mathmare.ui.SpriteBatch;
+import com.lukashornych.mathmare.ui.TextLayout;
+import com.lukashornych.mathmare.ui.TextRenderer;
+import com.lukashornych.mathmare.world.WorldRenderer;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.awt.*;
+import java.util.Arrays;
+
+/**
+ * Queue of recorded draw commands of single frame. Scenes only record what should be drawn and the queue executes
+ * all commands later in separate submit stage.
+ *
+ * Recorded commands hold only immutable data or objects used exclusively by render thread (camera pose is copied), so
+ * recorded queue can be handed from simulation thread to render thread as a snapshot of single frame and submitted
+ * repeatedly.
+ *
+ * Commands are stored in preallocated parallel arrays, so recording does not allocate once the queue has grown to
+ * usual frame size. Commands are executed ordered by layer (world, UI panels, UI text), commands in same layer are
+ * executed in order of recording. All UI panels and text are collected in sprite batch and drawn by single draw call
+ * at the end.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class RenderCommandQueue {
+
+    private static final int INITIAL_CAPACITY = 32;
+
+    private static final int FLOATS_PER_COMMAND = 8;
+    private static final int REFS_PER_COMMAND = 3;
+
+    private final FrameProfiler frameProfiler;
+    private final SpriteBatch spriteBatch;
+
+    /**
+     * Number of currently recorded commands
+     */
+    @Getter @ToString.Include
+    private int size = 0;
+
+    private CommandType[] types = new CommandType[INITIAL_CAPACITY];
+    private float[] floats = new float[INITIAL_CAPACITY * FLOATS_PER_COMMAND];
+    private Object[] refs = new Object[INITIAL_CAPACITY * REFS_PER_COMMAND];
+
+    /**
+     * Indexes of commands sorted by layer, filled by submit
+     */
+    private int[] order = new int[INITIAL_CAPACITY];
+    private final int[] layerCounts = new int[CommandType.values().length];
+
+    /**
+     * Creates empty queue
+     *
+     * @param frameProfiler profiler to measure UI stage by
+     * @param spriteBatch batch collecting UI text
+     */
+    public RenderCommandQueue(@NonNull FrameProfiler frameProfiler, @NonNull SpriteBatch spriteBatch) {
+        this.frameProfiler = frameProfiler;
+        this.spriteBatch = spriteBatch;
+    }
+
+    /**
+     * Records rendering of whole 3D world. Current pose of viewpoint camera is copied and applied to camera of world
+     * renderer when submitted.
+     *
+     * @param worldRenderer renderer of world to render
+     * @param viewpoint camera to render world from
+     */
+    public void recordWorld(@NonNull WorldRenderer worldRenderer, @NonNull Camera viewpoint) {
+        final int command = addCommand(CommandType.WORLD);
+        refs[command * REFS_PER_COMMAND] = worldRenderer;
+
+        final int offset = command * FLOATS_PER_COMMAND;
+        floats[offset] = viewpoint.getPosition().x;
+        floats[offset + 1] = viewpoint.getPosition().y;
+        floats[offset + 2] = viewpoint.getPosition().z;
+        floats[offset + 3] = viewpoint.getAzimuth();
+        floats[offset + 4] = viewpoint.getZenith();
+    }
+
+    /**
+     * Records solid colored UI panel in window coordinates
+     */
+    public void recordPanel(float minX, float minY, float maxX, float maxY, float red, float green, float blue, float alpha) {
+        final int command = addCommand(CommandType.PANEL);
+        final int offset = command * FLOATS_PER_COMMAND;
+        floats[offset] = minX;
+        floats[offset + 1] = minY;
+        floats[offset + 2] = maxX;
+        floats[offset + 3] = maxY;
+        floats[offset + 4] = red;
+        floats[offset + 5] = green;
+        floats[offset + 6] = blue;
+        floats[offset + 7] = alpha;
+    }
+
+    /**
+     * Records UI text in window coordinates
+     *
+     * @param textRenderer renderer to render text with
+     * @param x window x of text
+     * @param y window y of text
+     * @param color color of text
+     * @param text text to render
+     */
+    public void recordText(@NonNull TextRenderer textRenderer, int x, int y, @NonNull Color color, @NonNull String text) {
+        final int command = addCommand(CommandType.TEXT);
+        final int offset = command * FLOATS_PER_COMMAND;
+        floats[offset] = x;
+        floats[offset + 1] = y;
+
+        final int refsOffset = command * REFS_PER_COMMAND;
+        refs[refsOffset] = textRenderer;
+        refs[refsOffset + 1] = color;
+        refs[refsOffset + 2] = text;
+    }
+
+    /**
+     * Records UI text laid out in advance in window coordinates
+     *
+     * @param textRenderer renderer to render text with, layout must be built by its glyphs
+     * @param x window x of text
+     * @param y window y of text
+     * @param color color of text
+     * @param layout layout of text to render
+     */
+    public void recordText(@NonNull TextRenderer textRenderer, int x, int y, @NonNull Color color, @NonNull TextLayout layout) {
+        final int command = addCommand(CommandType.TEXT);
+        final int offset = command * FLOATS_PER_COMMAND;
+        floats[offset] = x;
+        floats[offset + 1] = y;
+
+        final int refsOffset = command * REFS_PER_COMMAND;
+        refs[refsOffset] = textRenderer;
+        refs[refsOffset + 1] = color;
+        refs[refsOffset + 2] = layout;
+    }
+
+    /**
+     * Executes all recorded commands. Queue is left intact, so same frame can be submitted again. Must be called from
+     * thread owning OpenGL context.
+     */
+    public void submit() {
+        sortByLayer();
+
+        boolean uiStarted = false;
+        for (int i = 0; i < size; i++) {
+            final int command = order[i];
+            final CommandType type = types[command];
+
+            if (!uiStarted && (type != CommandType.WORLD)) {
+                frameProfiler.beginStage(FrameStage.UI);
+                uiStarted = true;
+            }
+
+            switch (type) {
+                case WORLD: executeWorld(command); break;
+                case PANEL: executePanel(command); break;
+                case TEXT: executeText(command); break;
+            }
+        }
+        if (uiStarted) {
+            spriteBatch.flush();
+            frameProfiler.endStage(FrameStage.UI);
+        }
+    }
+
+    /**
+     * Discards all recorded commands
+     */
+    public void clear() {
+        // release references so that old scenes can be garbage collected
+        Arrays.fill(refs, 0, size * REFS_PER_COMMAND, null);
+        size = 0;
+    }
+
+
+    /**
+     * Reserves new command in the queue
+     *
+     * @param type type of command
+     * @return index of new command
+     */
+    private int addCommand(CommandType type) {
+        if (size == types.length) {
+            final int newCapacity = types.length * 2;
+            types = Arrays.copyOf(types, newCapacity);
+            floats = Arrays.copyOf(floats, newCapacity * FLOATS_PER_COMMAND);
+            refs = Arrays.copyOf(refs, newCapacity * REFS_PER_COMMAND);
+            order = new int[newCapacity];
+        }
+
+        types[size] = type;
+        return size++;
+    }
+
+    /**
+     * Stable counting sort of recorded commands by their layer into {@link #order}
+     */
+    private void sortByLayer() {
+        Arrays.fill(layerCounts, 0);
+        for (int i = 0; i < size; i++) {
+            layerCounts[types[i].ordinal()]++;
+        }
+
+        int layerStart = 0;
+        for (int layer = 0; layer < layerCounts.length; layer++) {
+            final int layerCount = layerCounts[layer];
+            layerCounts[layer] = layerStart;
+            layerStart += layerCount;
+        }
+
+        for (int i = 0; i < size; i++) {
+            order[layerCounts[types[i].ordinal()]++] = i;
+        }
+    }
+
+    private void executeWorld(int command) {
+        final int offset = command * FLOATS_PER_COMMAND;
+        final WorldRenderer worldRenderer = (WorldRenderer) refs[command * REFS_PER_COMMAND];
+
+        final Camera camera = worldRenderer.getCamera();
+        camera.getPosition().set(floats[offset], floats[offset + 1], floats[offset + 2]);
+        camera.setAzimuth(floats[offset + 3]);
+        camera.setZenith(floats[offset + 4]);
+
+        worldRenderer.renderWorld();
+    }
+
+    private void executePanel(int command) {
+        final int offset = command * FLOATS_PER_COMMAND;
+        spriteBatch.drawRectangle(
+                floats[offset], floats[offset + 1], floats[offset + 2], floats[offset + 3],
+                floats[offset + 4], floats[offset + 5], floats[offset + 6], floats[offset + 7]
+        );
+    }
+
+    private void executeText(int command) {
+        final int offset = command * FLOATS_PER_COMMAND;
+        final int refsOffset = command * REFS_PER_COMMAND;
+
+        final TextRenderer textRenderer = (TextRenderer) refs[refsOffset];
+        textRenderer.setColor((Color) refs[refsOffset + 1]);
+        final Object text = refs[refsOffset + 2];
+        if (text instanceof TextLayout) {
+            textRenderer.addLayout2D((int) floats[offset], (int) floats[offset + 1], (TextLayout) text);
+        } else {
+            textRenderer.addStr2D((int) floats[offset], (int) floats[offset + 1], (String) text);
+        }
+    }
+
+    /**
+     * Type of recorded command. Order of types defines order of layers in which commands are executed.
+     */
+    private enum CommandType {
+        WORLD, PANEL, TEXT
+    }
+}
@@ -0,0 +1,117 @@
+package com.lukashornych.mathmare.render;
+
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Lock-free triple buffer of {@link RenderCommandQueue}s handing recorded frames from simulation thread (producer)
+ * to render thread (consumer).
+ *
+ * Producer records into its own queue and then publishes it by swapping it with the middle queue. Consumer takes
+ * the middle queue only if it holds newer frame than the one it already has, otherwise it keeps rendering its current
+ * queue. Neither side ever waits for the other and each queue is owned by single thread at any time.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class RenderQueueExchange {
+
+    private static final int INDEX_MASK = 0b11;
+    /**
+     * Flag of middle queue holding frame not yet taken by consumer
+     */
+    private static final int FRESH_FLAG = 0b100;
+
+    /**
+     * How long producer parks between checks whether consumer has taken published frame
+     */
+    private static final long AWAIT_PARK_NANOS = 100_000;
+
+    private final RenderCommandQueue[] queues;
+
+    /**
+     * Index of queue owned by producer
+     */
+    private int recordingIndex = 0;
+    /**
+     * Index of queue owned by consumer
+     */
+    private int renderingIndex = 1;
+    /**
+     * Index of middle queue combined with {@link #FRESH_FLAG}
+     */
+    private final AtomicInteger middle = new AtomicInteger(2);
+
+    /**
+     * @param queue1 first of three distinct queues to exchange
+     * @param queue2 second of three distinct queues to exchange
+     * @param queue3 third of three distinct queues to exchange
+     */
+    public RenderQueueExchange(@NonNull RenderCommandQueue queue1,
+                               @NonNull RenderCommandQueue queue2,
+                               @NonNull RenderCommandQueue queue3) {
+        this.queues = new RenderCommandQueue[] { queue1, queue2, queue3 };
+    }
+
+    /**
+     * Returns empty queue to record new frame to. Producer only.
+     *
+     * @return queue owned by producer
+     */
+    public RenderCommandQueue beginRecording() {
+        final RenderCommandQueue queue = queues[recordingIndex];
+        queue.clear();
+        return queue;
+    }
+
+    /**
+     * Publishes frame recorded into queue returned by {@link #beginRecording()}. Frame published earlier and not taken
+     * by consumer yet is dropped. Producer only.
+     */
+    public void publish() {
+        final int previousMiddle = middle.getAndSet(recordingIndex | FRESH_FLAG);
+        recordingIndex = previousMiddle & INDEX_MASK;
+    }
+
+    /**
+     * Waits until consumer takes last published frame or until deadline passes, whichever comes first. Producer only.
+     *
+     * @param deadlineNanos {@link System#nanoTime()} after which to stop waiting
+     */
+    public void awaitConsumed(long deadlineNanos) {
+        while (((middle.get() & FRESH_FLAG) != 0)
+                && (System.nanoTime() < deadlineNanos)
+                && !Thread.currentThread().isInterrupted()) {
+            LockSupport.parkNanos(AWAIT_PARK_NANOS);
+        }
+    }
+
+    /**
+     * Returns queue with latest published frame. If nothing new has been published since last call, same queue is
+     * returned again. Consumer only.
+     *
+     * @return queue owned by consumer
+     */
+    public RenderCommandQueue acquire() {
+        if ((middle.get() & FRESH_FLAG) != 0) {
+            final int previousMiddle = middle.getAndSet(renderingIndex);
+            renderingIndex = previousMiddle & INDEX_MASK;
+        }
+        return queues[renderingIndex];
+    }
+
+    /**
+     * Drops all published frames, e.g. because they reference destroyed scene. Consumer only and only while producer
+     * is not publishing.
+     */
+    public void discardPublished() {
+        final int middleIndex = middle.get() & INDEX_MASK;
+        queues[middleIndex].clear();
+        middle.set(middleIndex);
+
+        queues[renderingIndex].clear();
+    }
+}
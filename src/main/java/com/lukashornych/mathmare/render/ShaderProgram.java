@@ -0,0 +1,97 @@
+package com.lukashornych.mathmare.render;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.util.Map;
+
+import static org.lwjgl.opengl.GL20.*;
+
+/**
+ * Linked GLSL program made of single vertex and single fragment shader.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString
+public class ShaderProgram {
+
+    private final String vertexShaderSource;
+    private final String fragmentShaderSource;
+    /**
+     * Locations of vertex attributes by their names, bound before linking
+     */
+    private final Map<String, Integer> attributeLocations;
+
+    @Getter
+    private int programId;
+
+    /**
+     * Creates uninitialized program. The {@link #init()} must be called before using.
+     *
+     * @param vertexShaderSource GLSL source of vertex shader
+     * @param fragmentShaderSource GLSL source of fragment shader
+     * @param attributeLocations locations of vertex attributes by their names
+     */
+    public ShaderProgram(@NonNull String vertexShaderSource,
+                         @NonNull String fragmentShaderSource,
+                         @NonNull Map<String, Integer> attributeLocations) {
+        this.vertexShaderSource = vertexShaderSource;
+        this.fragmentShaderSource = fragmentShaderSource;
+        this.attributeLocations = attributeLocations;
+    }
+
+    /**
+     * Compiles and links the program
+     */
+    public void init() {
+        final int vertexShaderId = compileShader(GL_VERTEX_SHADER, vertexShaderSource);
+        final int fragmentShaderId = compileShader(GL_FRAGMENT_SHADER, fragmentShaderSource);
+
+        programId = glCreateProgram();
+        glAttachShader(programId, vertexShaderId);
+        glAttachShader(programId, fragmentShaderId);
+        attributeLocations.forEach((name, location) -> glBindAttribLocation(programId, location, name));
+        glLinkProgram(programId);
+
+        // shaders are not needed anymore once linked
+        glDetachShader(programId, vertexShaderId);
+        glDetachShader(programId, fragmentShaderId);
+        glDeleteShader(vertexShaderId);
+        glDeleteShader(fragmentShaderId);
+
+        if (glGetProgrami(programId, GL_LINK_STATUS) == GL_FALSE) {
+            final String log = glGetProgramInfoLog(programId);
+            glDeleteProgram(programId);
+            throw new IllegalStateException("Could not link shader program: " + log);
+        }
+    }
+
+    /**
+     * @param name name of uniform
+     * @return location of uniform or -1 if program does not have such active uniform
+     */
+    public int getUniformLocation(@NonNull String name) {
+        return glGetUniformLocation(programId, name);
+    }
+
+    /**
+     * Deletes the program
+     */
+    public void destroy() {
+        glDeleteProgram(programId);
+    }
+
+    private int compileShader(int type, String source) {
+        final int shaderId = glCreateShader(type);
+        glShaderSource(shaderId, source);
+        glCompileShader(shaderId);
+
+        if (glGetShaderi(shaderId, GL_COMPILE_STATUS) == GL_FALSE) {
+            final String log = glGetShaderInfoLog(shaderId);
+            glDeleteShader(shaderId);
+            throw new IllegalStateException("Could not compile shader: " + log);
+        }
+        return shaderId;
+    }
+}
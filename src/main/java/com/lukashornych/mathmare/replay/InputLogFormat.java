@@ -0,0 +1,52 @@
+package com.lukashornych.mathmare.replay;
+
+/**
+ * Binary format of input log shared by {@link InputRecorder} and {@link InputReplayer}.
+ *
+ * Log starts with header (magic, version, session seed, simulation step) followed by records. Each record starts with
+ * single byte type. Input events of single simulation step are stored in order as key, mouse button and character
+ * records followed by mouse movement accumulated in the step and terminated by step record, so step without any input
+ * takes single byte. Frame record precedes steps simulated before rendering of that frame and holds real time elapsed
+ * since previous frame.
+ *
+ * @author Lukáš Hornych 2021
+ */
+final class InputLogFormat {
+
+    static final int MAGIC = 0x4d4d524c; // "MMRL"
+    static final short VERSION = 2;
+
+    static final byte END = 0;
+    /**
+     * Followed by short key
+     */
+    static final byte KEY_PRESS = 1;
+    /**
+     * Followed by short key
+     */
+    static final byte KEY_RELEASE = 2;
+    /**
+     * Followed by byte button
+     */
+    static final byte MOUSE_BUTTON_PRESS = 3;
+    /**
+     * Followed by byte button
+     */
+    static final byte MOUSE_BUTTON_RELEASE = 4;
+    /**
+     * Followed by double delta x and double delta y
+     */
+    static final byte MOUSE_MOVE = 5;
+    static final byte STEP = 6;
+    /**
+     * Followed by long elapsed nanoseconds
+     */
+    static final byte FRAME = 7;
+    /**
+     * Followed by int code point
+     */
+    static final byte CHAR = 8;
+
+    private InputLogFormat() {
+    }
+}
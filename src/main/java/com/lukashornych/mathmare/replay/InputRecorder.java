@@ -0,0 +1,144 @@
+package com.lukashornych.mathmare.replay;
+
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * Records input events applied by every simulation step and timing of frames into binary input log, see
+ * {@link InputLogFormat}. Recorded log can be played back by {@link InputReplayer}.
+ *
+ * All recording must be done from simulation thread.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class InputRecorder implements Closeable {
+
+    private final DataOutputStream output;
+
+    @ToString.Include
+    private long recordedSteps = 0;
+
+    private InputRecorder(DataOutputStream output) {
+        this.output = output;
+    }
+
+    /**
+     * Creates new log file and writes its header
+     *
+     * @param path path of log file, existing file is overwritten
+     * @param sessionSeed seed of all random generators of recorded session
+     * @param simulationStep fixed simulation step of recorded session
+     * @return recorder writing into the log file
+     */
+    public static InputRecorder create(@NonNull Path path, long sessionSeed, float simulationStep) {
+        try {
+            final DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path)));
+            output.writeInt(InputLogFormat.MAGIC);
+            output.writeShort(InputLogFormat.VERSION);
+            output.writeLong(sessionSeed);
+            output.writeFloat(simulationStep);
+            return new InputRecorder(output);
+        } catch (IOException e) {
+            throw new RuntimeException("Could not create input log " + path, e);
+        }
+    }
+
+    /**
+     * Records start of new frame
+     *
+     * @param elapsedNanos real time elapsed since previous frame
+     */
+    public void recordFrame(long elapsedNanos) {
+        try {
+            output.writeByte(InputLogFormat.FRAME);
+            output.writeLong(elapsedNanos);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Records press or release of key applied in current step
+     *
+     * @param key GLFW key
+     * @param pressed true if key has been pressed, false if released
+     */
+    public void recordKey(int key, boolean pressed) {
+        try {
+            output.writeByte(pressed ? InputLogFormat.KEY_PRESS : InputLogFormat.KEY_RELEASE);
+            output.writeShort(key);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Records press or release of mouse button applied in current step
+     *
+     * @param button GLFW mouse button
+     * @param pressed true if button has been pressed, false if released
+     */
+    public void recordMouseButton(int button, boolean pressed) {
+        try {
+            output.writeByte(pressed ? InputLogFormat.MOUSE_BUTTON_PRESS : InputLogFormat.MOUSE_BUTTON_RELEASE);
+            output.writeByte(button);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Records character typed in current step
+     *
+     * @param codepoint unicode code point of character
+     */
+    public void recordChar(int codepoint) {
+        try {
+            output.writeByte(InputLogFormat.CHAR);
+            output.writeInt(codepoint);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Records end of single simulation step
+     *
+     * @param deltaMouseX mouse movement on x axis accumulated in the step
+     * @param deltaMouseY mouse movement on y axis accumulated in the step
+     */
+    public void recordStep(double deltaMouseX, double deltaMouseY) {
+        try {
+            if ((deltaMouseX != 0) || (deltaMouseY != 0)) {
+                output.writeByte(InputLogFormat.MOUSE_MOVE);
+                output.writeDouble(deltaMouseX);
+                output.writeDouble(deltaMouseY);
+            }
+            output.writeByte(InputLogFormat.STEP);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        recordedSteps++;
+    }
+
+    /**
+     * Terminates and closes the log
+     */
+    @Override
+    public void close() {
+        try {
+            output.writeByte(InputLogFormat.END);
+            output.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
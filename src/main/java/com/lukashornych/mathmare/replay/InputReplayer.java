@@ -0,0 +1,155 @@
+package com.lukashornych.mathmare.replay;
+
+import com.lukashornych.mathmare.InputEventQueue;
+import com.lukashornych.mathmare.InputEventType;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.io.BufferedInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.lwjgl.glfw.GLFW.GLFW_PRESS;
+import static org.lwjgl.glfw.GLFW.GLFW_RELEASE;
+
+/**
+ * Plays back input log recorded by {@link InputRecorder}. Input events of each simulation step and timing of each
+ * frame are replayed exactly as recorded, so together with recorded session seed the whole session is reproduced.
+ *
+ * All replaying must be done from simulation thread.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class InputReplayer implements Closeable {
+
+    private final DataInputStream input;
+
+    @Getter @ToString.Include
+    private final long sessionSeed;
+    @Getter @ToString.Include
+    private final float simulationStep;
+
+    /**
+     * Type of next unread record
+     */
+    private byte nextRecord;
+    /**
+     * Whether all records have been replayed
+     */
+    @Getter @ToString.Include
+    private boolean finished = false;
+
+    private InputReplayer(DataInputStream input, long sessionSeed, float simulationStep) {
+        this.input = input;
+        this.sessionSeed = sessionSeed;
+        this.simulationStep = simulationStep;
+        readNextRecordType();
+    }
+
+    /**
+     * Opens log file and reads its header
+     *
+     * @param path path of log file
+     * @return replayer of the log
+     */
+    public static InputReplayer open(@NonNull Path path) {
+        try {
+            final DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)));
+            if (input.readInt() != InputLogFormat.MAGIC) {
+                throw new IllegalArgumentException("File " + path + " is not input log.");
+            }
+            final short version = input.readShort();
+            if (version != InputLogFormat.VERSION) {
+                throw new IllegalArgumentException("Unsupported input log version " + version + ".");
+            }
+
+            return new InputReplayer(input, input.readLong(), input.readFloat());
+        } catch (IOException e) {
+            throw new RuntimeException("Could not open input log " + path, e);
+        }
+    }
+
+    /**
+     * Replays start of new frame
+     *
+     * @return recorded real time elapsed since previous frame or -1 if next record is not a frame, e.g. log has been
+     *         recorded without rendering
+     */
+    public long nextFrameElapsedNanos() {
+        if (nextRecord != InputLogFormat.FRAME) {
+            return -1;
+        }
+
+        try {
+            final long elapsedNanos = input.readLong();
+            readNextRecordType();
+            return elapsedNanos;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Replays input of single simulation step by offering its recorded events to input event queue. Frame records are
+     * skipped, so log recorded with rendering can be replayed also without it.
+     *
+     * @param eventQueue queue to offer replayed events to
+     * @return false if there is no more step to replay
+     */
+    public boolean replayStep(@NonNull InputEventQueue eventQueue) {
+        try {
+            while (!finished) {
+                final byte record = nextRecord;
+                switch (record) {
+                    case InputLogFormat.KEY_PRESS: eventQueue.offer(InputEventType.KEY, input.readShort(), GLFW_PRESS, 0, 0); break;
+                    case InputLogFormat.KEY_RELEASE: eventQueue.offer(InputEventType.KEY, input.readShort(), GLFW_RELEASE, 0, 0); break;
+                    case InputLogFormat.MOUSE_BUTTON_PRESS: eventQueue.offer(InputEventType.MOUSE_BUTTON, input.readByte(), GLFW_PRESS, 0, 0); break;
+                    case InputLogFormat.MOUSE_BUTTON_RELEASE: eventQueue.offer(InputEventType.MOUSE_BUTTON, input.readByte(), GLFW_RELEASE, 0, 0); break;
+                    case InputLogFormat.CHAR: eventQueue.offer(InputEventType.CHAR, input.readInt(), 0, 0, 0); break;
+                    case InputLogFormat.MOUSE_MOVE: eventQueue.offer(InputEventType.MOUSE_MOVE, 0, 0, input.readDouble(), input.readDouble()); break;
+                    case InputLogFormat.FRAME: input.readLong(); break;
+                    case InputLogFormat.STEP: break;
+                    default: throw new IllegalStateException("Corrupted input log, unknown record " + record + ".");
+                }
+                readNextRecordType();
+
+                if (record == InputLogFormat.STEP) {
+                    return true;
+                }
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return false;
+    }
+
+    @Override
+    public void close() {
+        try {
+            input.close();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+
+    private void readNextRecordType() {
+        try {
+            nextRecord = input.readByte();
+        } catch (EOFException e) {
+            // log of crashed session may not be terminated
+            nextRecord = InputLogFormat.END;
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        if (nextRecord == InputLogFormat.END) {
+            finished = true;
+        }
+    }
+}
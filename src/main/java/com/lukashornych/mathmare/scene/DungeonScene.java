@@ -1,17 +1,18 @@
 package com.lukashornych.mathmare.scene;
 
-import com.lukashornych.mathmare.Expression;
+import com.lukashornych.mathmare.Camera;
+import com.lukashornych.mathmare.ExpressionBank;
 import com.lukashornych.mathmare.InputManager;
 import com.lukashornych.mathmare.Player;
+import com.lukashornych.mathmare.diagnostics.ExpressionSolvingEvent;
 import com.lukashornych.mathmare.maze.MazeDescriptor;
 import com.lukashornych.mathmare.maze.MazeGenerator;
-import com.lukashornych.mathmare.maze.MazeTile;
-import com.lukashornych.mathmare.ui.TextRendererFactory;
+import com.lukashornych.mathmare.render.RenderCommandQueue;
+import com.lukashornych.mathmare.ui.TextRenderer;
 import com.lukashornych.mathmare.world.*;
 import lombok.EqualsAndHashCode;
 import lombok.NonNull;
 import lombok.ToString;
-import lwjglutils.OGLTextRenderer;
 import org.joml.Vector2i;
 import org.joml.Vector3f;
 
@@ -29,51 +30,127 @@ import static org.lwjgl.opengl.GL11.*;
 @EqualsAndHashCode
 public class DungeonScene implements Scene {
 
+    /**
+     * Size of font of expressions, {@link ExpressionBank} lays expressions out by it
+     */
+    public static final float EXPRESSION_FONT_SIZE = 40f;
+
     private SceneManager sceneManager;
 
     private final int TIME_FOR_ROOM = 2000;
     private final int EXPRESSION_SOLVED_TIME_BONUS = 5000;
     private final int EXPRESSION_WRONG_TIME_HARM = 1000;
 
+    private final float TIME_BAR_WIDTH = 200f;
+
+    /**
+     * Seed of maze of this dungeon
+     */
+    private final long mazeSeed;
+    private MazeDescriptor mazeDescriptor;
+    /**
+     * Geometry built by {@link #preload()}, released once uploaded
+     */
+    private WorldMesh worldMesh;
+    private WorldUploader worldUploader;
     private World world;
     private WorldRenderer worldRenderer;
 
-    private OGLTextRenderer uiTextRenderer;
-    private OGLTextRenderer expressionSolvingTextRenderer;
+    private TextRenderer uiTextRenderer;
+    private TextRenderer expressionSolvingTextRenderer;
 
     private Player player;
 
-    private int timeRemaining;
+    private int totalTime;
+    private float timeRemaining;
+    private int timeRemainingTextSeconds = -1;
+    private String timeRemainingText;
 
     private boolean inInstructionsMode = true;
-    private int instructionsModeTimeRemaining = 4000;
+    private float instructionsModeTimeRemaining = 4000;
 
     private boolean inExpressionSolvingMode = false;
-    private Expression solvingExpression = null;
+    private ExpressionBank.Entry solvingExpression = null;
+    private ExpressionSolvingEvent solvingEvent = null;
     private String enteredExpressionResult = "";
 
 
+    /**
+     * @param mazeSeed seed of maze of this dungeon
+     */
+    public DungeonScene(long mazeSeed) {
+        this.mazeSeed = mazeSeed;
+    }
+
     @Override
     public void setSceneManager(@NonNull SceneManager sceneManager) {
         this.sceneManager = sceneManager;
     }
 
+    /**
+     * Generates maze and builds world geometry, does not touch OpenGL
+     */
     @Override
-    public void init() {
-        final MazeDescriptor mazeDescriptor = MazeGenerator.generateMaze();
-        final MazeTile[][] mazeRecipe = mazeDescriptor.getMaze();
+    public void preload() {
+        mazeDescriptor = MazeGenerator.generateMaze(mazeSeed);
+
+        totalTime = mazeDescriptor.getRoomsCount() * TIME_FOR_ROOM;
+        timeRemaining = totalTime;
+
+        worldMesh = new WorldBuilder(sceneManager.getGameManager().getConfiguration().getWorldRenderMode()).buildMesh(mazeDescriptor.getMaze());
+    }
 
-        timeRemaining = mazeDescriptor.getRoomsCount() * TIME_FOR_ROOM;
+    /**
+     * Uploads built world geometry and textures to GPU by parts
+     */
+    @Override
+    public boolean upload(long deadlineNanos) {
+        if (world != null) {
+            return true;
+        }
+        if (worldUploader == null) {
+            worldUploader = new WorldUploader(worldMesh);
+        }
 
-        world = new WorldBuilder().buildWorld(mazeRecipe);
+        if (!worldUploader.runSlice(deadlineNanos)) {
+            return false;
+        }
+        world = worldUploader.getWorld();
+        worldUploader = null;
+        worldMesh = null;
+        return true;
+    }
 
+    @Override
+    public void init() {
+        if (sceneManager.getGameManager().isHeadless()) {
+            // only game logic is simulated, nothing is rendered
+            world = WorldUploader.createHeadless(worldMesh);
+            worldMesh = null;
+            createPlayer(mazeDescriptor);
+            return;
+        }
         setupCommonRenderOptions();
 
         createPlayer(mazeDescriptor);
 
         prepareUi();
 
-        worldRenderer = new WorldRenderer(world, player.getCamera());
+        worldRenderer = new WorldRenderer(
+                world,
+                new Camera(sceneManager.getGameManager(), new Vector3f(), 0f, 0f),
+                sceneManager.getGameManager().getGlStateCache(),
+                sceneManager.getGameManager().getConfiguration(),
+                sceneManager.getGameManager().getFrameProfiler()
+        );
+    }
+
+    /**
+     * Every dungeon has its own maze, so new scene is created for every game
+     */
+    @Override
+    public boolean isReusable() {
+        return false;
     }
 
     @Override
@@ -94,24 +171,49 @@ public class DungeonScene implements Scene {
             player.updatePosition(dt);
 
             handleDynamicObjectsInteractions();
+        } else {
+            player.holdPosition();
         }
 
         if (inExpressionSolvingMode) {
             handleExpressionSolvingUi();
         }
 
-        if (sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_ESCAPE)) {
+        if (sceneManager.getGameManager().getInputManager().isKeyPressedThisStep(GLFW_KEY_ESCAPE)) {
             sceneManager.switchScene(SceneManager.SceneIdentifier.GAME_OVER_SCENE);
         }
+    }
 
-        worldRenderer.renderWorld();
+    @Override
+    public void render(RenderCommandQueue renderQueue, float alpha) {
+        player.interpolateRenderCamera(alpha);
+        renderQueue.recordWorld(worldRenderer, player.getRenderCamera());
 
-        renderUi();
+        renderUi(renderQueue);
     }
 
     @Override
     public void destroy() {
         sceneManager.getGameManager().getInputManager().setMouseMode(InputManager.MouseMode.INTERACTIVE);
+        if (sceneManager.getGameManager().isHeadless()) {
+            // headless world has no GPU objects
+            return;
+        }
+
+        // preloaded scene may be destroyed before init, partially or fully uploaded
+        if (world != null) {
+            world.destroy();
+            world = null;
+        } else if (worldUploader != null) {
+            worldUploader.abort();
+            worldUploader = null;
+        }
+
+        if (worldRenderer == null) {
+            return;
+        }
+
+        worldRenderer.destroy();
         glDisable(GL_DEPTH_TEST);
         glDisable(GL_CULL_FACE);
     }
@@ -121,8 +223,8 @@ public class DungeonScene implements Scene {
      * Prepares scene to render UI
      */
     private void prepareUi() {
-        uiTextRenderer = TextRendererFactory.createTextRenderer(sceneManager.getGameManager().getWindow(), 20f);
-        expressionSolvingTextRenderer = TextRendererFactory.createTextRenderer(sceneManager.getGameManager().getWindow(), 40f);
+        uiTextRenderer = sceneManager.getGameManager().getTextRendererFactory().getTextRenderer(20f);
+        expressionSolvingTextRenderer = sceneManager.getGameManager().getTextRendererFactory().getTextRenderer(EXPRESSION_FONT_SIZE);
     }
 
     /**
@@ -157,95 +259,80 @@ public class DungeonScene implements Scene {
 
     /**
      * Renders whole UI base on current game state
+     *
+     * @param renderQueue queue to record UI to
      */
-    private void renderUi() {
-        glMatrixMode(GL_PROJECTION);
-        glLoadIdentity();
-        glMatrixMode(GL_MODELVIEW);
-        glLoadIdentity();
-
+    private void renderUi(RenderCommandQueue renderQueue) {
         if (inExpressionSolvingMode) {
-            renderExpressionSolvingUi();
+            renderExpressionSolvingUi(renderQueue);
         }
         if (inInstructionsMode) {
-            renderInstructionsUi();
+            renderInstructionsUi(renderQueue);
         }
         if (!inInstructionsMode) {
-            renderInfoUi();
+            renderInfoUi(renderQueue);
         }
     }
 
     /**
      * Renders UI with basic info for player
+     *
+     * @param renderQueue queue to record UI to
      */
-    private void renderInfoUi() {
-        if (timeRemaining < 15000) {
-            uiTextRenderer.setColor(Color.RED);
-        } else {
-            uiTextRenderer.setColor(Color.WHITE);
+    private void renderInfoUi(RenderCommandQueue renderQueue) {
+        final Color color = (timeRemaining < 15000) ? Color.RED : Color.WHITE;
+
+        // text is rebuilt only when displayed seconds change
+        final int seconds = (int) (timeRemaining / 1000f);
+        if (seconds != timeRemainingTextSeconds) {
+            timeRemainingTextSeconds = seconds;
+            timeRemainingText = "Time remaining: " + seconds + "s";
         }
-        uiTextRenderer.addStr2D(0, 20, "Time remaining: " + ((int) (timeRemaining / 1000f)) + "s");
+        renderQueue.recordText(uiTextRenderer, 0, 20, color, timeRemainingText);
+
+        // timer bar
+        final float timeBarFill = Math.max(0f, Math.min(1f, timeRemaining / (float) totalTime));
+        renderQueue.recordPanel(0f, 26f, TIME_BAR_WIDTH, 32f, 0.2f, 0.2f, 0.2f, 0.8f);
+        renderQueue.recordPanel(0f, 26f, TIME_BAR_WIDTH * timeBarFill, 32f, color.getRed() / 255f, color.getGreen() / 255f, color.getBlue() / 255f, 1f);
     }
 
     /**
      * Renders UI for currently solving expression
+     *
+     * @param renderQueue queue to record UI to
      */
-    private void renderExpressionSolvingUi() {
-        glBegin(GL_TRIANGLE_STRIP);
-        glColor3f(0f, 0f, 0f);
-        glVertex3f(-0.6f, -0.5f, 0f);
-
-        glColor3f(0f, 0f, 0f);
-        glVertex3f(0.6f, -0.5f, 0f);
-
-        glColor3f(0f, 0f, 0f);
-        glVertex3f(-0.6f, 0.5f, 0f);
+    private void renderExpressionSolvingUi(RenderCommandQueue renderQueue) {
+        renderQueue.recordPanel(205f, 144f, 819f, 432f, 0f, 0f, 0f, 1f);
 
-        glColor3f(0f, 0f, 0f);
-        glVertex3f(0.6f, 0.5f, 0f);
-        glEnd();
-
-        expressionSolvingTextRenderer.setColor(Color.WHITE);
-        expressionSolvingTextRenderer.addStr2D(300, 250, "THE DOOR IS LOCKED");
-        expressionSolvingTextRenderer.addStr2D(340, 350, solvingExpression.toSolvableString());
-        expressionSolvingTextRenderer.addStr2D(570, 350, enteredExpressionResult);
+        renderQueue.recordText(expressionSolvingTextRenderer, 300, 250, Color.WHITE, "THE DOOR IS LOCKED");
+        renderQueue.recordText(expressionSolvingTextRenderer, 340, 350, Color.WHITE, solvingExpression.getSolvableLayout());
+        renderQueue.recordText(expressionSolvingTextRenderer, 570, 350, Color.WHITE, enteredExpressionResult);
     }
 
     /**
      * Renders UI for instructions
+     *
+     * @param renderQueue queue to record UI to
      */
-    private void renderInstructionsUi() {
-        glBegin(GL_TRIANGLE_STRIP);
-        glColor3f(0f, 0f, 0f);
-        glVertex3f(-0.7f, -0.4f, 0f);
-
-        glColor3f(0f, 0f, 0f);
-        glVertex3f(0.7f, -0.4f, 0f);
-
-        glColor3f(0f, 0f, 0f);
-        glVertex3f(-0.7f, 0.4f, 0f);
+    private void renderInstructionsUi(RenderCommandQueue renderQueue) {
+        renderQueue.recordPanel(154f, 173f, 870f, 403f, 0f, 0f, 0f, 1f);
 
-        glColor3f(0f, 0f, 0f);
-        glVertex3f(0.7f, 0.4f, 0f);
-        glEnd();
-
-        expressionSolvingTextRenderer.setColor(Color.WHITE);
-        expressionSolvingTextRenderer.addStr2D(290, 275, "Find an exit portal");
-        expressionSolvingTextRenderer.addStr2D(230, 335, "to escape this dungeon!");
+        renderQueue.recordText(expressionSolvingTextRenderer, 290, 275, Color.WHITE, "Find an exit portal");
+        renderQueue.recordText(expressionSolvingTextRenderer, 230, 335, Color.WHITE, "to escape this dungeon!");
     }
 
     /**
      * Handles input for dynamic objects interactions
      */
     private void handleDynamicObjectsInteractions() {
-        if (sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_F)) {
+        if (sceneManager.getGameManager().getInputManager().isKeyPressedThisStep(GLFW_KEY_F)) {
             final DynamicObject dynamicObject = world.getDynamicObject(player.getPosition());
 
             if (dynamicObject != null) {
                 if (dynamicObject.getType().equals(DynamicObjectType.DOOR)) {
                     if (!inExpressionSolvingMode) {
                         inExpressionSolvingMode = true;
-                        solvingExpression = Expression.generate();
+                        generateSolvingExpression();
                         enteredExpressionResult = "";
                     }
                 }
@@ -256,74 +343,58 @@ public class DungeonScene implements Scene {
         }
     }
 
+    /**
+     * Takes new expression to solve from expression bank
+     */
+    private void generateSolvingExpression() {
+        solvingExpression = sceneManager.getGameManager().getExpressionBank().take(
+                sceneManager.getGameManager().getConfiguration().getExpressionDifficulty()
+        );
+
+        solvingEvent = new ExpressionSolvingEvent();
+        solvingEvent.begin();
+    }
+
     /**
      * Handles input for expression solving UI
      */
     private void handleExpressionSolvingUi() {
-        boolean keyPressed = false;
-        if (enteredExpressionResult.length() < 4) {
-            if (sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_KP_0) || sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_0)) {
-                keyPressed = true;
-                enteredExpressionResult += "0";
-            } else if (sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_KP_1) || sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_1)) {
-                keyPressed = true;
-                enteredExpressionResult += "1";
-            } else if (sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_KP_2) || sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_2)) {
-                keyPressed = true;
-                enteredExpressionResult += "2";
-            } else if (sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_KP_3) || sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_3)) {
-                keyPressed = true;
-                enteredExpressionResult += "3";
-            } else if (sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_KP_4) || sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_4)) {
-                keyPressed = true;
-                enteredExpressionResult += "4";
-            } else if (sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_KP_5) || sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_5)) {
-                keyPressed = true;
-                enteredExpressionResult += "5";
-            } else if (sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_KP_6) || sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_6)) {
-                keyPressed = true;
-                enteredExpressionResult += "6";
-            } else if (sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_KP_7) || sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_7)) {
-                keyPressed = true;
-                enteredExpressionResult += "7";
-            } else if (sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_KP_8) || sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_8)) {
-                keyPressed = true;
-                enteredExpressionResult += "8";
-            } else if (sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_KP_9) || sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_9)) {
-                keyPressed = true;
-                enteredExpressionResult += "9";
-            } else if (sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_MINUS)) {
-                keyPressed = true;
-                enteredExpressionResult += "9";
+        final InputManager inputManager = sceneManager.getGameManager().getInputManager();
+
+        for (int i = 0; i < inputManager.getTypedCharsCount(); i++) {
+            final int typedChar = inputManager.getTypedChar(i);
+            if ((typedChar >= '0') && (typedChar <= '9') && (enteredExpressionResult.length() < 4)) {
+                enteredExpressionResult += (char) typedChar;
             }
         }
 
-        if (sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_BACKSPACE) && enteredExpressionResult.length() > 0) {
-            keyPressed = true;
+        if (inputManager.isKeyPressedThisStep(GLFW_KEY_BACKSPACE) && enteredExpressionResult.length() > 0) {
             enteredExpressionResult = enteredExpressionResult.substring(0, enteredExpressionResult.length() - 1);
         }
 
-        if ((sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_ENTER) || sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_KP_ENTER)) && enteredExpressionResult.length() > 0) {
-            keyPressed = true;
+        if ((inputManager.isKeyPressedThisStep(GLFW_KEY_ENTER) || inputManager.isKeyPressedThisStep(GLFW_KEY_KP_ENTER)) && enteredExpressionResult.length() > 0) {
             final int parsedEnteredResult = Integer.parseInt(enteredExpressionResult);
-            if (solvingExpression.isResultCorrect(parsedEnteredResult)) {
+            final boolean correct = solvingExpression.getExpression().isResultCorrect(parsedEnteredResult);
+            if (solvingEvent.shouldCommit()) {
+                solvingEvent.expression = solvingExpression.getSolvableString();
+                solvingEvent.enteredResult = parsedEnteredResult;
+                solvingEvent.correct = correct;
+                solvingEvent.commit();
+            }
+
+            if (correct) {
                 final DynamicObject dynamicObject = world.getDynamicObject(player.getPosition());
                 world.getAllDynamicObjects().remove(dynamicObject);
-                world.getPhysicsWorld().getObjects().remove(dynamicObject.getBoundingBox());
+                world.getPhysicsWorld().remove(dynamicObject.getBoundingBox());
 
                 inExpressionSolvingMode = false;
                 solvingExpression = null;
                 timeRemaining += EXPRESSION_SOLVED_TIME_BONUS;
             } else {
                 timeRemaining -= EXPRESSION_WRONG_TIME_HARM;
-                solvingExpression = Expression.generate();
+                generateSolvingExpression();
             }
             enteredExpressionResult = "";
         }
-
-        // reset all key states to disallow unwanted key repeats
-        if (keyPressed) {
-            sceneManager.getGameManager().getInputManager().resetKeyStates();
-        }
     }
 }
@@ -1,9 +1,9 @@
 package com.lukashornych.mathmare.scene;
 
 import com.lukashornych.mathmare.InputManager;
-import com.lukashornych.mathmare.ui.TextRendererFactory;
+import com.lukashornych.mathmare.render.RenderCommandQueue;
+import com.lukashornych.mathmare.ui.TextRenderer;
 import lombok.Data;
-import lwjglutils.OGLTextRenderer;
 
 import java.awt.*;
 
@@ -22,37 +22,50 @@ public class EscapedScene implements Scene {
 
     private SceneManager sceneManager;
 
-    private OGLTextRenderer defaultTextRenderer;
-    private OGLTextRenderer headlineTextRenderer;
+    private TextRenderer defaultTextRenderer;
+    private TextRenderer headlineTextRenderer;
 
     @Override
     public void init() {
-        defaultTextRenderer = TextRendererFactory.createTextRenderer(sceneManager.getGameManager().getWindow(), 20f);
-        headlineTextRenderer = TextRendererFactory.createTextRenderer(sceneManager.getGameManager().getWindow(), 60f);
+        if (!sceneManager.getGameManager().isHeadless()) {
+            defaultTextRenderer = sceneManager.getGameManager().getTextRendererFactory().getTextRenderer(20f);
+            headlineTextRenderer = sceneManager.getGameManager().getTextRendererFactory().getTextRenderer(60f);
+        }
+    }
 
+    @Override
+    public void activate() {
         sceneManager.getGameManager().getInputManager().setMouseMode(InputManager.MouseMode.FREE_MOVING);
+        // next dungeon is prepared while player reads this scene
+        sceneManager.preload(SceneManager.SceneIdentifier.DUNGEON_SCENE);
     }
 
     @Override
     public void update(float dt) {
-        if (sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_ENTER)) {
-            sceneManager.switchScene(SceneManager.SceneIdentifier.DUNGEON_SCENE);
+        if (sceneManager.getGameManager().getInputManager().isKeyPressedThisStep(GLFW_KEY_ENTER)) {
+            sceneManager.loadScene(SceneManager.SceneIdentifier.DUNGEON_SCENE);
         }
-        if (sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_ESCAPE)) {
+        if (sceneManager.getGameManager().getInputManager().isKeyPressedThisStep(GLFW_KEY_ESCAPE)) {
             sceneManager.switchScene(SceneManager.SceneIdentifier.MAIN_MENU_SCENE);
         }
+    }
+
+    @Override
+    public void render(RenderCommandQueue renderQueue, float alpha) {
+        renderQueue.recordText(headlineTextRenderer, 295, 230, Color.GREEN, "YOU ESCAPED!");
 
-        headlineTextRenderer.setColor(Color.GREEN);
-        headlineTextRenderer.addStr2D(295, 230, "YOU ESCAPED!");
+        renderQueue.recordText(defaultTextRenderer, 225, 300, Color.WHITE, "You did it! You successfully escaped the dungeon.");
 
-        defaultTextRenderer.setColor(Color.WHITE);
-        defaultTextRenderer.addStr2D(225, 300, "You did it! You successfully escaped the dungeon.");
+        renderQueue.recordText(defaultTextRenderer, 310, 520, Color.WHITE, "Press ENTER to try again better...");
+    }
 
-        defaultTextRenderer.addStr2D(310, 520, "Press ENTER to try again better...");
+    @Override
+    public void deactivate() {
+        sceneManager.getGameManager().getInputManager().setMouseMode(InputManager.MouseMode.INTERACTIVE);
     }
 
     @Override
     public void destroy() {
-        sceneManager.getGameManager().getInputManager().setMouseMode(InputManager.MouseMode.INTERACTIVE);
+        // text renderers are shared, so there is nothing to release
     }
 }
@@ -1,9 +1,9 @@
 package com.lukashornych.mathmare.scene;
 
 import com.lukashornych.mathmare.InputManager;
-import com.lukashornych.mathmare.ui.TextRendererFactory;
+import com.lukashornych.mathmare.render.RenderCommandQueue;
+import com.lukashornych.mathmare.ui.TextRenderer;
 import lombok.Data;
-import lwjglutils.OGLTextRenderer;
 
 import java.awt.*;
 
@@ -20,37 +20,50 @@ public class GameOverScene implements Scene {
 
     private SceneManager sceneManager;
 
-    private OGLTextRenderer defaultTextRenderer;
-    private OGLTextRenderer headlineTextRenderer;
+    private TextRenderer defaultTextRenderer;
+    private TextRenderer headlineTextRenderer;
 
     @Override
     public void init() {
-        defaultTextRenderer = TextRendererFactory.createTextRenderer(sceneManager.getGameManager().getWindow(), 20f);
-        headlineTextRenderer = TextRendererFactory.createTextRenderer(sceneManager.getGameManager().getWindow(), 60f);
+        if (!sceneManager.getGameManager().isHeadless()) {
+            defaultTextRenderer = sceneManager.getGameManager().getTextRendererFactory().getTextRenderer(20f);
+            headlineTextRenderer = sceneManager.getGameManager().getTextRendererFactory().getTextRenderer(60f);
+        }
+    }
 
+    @Override
+    public void activate() {
         sceneManager.getGameManager().getInputManager().setMouseMode(InputManager.MouseMode.FREE_MOVING);
+        // next dungeon is prepared while player reads this scene
+        sceneManager.preload(SceneManager.SceneIdentifier.DUNGEON_SCENE);
     }
 
     @Override
     public void update(float dt) {
-        if (sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_ENTER)) {
-            sceneManager.switchScene(SceneManager.SceneIdentifier.DUNGEON_SCENE);
+        if (sceneManager.getGameManager().getInputManager().isKeyPressedThisStep(GLFW_KEY_ENTER)) {
+            sceneManager.loadScene(SceneManager.SceneIdentifier.DUNGEON_SCENE);
         }
-        if (sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_ESCAPE)) {
+        if (sceneManager.getGameManager().getInputManager().isKeyPressedThisStep(GLFW_KEY_ESCAPE)) {
             sceneManager.switchScene(SceneManager.SceneIdentifier.MAIN_MENU_SCENE);
         }
+    }
+
+    @Override
+    public void render(RenderCommandQueue renderQueue, float alpha) {
+        renderQueue.recordText(headlineTextRenderer, 340, 230, Color.RED, "GAME OVER!");
 
-        headlineTextRenderer.setColor(Color.RED);
-        headlineTextRenderer.addStr2D(340, 230, "GAME OVER!");
+        renderQueue.recordText(defaultTextRenderer, 350, 300, Color.WHITE, "You didn't make it to the exit.");
 
-        defaultTextRenderer.setColor(Color.WHITE);
-        defaultTextRenderer.addStr2D(350, 300, "You didn't make it to the exit.");
+        renderQueue.recordText(defaultTextRenderer, 365, 520, Color.WHITE, "Press ENTER to try again...");
+    }
 
-        defaultTextRenderer.addStr2D(365, 520, "Press ENTER to try again...");
+    @Override
+    public void deactivate() {
+        sceneManager.getGameManager().getInputManager().setMouseMode(InputManager.MouseMode.INTERACTIVE);
     }
 
     @Override
     public void destroy() {
-        sceneManager.getGameManager().getInputManager().setMouseMode(InputManager.MouseMode.INTERACTIVE);
+        // text renderers are shared, so there is nothing to release
     }
 }
@@ -0,0 +1,82 @@
+package com.lukashornych.mathmare.scene;
+
+import com.lukashornych.mathmare.render.RenderCommandQueue;
+import com.lukashornych.mathmare.ui.TextRenderer;
+import lombok.Data;
+
+import java.awt.*;
+
+import static org.lwjgl.glfw.GLFW.GLFW_KEY_ESCAPE;
+
+/**
+ * Scene shown while other scene is being loaded by {@link SceneManager#loadScene(SceneIdentifier)}. It keeps
+ * rendering and handling input while the loaded scene is preloaded on background thread and uploaded by render
+ * thread in time slices, and switches to it once it is loaded.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@Data
+public class LoadingScene implements Scene {
+
+    private static final float INDICATOR_PERIOD = 1.5f;
+    private static final float INDICATOR_TRACK_WIDTH = 300f;
+    private static final float INDICATOR_WIDTH = 60f;
+
+    private SceneManager sceneManager;
+
+    private TextRenderer defaultTextRenderer;
+
+    /**
+     * Time since activation in seconds, drives loading indicator
+     */
+    private float loadingTime;
+
+    @Override
+    public void init() {
+        if (!sceneManager.getGameManager().isHeadless()) {
+            defaultTextRenderer = sceneManager.getGameManager().getTextRendererFactory().getTextRenderer(20f);
+        }
+    }
+
+    @Override
+    public void activate() {
+        loadingTime = 0;
+    }
+
+    @Override
+    public void update(float dt) {
+        loadingTime += dt;
+
+        final SceneManager.SceneIdentifier loadingTarget = sceneManager.getLoadingTarget();
+        if ((loadingTarget == null) || sceneManager.getGameManager().getInputManager().isKeyPressedThisStep(GLFW_KEY_ESCAPE)) {
+            // loaded scene is kept preloaded for later
+            sceneManager.switchScene(SceneManager.SceneIdentifier.MAIN_MENU_SCENE);
+            return;
+        }
+        if (sceneManager.isLoaded(loadingTarget)) {
+            sceneManager.switchScene(loadingTarget);
+        }
+    }
+
+    @Override
+    public void render(RenderCommandQueue renderQueue, float alpha) {
+        final float centerX = sceneManager.getGameManager().getViewportWidth() / 2f;
+        final float centerY = sceneManager.getGameManager().getViewportHeight() / 2f;
+
+        renderQueue.recordText(defaultTextRenderer, (int) centerX - 40, (int) centerY - 20, Color.WHITE, "Loading...");
+
+        // indicator sweeps back and forth along the track
+        final float phase = (loadingTime % INDICATOR_PERIOD) / INDICATOR_PERIOD;
+        final float position = (phase < 0.5f) ? phase * 2f : 2f - phase * 2f;
+        final float trackMinX = centerX - INDICATOR_TRACK_WIDTH / 2f;
+        final float indicatorMinX = trackMinX + position * (INDICATOR_TRACK_WIDTH - INDICATOR_WIDTH);
+
+        renderQueue.recordPanel(trackMinX, centerY, trackMinX + INDICATOR_TRACK_WIDTH, centerY + 6f, 0.2f, 0.2f, 0.2f, 1f);
+        renderQueue.recordPanel(indicatorMinX, centerY, indicatorMinX + INDICATOR_WIDTH, centerY + 6f, 0.64f, 0f, 0f, 1f);
+    }
+
+    @Override
+    public void destroy() {
+        // text renderer is shared, so there is nothing to release
+    }
+}
@@ -1,9 +1,9 @@
 package com.lukashornych.mathmare.scene;
 
 import com.lukashornych.mathmare.InputManager;
-import com.lukashornych.mathmare.ui.TextRendererFactory;
+import com.lukashornych.mathmare.render.RenderCommandQueue;
+import com.lukashornych.mathmare.ui.TextRenderer;
 import lombok.Data;
-import lwjglutils.OGLTextRenderer;
 
 import java.awt.*;
 
@@ -17,48 +17,62 @@ import static org.lwjgl.glfw.GLFW.*;
 @Data
 public class MainMenuScene implements Scene {
 
+    private static final Color SUBTITLE_COLOR = new Color(0xa30000);
+    private static final Color FOOTER_COLOR = new Color(0x333333);
+
     private SceneManager sceneManager;
 
-    private OGLTextRenderer defaultTextRenderer;
-    private OGLTextRenderer headlineTextRenderer;
+    private TextRenderer defaultTextRenderer;
+    private TextRenderer headlineTextRenderer;
 
     @Override
     public void init() {
-        defaultTextRenderer = TextRendererFactory.createTextRenderer(sceneManager.getGameManager().getWindow(), 20f);
-        headlineTextRenderer = TextRendererFactory.createTextRenderer(sceneManager.getGameManager().getWindow(), 80f);
+        if (!sceneManager.getGameManager().isHeadless()) {
+            defaultTextRenderer = sceneManager.getGameManager().getTextRendererFactory().getTextRenderer(20f);
+            headlineTextRenderer = sceneManager.getGameManager().getTextRendererFactory().getTextRenderer(80f);
+        }
+    }
 
+    @Override
+    public void activate() {
         sceneManager.getGameManager().getInputManager().setMouseMode(InputManager.MouseMode.FREE_MOVING);
+        // next dungeon is prepared while player reads this scene
+        sceneManager.preload(SceneManager.SceneIdentifier.DUNGEON_SCENE);
     }
 
     @Override
     public void update(float dt) {
-        if (sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_ENTER)) {
-            sceneManager.switchScene(SceneManager.SceneIdentifier.DUNGEON_SCENE);
+        if (sceneManager.getGameManager().getInputManager().isKeyPressedThisStep(GLFW_KEY_ENTER)) {
+            sceneManager.loadScene(SceneManager.SceneIdentifier.DUNGEON_SCENE);
         }
-        if (sceneManager.getGameManager().getInputManager().isKeyPressed(GLFW_KEY_ESCAPE)) {
-            glfwSetWindowShouldClose(sceneManager.getGameManager().getWindow().getId(), true);
+        if (sceneManager.getGameManager().getInputManager().isKeyPressedThisStep(GLFW_KEY_ESCAPE)) {
+            sceneManager.getGameManager().requestExit();
         }
+    }
 
-        headlineTextRenderer.setColor(Color.RED);
-        headlineTextRenderer.addStr2D(290, 230, "MATHMARE");
+    @Override
+    public void render(RenderCommandQueue renderQueue, float alpha) {
+        renderQueue.recordText(headlineTextRenderer, 290, 230, Color.RED, "MATHMARE");
 
-        defaultTextRenderer.setColor(new Color(0xa30000));
-        defaultTextRenderer.addStr2D(335, 250, "Will you escape the dungeon?");
+        renderQueue.recordText(defaultTextRenderer, 335, 250, SUBTITLE_COLOR, "Will you escape the dungeon?");
 
-        defaultTextRenderer.setColor(Color.WHITE);
-        defaultTextRenderer.addStr2D(385, 370, "Press ENTER to try...");
+        renderQueue.recordText(defaultTextRenderer, 385, 370, Color.WHITE, "Press ENTER to try...");
 
-        defaultTextRenderer.setColor(new Color(0x333333));
-        defaultTextRenderer.addStr2D(20, 540, "Game by Lukas Hornych 2021");
-        defaultTextRenderer.addStr2D(20, 560, "Textures by Jestan");
-        defaultTextRenderer.addStr2D(890, 500, "Controls:");
-        defaultTextRenderer.addStr2D(620, 520, "Use \"F\" to interact with objects");
-        defaultTextRenderer.addStr2D(640, 540, "Use \"ENTER\" to confirm actions");
-        defaultTextRenderer.addStr2D(640, 560, "Use \"KEYPAD\" to enter numbers");
+        renderQueue.recordText(defaultTextRenderer, 20, 540, FOOTER_COLOR, "Game by Lukas Hornych 2021");
+        renderQueue.recordText(defaultTextRenderer, 20, 560, FOOTER_COLOR, "Textures by Jestan");
+        renderQueue.recordText(defaultTextRenderer, 890, 500, FOOTER_COLOR, "Controls:");
+        renderQueue.recordText(defaultTextRenderer, 620, 520, FOOTER_COLOR, "Use \"F\" to interact with objects");
+        renderQueue.recordText(defaultTextRenderer, 640, 540, FOOTER_COLOR, "Use \"ENTER\" to confirm actions");
+        renderQueue.recordText(defaultTextRenderer, 640, 560, FOOTER_COLOR, "Use \"KEYPAD\" to enter numbers");
     }
 
     @Override
-    public void destroy() {
+    public void deactivate() {
         sceneManager.getGameManager().getInputManager().setMouseMode(InputManager.MouseMode.INTERACTIVE);
     }
+
+    @Override
+    public void destroy() {
+        // text renderers are shared, so there is nothing to release
+    }
 }
@@ -1,7 +1,17 @@
 package com.lukashornych.mathmare.scene;
 
+import com.lukashornych.mathmare.render.RenderCommandQueue;
+
 /**
- * Represents single game scene
+ * Represents single game scene. Lifecycle of scene is:
+ * <ol>
+ *     <li>{@link #preload()} - preparing of data without OpenGL, possibly on background thread ahead of switch</li>
+ *     <li>{@link #upload(long)} - upload of prepared data to GPU on render thread, possibly spread over several frames</li>
+ *     <li>{@link #init()} - one time initialization on render thread</li>
+ *     <li>{@link #activate()}, updates and renders, {@link #deactivate()} - every time the scene is current scene</li>
+ *     <li>{@link #destroy()} - when leaving non-reusable scene or at the end of game</li>
+ * </ol>
+ * Reusable scenes are kept initialized in pool of {@link SceneManager} between activations.
  *
  * @author Lukáš Hornych
  */
@@ -15,17 +25,64 @@ public interface Scene {
     void setSceneManager(SceneManager sceneManager);
 
     /**
-     * Initializes the scene
+     * Prepares everything what does not need OpenGL, e.g. generates data. Can be called on background thread, so it
+     * must not touch shared game state.
+     */
+    default void preload() {
+    }
+
+    /**
+     * Uploads data prepared by {@link #preload()} to GPU in parts, so that upload of large scene does not stall
+     * frames. Called on render thread repeatedly until it returns true, once it returns true, further calls must do
+     * nothing and return true again. Not called in headless game.
+     *
+     * @param deadlineNanos {@link System#nanoTime()} after which the call should return
+     * @return true if everything is uploaded
+     */
+    default boolean upload(long deadlineNanos) {
+        return true;
+    }
+
+    /**
+     * Initializes the scene. Called once on render thread after {@link #preload()} and {@link #upload(long)}.
      */
     void init();
 
     /**
-     * Scene update
+     * Called every time the scene becomes current scene
+     */
+    default void activate() {
+    }
+
+    /**
+     * Called every time other scene becomes current scene
+     */
+    default void deactivate() {
+    }
+
+    /**
+     * @return true if scene can be deactivated and activated again, non-reusable scenes are destroyed when left
+     */
+    default boolean isReusable() {
+        return true;
+    }
+
+    /**
+     * Scene update. Updates scene state by input and elapsed time, must not render anything. Called with fixed time
+     * step, possibly several times per rendered frame.
      *
-     * @param dt time delta from previous render
+     * @param dt fixed simulation step in seconds
      */
     void update(float dt);
 
+    /**
+     * Records everything what should be drawn from current scene state.
+     *
+     * @param renderQueue queue to record draw commands to
+     * @param alpha how far is rendered frame between previous and current simulation step, from 0 to 1
+     */
+    void render(RenderCommandQueue renderQueue, float alpha);
+
     /**
      * Destroys the scene.
      */
@@ -1,14 +1,32 @@
 package com.lukashornych.mathmare.scene;
 
 import com.lukashornych.mathmare.GameManager;
+import com.lukashornych.mathmare.RenderThreadExecutor;
+import com.lukashornych.mathmare.diagnostics.SceneSwitchEvent;
+import com.lukashornych.mathmare.render.RenderCommandQueue;
 import lombok.*;
 
+import java.util.EnumMap;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Supplier;
 
 /**
  * Manages all existing {@link Scene}s in game like switching between them and so on.
  *
+ * Scenes are created by factories registered for each {@link SceneIdentifier}. Reusable scenes are kept initialized in
+ * pool after they are left, so switching back to them is cheap. Scenes can be also created and preloaded ahead of
+ * switch on background thread by {@link #preload(SceneIdentifier)}, GPU data of preloaded scenes are then uploaded by
+ * render thread in time slices of every frame.
+ *
+ * Switch by {@link #loadScene(SceneIdentifier)} shows {@link LoadingScene} until the new scene is preloaded and
+ * uploaded, so the window stays responsive even when scene takes long time to load.
+ *
  * @see com.lukashornych.mathmare.GameManager
  * @author Lukáš Hornych
  */
@@ -23,21 +41,55 @@ public class SceneManager {
      * Current active scene
      */
     protected Scene currentScene;
+    protected SceneIdentifier currentSceneIdentifier;
+    /**
+     * Scene requested by {@link #switchScene(SceneIdentifier)} and not switched to yet
+     */
+    protected SceneIdentifier pendingScene;
+    /**
+     * Scene being loaded while {@link LoadingScene} is shown
+     */
+    protected SceneIdentifier loadingTarget;
 
     /**
      * Scenes context. Can be used freely by any scene to pass data between several scenes.
      */
     protected Map<String, Object> context;
 
+    @Getter(AccessLevel.NONE) @ToString.Exclude @EqualsAndHashCode.Exclude
+    private final Map<SceneIdentifier, Supplier<Scene>> sceneFactories = new EnumMap<>(SceneIdentifier.class);
+    /**
+     * Initialized but inactive reusable scenes
+     */
+    @Getter(AccessLevel.NONE) @ToString.Exclude @EqualsAndHashCode.Exclude
+    private final Map<SceneIdentifier, Scene> scenePool = new EnumMap<>(SceneIdentifier.class);
+    /**
+     * Scenes being preloaded on background thread and uploaded on render thread, not initialized yet
+     */
+    @Getter(AccessLevel.NONE) @ToString.Exclude @EqualsAndHashCode.Exclude
+    private final Map<SceneIdentifier, ScenePreload> preloadingScenes = new EnumMap<>(SceneIdentifier.class);
+    /**
+     * Created lazily by first preload
+     */
+    @Getter(AccessLevel.NONE) @ToString.Exclude @EqualsAndHashCode.Exclude
+    private ExecutorService preloadExecutor;
+
 
     /**
-     * Creates uninitialized manager. The {@link #init()} must be called before using
+     * Creates uninitialized manager with factories of all game scenes. The {@link #init()} must be called before using
      *
      * @param gameManager game manager instance
      */
     public SceneManager(@NonNull GameManager gameManager) {
         this.gameManager = gameManager;
         this.context = new HashMap<>();
+
+        registerScene(SceneIdentifier.MAIN_MENU_SCENE, MainMenuScene::new);
+        // maze seed is taken when scene is created, so that sequence of mazes does not depend on preloading timing
+        registerScene(SceneIdentifier.DUNGEON_SCENE, () -> new DungeonScene(gameManager.getSessionRandom().nextLong()));
+        registerScene(SceneIdentifier.ESCAPED_SCENE, EscapedScene::new);
+        registerScene(SceneIdentifier.GAME_OVER_SCENE, GameOverScene::new);
+        registerScene(SceneIdentifier.LOADING_SCENE, LoadingScene::new);
     }
 
     /**
@@ -45,33 +97,131 @@ public class SceneManager {
      */
     public void init() {
         switchScene(SceneIdentifier.MAIN_MENU_SCENE);
+        applyPendingSceneSwitch();
+    }
+
+    /**
+     * Registers factory of scene, replacing previous factory of same scene. Already pooled scenes are not affected.
+     *
+     * @param identifier identifier of scene
+     * @param factory factory creating new uninitialized instances of scene
+     */
+    public void registerScene(@NonNull SceneIdentifier identifier, @NonNull Supplier<Scene> factory) {
+        sceneFactories.put(identifier, factory);
     }
 
     /**
-     * Switching current scene to new one
+     * Requests switching current scene to new one. The switch is not performed immediately, because scenes must be
+     * initialized and destroyed on render thread, but after current simulation step by
+     * {@link #applyPendingSceneSwitch()}. If several switches are requested, the last one wins.
      *
      * @param newScene identifier of new scene
      */
     public void switchScene(@NonNull SceneIdentifier newScene) {
+        pendingScene = newScene;
+    }
+
+    /**
+     * Requests switching current scene to new one, which may take long time to load. If the scene is not loaded yet,
+     * {@link LoadingScene} is shown while it is preloaded and uploaded and it switches to the scene afterwards.
+     *
+     * When session must be reproducible (headless game, recorded or replayed input), switch is performed directly and
+     * waits for the scene to load instead, because number of simulation steps spent in loading scene depends on
+     * timing.
+     *
+     * @param newScene identifier of new scene
+     */
+    public void loadScene(@NonNull SceneIdentifier newScene) {
+        if (gameManager.isReproducible() || isLoaded(newScene)) {
+            switchScene(newScene);
+            return;
+        }
+
+        preload(newScene);
+        loadingTarget = newScene;
+        switchScene(SceneIdentifier.LOADING_SCENE);
+    }
+
+    /**
+     * Starts preloading of scene on background thread, so that later switch to it only initializes it. Preloaded
+     * scene is then uploaded on render thread in time slices of following frames. Does nothing if the scene is
+     * already pooled or being preloaded. Must be called from game logic, i.e. simulation thread or scene lifecycle
+     * methods.
+     *
+     * @param identifier identifier of scene to preload
+     */
+    public void preload(@NonNull SceneIdentifier identifier) {
+        if (scenePool.containsKey(identifier) || preloadingScenes.containsKey(identifier)) {
+            return;
+        }
+
+        final Scene scene = createScene(identifier);
+        final CompletableFuture<Void> preloaded = CompletableFuture.runAsync(scene::preload, getPreloadExecutor());
+        // there is nothing to upload in headless game
+        final RenderThreadExecutor renderThreadExecutor = gameManager.isHeadless() ? null : gameManager.getRenderThreadExecutor();
+        preloadingScenes.put(identifier, new ScenePreload(scene, preloaded, renderThreadExecutor));
+    }
+
+    /**
+     * @param identifier identifier of scene
+     * @return true if switch to the scene only activates or initializes it, i.e. the scene is pooled or preloaded and
+     *         uploaded (or failed to load)
+     */
+    public boolean isLoaded(@NonNull SceneIdentifier identifier) {
+        if (scenePool.containsKey(identifier)) {
+            return true;
+        }
+        final ScenePreload preload = preloadingScenes.get(identifier);
+        return (preload != null) && preload.loaded.isDone();
+    }
+
+    /**
+     * @return true if scene switch has been requested and not performed yet
+     */
+    public boolean hasPendingSceneSwitch() {
+        return pendingScene != null;
+    }
+
+    /**
+     * Performs requested scene switch. Deactivates current scene and activates new one, which is taken from pool,
+     * from preloaded scenes or created if there is none. Must be called from render thread while simulation is not
+     * running.
+     */
+    public void applyPendingSceneSwitch() {
+        if (pendingScene == null) {
+            return;
+        }
+        final SceneIdentifier newScene = pendingScene;
+        pendingScene = null;
+
+        final SceneSwitchEvent event = new SceneSwitchEvent();
+        event.begin();
+
+        final SceneIdentifier previousScene = currentSceneIdentifier;
         if (currentScene != null) {
-            currentScene.destroy();
+            currentScene.deactivate();
+            if (currentScene.isReusable()) {
+                scenePool.put(currentSceneIdentifier, currentScene);
+            } else {
+                currentScene.destroy();
+            }
         }
 
-        gameManager.getInputManager().resetKeyStates();
+        currentScene = obtainScene(newScene);
+        currentSceneIdentifier = newScene;
+        currentScene.activate();
 
-        try {
-            currentScene = newScene.getSceneClass().getConstructor().newInstance();
-        } catch (Exception e) {
-            throw new RuntimeException("Could not instantiate scene " + newScene.name());
+        if (event.shouldCommit()) {
+            event.previousScene = (previousScene != null) ? previousScene.name() : null;
+            event.newScene = newScene.name();
+            event.commit();
         }
-        currentScene.setSceneManager(this);
-        currentScene.init();
     }
 
     /**
      * Updates current scene
      *
-     * @param dt delta time from previous render
+     * @param dt fixed simulation step in seconds
      */
     public void update(float dt) {
         if (currentScene == null) {
@@ -81,18 +231,165 @@ public class SceneManager {
         currentScene.update(dt);
     }
 
+    /**
+     * Records draw commands of current scene
+     *
+     * @param renderQueue queue to record draw commands to
+     * @param alpha how far is rendered frame between previous and current simulation step
+     */
+    public void render(@NonNull RenderCommandQueue renderQueue, float alpha) {
+        if (currentScene == null) {
+            return;
+        }
+
+        currentScene.render(renderQueue, alpha);
+    }
+
+    /**
+     * Destroys current and all pooled scenes and stops preloading. Must be called from render thread.
+     */
+    public void destroy() {
+        if (currentScene != null) {
+            currentScene.deactivate();
+            currentScene.destroy();
+            currentScene = null;
+            currentSceneIdentifier = null;
+        }
+        scenePool.values().forEach(Scene::destroy);
+        scenePool.clear();
+
+        // preloaded scenes are not initialized, but may be partially or fully uploaded to GPU
+        preloadingScenes.values().forEach(preload -> {
+            preload.preloaded.cancel(false);
+            preload.cancelUpload();
+            if (preload.preloaded.isDone() && !preload.preloaded.isCompletedExceptionally()) {
+                preload.scene.destroy();
+            }
+        });
+        preloadingScenes.clear();
+        if (preloadExecutor != null) {
+            preloadExecutor.shutdownNow();
+            preloadExecutor = null;
+        }
+    }
+
+
+    private Scene createScene(SceneIdentifier identifier) {
+        final Supplier<Scene> factory = sceneFactories.get(identifier);
+        if (factory == null) {
+            throw new IllegalStateException("No factory registered for scene " + identifier.name() + ".");
+        }
+
+        final Scene scene = factory.get();
+        scene.setSceneManager(this);
+        return scene;
+    }
+
+    private Scene obtainScene(SceneIdentifier identifier) {
+        final Scene pooledScene = scenePool.remove(identifier);
+        if (pooledScene != null) {
+            return pooledScene;
+        }
+
+        final Scene scene;
+        final ScenePreload preload = preloadingScenes.remove(identifier);
+        if (preload != null) {
+            scene = preload.scene;
+            try {
+                preload.preloaded.join();
+                if (preload.loaded.isCompletedExceptionally()) {
+                    preload.loaded.join();
+                }
+            } catch (CompletionException e) {
+                throw new RuntimeException("Could not preload scene " + identifier.name(), e.getCause());
+            }
+            // scheduled upload is cancelled, rest of upload is finished right now instead of in following frames
+            preload.cancelUpload();
+        } else {
+            scene = createScene(identifier);
+            scene.preload();
+        }
+        if (!gameManager.isHeadless()) {
+            while (!scene.upload(Long.MAX_VALUE)) {
+                // every call makes progress
+            }
+        }
+
+        scene.init();
+        return scene;
+    }
+
+    private ExecutorService getPreloadExecutor() {
+        if (preloadExecutor == null) {
+            preloadExecutor = Executors.newSingleThreadExecutor(runnable -> {
+                final Thread thread = new Thread(runnable, "scene-preloader");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return preloadExecutor;
+    }
+
 
     /**
      * List of all available scene in game
      */
-    @RequiredArgsConstructor
     public enum SceneIdentifier {
-        MAIN_MENU_SCENE(MainMenuScene.class),
-        DUNGEON_SCENE(DungeonScene.class),
-        ESCAPED_SCENE(EscapedScene.class),
-        GAME_OVER_SCENE(GameOverScene.class);
+        MAIN_MENU_SCENE,
+        DUNGEON_SCENE,
+        ESCAPED_SCENE,
+        GAME_OVER_SCENE,
+        LOADING_SCENE
+    }
+
+    /**
+     * Scene being preloaded together with progress of its preloading
+     */
+    private static class ScenePreload {
+        private final Scene scene;
+        /**
+         * Completed when scene is preloaded by background thread
+         */
+        private final CompletableFuture<Void> preloaded;
+        /**
+         * Completed when scene is also uploaded by render thread
+         */
+        private final CompletableFuture<Void> loaded;
 
-        @Getter(AccessLevel.PRIVATE)
-        private final Class<? extends Scene> sceneClass;
+        /**
+         * Time sliced upload scheduled after preload, guarded by the preload
+         */
+        private CompletableFuture<Void> upload;
+        private boolean uploadCancelled = false;
+
+        /**
+         * @param renderThreadExecutor executor to upload preloaded scene by, null if scene is not uploaded
+         */
+        private ScenePreload(Scene scene, CompletableFuture<Void> preloaded, RenderThreadExecutor renderThreadExecutor) {
+            this.scene = scene;
+            this.preloaded = preloaded;
+            this.loaded = (renderThreadExecutor != null)
+                    ? preloaded.thenCompose(ignored -> scheduleUpload(renderThreadExecutor))
+                    : preloaded;
+        }
+
+        /**
+         * Removes scheduled upload from render thread, so that the scene is no longer uploaded in following frames.
+         * Upload scheduled later is cancelled right away.
+         */
+        private synchronized void cancelUpload() {
+            uploadCancelled = true;
+            if (upload != null) {
+                upload.cancel(false);
+            }
+        }
+
+        private synchronized CompletableFuture<Void> scheduleUpload(RenderThreadExecutor renderThreadExecutor) {
+            if (uploadCancelled) {
+                return CompletableFuture.failedFuture(new CancellationException());
+            }
+            upload = renderThreadExecutor.submitTimeSliced(scene::upload);
+            return upload;
+        }
     }
 }
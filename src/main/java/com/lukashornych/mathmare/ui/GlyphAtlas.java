@@ -0,0 +1,158 @@
+package com.lukashornych.mathmare.ui;
+
+import lombok.NonNull;
+import lombok.ToString;
+import org.lwjgl.BufferUtils;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+
+import static org.lwjgl.opengl.GL11.*;
+
+/**
+ * Single texture holding pre-rasterized glyphs of all fonts used by UI. Glyphs are stored as alpha coverage only,
+ * color is given by vertex color when drawing. Top left corner of atlas is fully opaque block so that solid
+ * colored quads can be drawn from the same texture.
+ *
+ * @see GlyphSet
+ * @author Lukáš Hornych 2021
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class GlyphAtlas {
+
+    public static final int ATLAS_SIZE = 2048;
+
+    static final char FIRST_GLYPH = ' ';
+    static final char LAST_GLYPH = '~';
+
+    private static final int GLYPH_PADDING = 1;
+    private static final int SOLID_BLOCK_SIZE = 4;
+
+    /**
+     * Atlas coordinates of center of opaque block
+     */
+    public static final float SOLID_U = (SOLID_BLOCK_SIZE / 2f) / ATLAS_SIZE;
+    public static final float SOLID_V = (SOLID_BLOCK_SIZE / 2f) / ATLAS_SIZE;
+
+    /**
+     * Alpha coverage of whole atlas
+     */
+    private final ByteBuffer pixels = BufferUtils.createByteBuffer(ATLAS_SIZE * ATLAS_SIZE);
+    /**
+     * First atlas row not occupied by any glyph set
+     */
+    @ToString.Include
+    private int nextFreeRow = SOLID_BLOCK_SIZE + GLYPH_PADDING;
+    private boolean dirty = true;
+
+    private int textureId = 0;
+
+    public GlyphAtlas() {
+        for (int y = 0; y < SOLID_BLOCK_SIZE; y++) {
+            for (int x = 0; x < SOLID_BLOCK_SIZE; x++) {
+                pixels.put(y * ATLAS_SIZE + x, (byte) 0xFF);
+            }
+        }
+    }
+
+    /**
+     * Rasterizes all printable ASCII glyphs of font into the atlas
+     *
+     * @param font font of glyphs
+     * @return glyph set describing where glyphs are placed in atlas
+     */
+    public GlyphSet addFont(@NonNull Font font) {
+        final FontMetrics metrics = createGraphics(new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB), font).getFontMetrics();
+        final int ascent = metrics.getAscent();
+        final int rowHeight = ascent + metrics.getDescent() + GLYPH_PADDING;
+
+        // find position of each glyph row by row
+        final int glyphsCount = LAST_GLYPH - FIRST_GLYPH + 1;
+        final int[] glyphX = new int[glyphsCount];
+        final int[] glyphY = new int[glyphsCount];
+        final int[] glyphWidth = new int[glyphsCount];
+        int cursorX = 0;
+        int cursorY = 0;
+        for (int i = 0; i < glyphsCount; i++) {
+            glyphWidth[i] = metrics.charWidth((char) (FIRST_GLYPH + i));
+            if (cursorX + glyphWidth[i] + GLYPH_PADDING > ATLAS_SIZE) {
+                cursorX = 0;
+                cursorY += rowHeight;
+            }
+            glyphX[i] = cursorX;
+            glyphY[i] = cursorY;
+            cursorX += glyphWidth[i] + GLYPH_PADDING;
+        }
+        final int setHeight = cursorY + rowHeight;
+        if (nextFreeRow + setHeight > ATLAS_SIZE) {
+            throw new IllegalStateException("Glyph atlas is full, cannot add font of size " + font.getSize2D() + ".");
+        }
+
+        final BufferedImage image = new BufferedImage(ATLAS_SIZE, setHeight, BufferedImage.TYPE_INT_ARGB);
+        final Graphics2D graphics = createGraphics(image, font);
+        final float[] u0 = new float[glyphsCount];
+        final float[] v0 = new float[glyphsCount];
+        final float[] u1 = new float[glyphsCount];
+        final float[] v1 = new float[glyphsCount];
+        for (int i = 0; i < glyphsCount; i++) {
+            graphics.drawString(String.valueOf((char) (FIRST_GLYPH + i)), glyphX[i], glyphY[i] + ascent);
+
+            u0[i] = glyphX[i] / (float) ATLAS_SIZE;
+            v0[i] = (nextFreeRow + glyphY[i]) / (float) ATLAS_SIZE;
+            u1[i] = (glyphX[i] + glyphWidth[i]) / (float) ATLAS_SIZE;
+            v1[i] = (nextFreeRow + glyphY[i] + rowHeight - GLYPH_PADDING) / (float) ATLAS_SIZE;
+        }
+        graphics.dispose();
+
+        for (int y = 0; y < setHeight; y++) {
+            for (int x = 0; x < ATLAS_SIZE; x++) {
+                pixels.put((nextFreeRow + y) * ATLAS_SIZE + x, (byte) (image.getRGB(x, y) >>> 24));
+            }
+        }
+        nextFreeRow += setHeight;
+        dirty = true;
+
+        return new GlyphSet(u0, v0, u1, v1, glyphWidth, ascent, metrics.getDescent());
+    }
+
+    /**
+     * Returns OpenGL texture of atlas, uploads glyphs added since last call. Must be called from thread owning
+     * OpenGL context.
+     *
+     * @return texture id
+     */
+    public int getTextureId() {
+        if (textureId == 0) {
+            textureId = glGenTextures();
+        }
+        if (dirty) {
+            glBindTexture(GL_TEXTURE_2D, textureId);
+            glPixelStorei(GL_UNPACK_ALIGNMENT, 1);
+            glTexImage2D(GL_TEXTURE_2D, 0, GL_ALPHA8, ATLAS_SIZE, ATLAS_SIZE, 0, GL_ALPHA, GL_UNSIGNED_BYTE, pixels);
+            glPixelStorei(GL_UNPACK_ALIGNMENT, 4);
+            dirty = false;
+        }
+
+        return textureId;
+    }
+
+    /**
+     * Deletes atlas texture
+     */
+    public void destroy() {
+        if (textureId != 0) {
+            glDeleteTextures(textureId);
+            textureId = 0;
+            dirty = true;
+        }
+    }
+
+    private Graphics2D createGraphics(BufferedImage image, Font font) {
+        final Graphics2D graphics = image.createGraphics();
+        graphics.setFont(font);
+        graphics.setColor(Color.WHITE);
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        return graphics;
+    }
+}
@@ -0,0 +1,69 @@
+package com.lukashornych.mathmare.ui;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.RequiredArgsConstructor;
+import lombok.ToString;
+
+/**
+ * Metrics and atlas placement of glyphs of single font rasterized in {@link GlyphAtlas}.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@RequiredArgsConstructor
+@ToString(onlyExplicitlyIncluded = true)
+public class GlyphSet {
+
+    private static final char MISSING_GLYPH = '?';
+
+    private final float[] u0;
+    private final float[] v0;
+    private final float[] u1;
+    private final float[] v1;
+    private final int[] advances;
+
+    @Getter @ToString.Include
+    private final int ascent;
+    @Getter @ToString.Include
+    private final int descent;
+
+    /**
+     * Lays out glyphs of single line of text relative to its baseline origin
+     *
+     * @param text text to lay out
+     * @return new layout
+     */
+    public TextLayout layout(@NonNull String text) {
+        final float[] quads = new float[text.length() * TextLayout.FLOATS_PER_GLYPH];
+        int glyphsCount = 0;
+        int penX = 0;
+        for (int i = 0; i < text.length(); i++) {
+            final int glyph = glyphIndex(text.charAt(i));
+
+            // whitespace only moves pen
+            if (text.charAt(i) != ' ') {
+                final int offset = glyphsCount * TextLayout.FLOATS_PER_GLYPH;
+                quads[offset] = penX;
+                quads[offset + 1] = -ascent;
+                quads[offset + 2] = penX + advances[glyph];
+                quads[offset + 3] = descent;
+                quads[offset + 4] = u0[glyph];
+                quads[offset + 5] = v0[glyph];
+                quads[offset + 6] = u1[glyph];
+                quads[offset + 7] = v1[glyph];
+                glyphsCount++;
+            }
+
+            penX += advances[glyph];
+        }
+
+        return new TextLayout(quads, glyphsCount, penX);
+    }
+
+    private int glyphIndex(char character) {
+        if ((character < GlyphAtlas.FIRST_GLYPH) || (character > GlyphAtlas.LAST_GLYPH)) {
+            return MISSING_GLYPH - GlyphAtlas.FIRST_GLYPH;
+        }
+        return character - GlyphAtlas.FIRST_GLYPH;
+    }
+}
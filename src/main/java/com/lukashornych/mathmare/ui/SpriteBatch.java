@@ -0,0 +1,181 @@
+package com.lukashornych.mathmare.ui;
+
+import com.lukashornych.mathmare.Window;
+import com.lukashornych.mathmare.render.GLStateCache;
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+import org.lwjgl.BufferUtils;
+
+import java.nio.FloatBuffer;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+
+/**
+ * Collects colored quads (text glyphs, panels, bars...) textured from {@link GlyphAtlas} in window pixel coordinates
+ * and draws all of them by single draw call from streamed vertex buffer with orthographic projection. Quads are drawn
+ * in order in which they were added.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class SpriteBatch {
+
+    private static final int MAX_QUADS = 4096;
+    /**
+     * Vertex layout is {@code x, y, u, v, r, g, b, a}
+     */
+    private static final int FLOATS_PER_VERTEX = 8;
+    private static final int VERTEX_STRIDE = FLOATS_PER_VERTEX * Float.BYTES;
+
+    private final Window window;
+    private final GLStateCache glStateCache;
+
+    @Getter
+    private final GlyphAtlas atlas = new GlyphAtlas();
+
+    private final FloatBuffer vertices = BufferUtils.createFloatBuffer(MAX_QUADS * 4 * FLOATS_PER_VERTEX);
+    private int quadsCount = 0;
+    private int vboId = 0;
+
+    /**
+     * Number of draw calls issued since last {@link #resetStatistics()}
+     */
+    @Getter @ToString.Include
+    private int drawCallsCount = 0;
+
+    /**
+     * Creates empty batch. The {@link #init()} must be called before using.
+     *
+     * @param window window to which the quads are drawn
+     * @param glStateCache cache to bind objects through
+     */
+    public SpriteBatch(@NonNull Window window, @NonNull GLStateCache glStateCache) {
+        this.window = window;
+        this.glStateCache = glStateCache;
+    }
+
+    /**
+     * Creates vertex buffer of batch
+     */
+    public void init() {
+        vboId = glGenBuffers();
+    }
+
+    /**
+     * Deletes all OpenGL objects of batch
+     */
+    public void destroy() {
+        glDeleteBuffers(vboId);
+        atlas.destroy();
+    }
+
+    /**
+     * Adds single quad to batch
+     */
+    public void drawQuad(float x0, float y0, float x1, float y1,
+                         float u0, float v0, float u1, float v1,
+                         float red, float green, float blue, float alpha) {
+        if (quadsCount == MAX_QUADS) {
+            flush();
+        }
+
+        putVertex(x0, y0, u0, v0, red, green, blue, alpha);
+        putVertex(x1, y0, u1, v0, red, green, blue, alpha);
+        putVertex(x1, y1, u1, v1, red, green, blue, alpha);
+        putVertex(x0, y1, u0, v1, red, green, blue, alpha);
+        quadsCount++;
+    }
+
+    /**
+     * Adds solid colored rectangle to batch
+     */
+    public void drawRectangle(float x0, float y0, float x1, float y1, float red, float green, float blue, float alpha) {
+        drawQuad(
+                x0, y0, x1, y1,
+                GlyphAtlas.SOLID_U, GlyphAtlas.SOLID_V, GlyphAtlas.SOLID_U, GlyphAtlas.SOLID_V,
+                red, green, blue, alpha
+        );
+    }
+
+    /**
+     * Adds all glyphs of laid out text to batch
+     *
+     * @param layout laid out text
+     * @param x window x of text origin
+     * @param y window y of text baseline
+     */
+    public void drawLayout(@NonNull TextLayout layout, float x, float y, float red, float green, float blue, float alpha) {
+        final float[] quads = layout.getQuads();
+        for (int i = 0; i < layout.getGlyphsCount(); i++) {
+            final int offset = i * TextLayout.FLOATS_PER_GLYPH;
+            drawQuad(
+                    x + quads[offset], y + quads[offset + 1], x + quads[offset + 2], y + quads[offset + 3],
+                    quads[offset + 4], quads[offset + 5], quads[offset + 6], quads[offset + 7],
+                    red, green, blue, alpha
+            );
+        }
+    }
+
+    /**
+     * Draws all collected quads by single draw call and empties the batch
+     */
+    public void flush() {
+        if (quadsCount == 0) {
+            return;
+        }
+
+        glPushAttrib(GL_ENABLE_BIT | GL_COLOR_BUFFER_BIT | GL_TRANSFORM_BIT);
+        glDisable(GL_DEPTH_TEST);
+        glDisable(GL_CULL_FACE);
+        glEnable(GL_TEXTURE_2D);
+        glEnable(GL_BLEND);
+        glBlendFunc(GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA);
+
+        glMatrixMode(GL_PROJECTION);
+        glLoadIdentity();
+        glOrtho(0, window.getWidth(), window.getHeight(), 0, -1, 1);
+        glMatrixMode(GL_MODELVIEW);
+        glLoadIdentity();
+
+        glStateCache.bindVertexArray(0);
+        glStateCache.bindTexture(atlas.getTextureId(), GL_NEAREST);
+
+        vertices.flip();
+        glBindBuffer(GL_ARRAY_BUFFER, vboId);
+        // whole buffer is respecified every flush, so driver can orphan the old one instead of waiting for it
+        glBufferData(GL_ARRAY_BUFFER, vertices, GL_STREAM_DRAW);
+
+        glEnableClientState(GL_VERTEX_ARRAY);
+        glEnableClientState(GL_TEXTURE_COORD_ARRAY);
+        glEnableClientState(GL_COLOR_ARRAY);
+        glVertexPointer(2, GL_FLOAT, VERTEX_STRIDE, 0);
+        glTexCoordPointer(2, GL_FLOAT, VERTEX_STRIDE, 2 * Float.BYTES);
+        glColorPointer(4, GL_FLOAT, VERTEX_STRIDE, 4 * Float.BYTES);
+
+        glDrawArrays(GL_QUADS, 0, quadsCount * 4);
+        drawCallsCount++;
+
+        glDisableClientState(GL_VERTEX_ARRAY);
+        glDisableClientState(GL_TEXTURE_COORD_ARRAY);
+        glDisableClientState(GL_COLOR_ARRAY);
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+
+        glPopAttrib();
+
+        vertices.clear();
+        quadsCount = 0;
+    }
+
+    /**
+     * Resets draw calls counter
+     */
+    public void resetStatistics() {
+        drawCallsCount = 0;
+    }
+
+    private void putVertex(float x, float y, float u, float v, float red, float green, float blue, float alpha) {
+        vertices.put(x).put(y).put(u).put(v).put(red).put(green).put(blue).put(alpha);
+    }
+}
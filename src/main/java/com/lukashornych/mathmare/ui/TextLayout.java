@@ -0,0 +1,23 @@
+package com.lukashornych.mathmare.ui;
+
+import lombok.Data;
+
+/**
+ * Positioned glyph quads of single line of text, built once and drawn any number of times.
+ *
+ * @see GlyphSet#layout(String)
+ * @author Lukáš Hornych 2021
+ */
+@Data
+public class TextLayout {
+
+    /**
+     * Each glyph is stored as its quad corners relative to baseline origin followed by its atlas coordinates:
+     * {@code x0, y0, x1, y1, u0, v0, u1, v1}
+     */
+    public static final int FLOATS_PER_GLYPH = 8;
+
+    private final float[] quads;
+    private final int glyphsCount;
+    private final int width;
+}
@@ -0,0 +1,95 @@
+package com.lukashornych.mathmare.ui;
+
+import lombok.Getter;
+import lombok.NonNull;
+import lombok.ToString;
+
+import java.awt.*;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Renders text of single font by adding its glyphs to shared {@link SpriteBatch}. Layouts of recently drawn strings
+ * are cached, so drawing unchanged string again costs only copying of its glyph quads.
+ *
+ * @see TextRendererFactory
+ * @author Lukáš Hornych 2021
+ */
+@ToString(onlyExplicitlyIncluded = true)
+public class TextRenderer {
+
+    private static final int LAYOUT_CACHE_SIZE = 64;
+
+    private final SpriteBatch spriteBatch;
+    @Getter @ToString.Include
+    private final GlyphSet glyphSet;
+
+    /**
+     * Least recently used layouts are evicted when cache is full
+     */
+    private final Map<String, TextLayout> layoutCache = new LinkedHashMap<>(LAYOUT_CACHE_SIZE, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, TextLayout> eldest) {
+            return size() > LAYOUT_CACHE_SIZE;
+        }
+    };
+
+    private float red = 1f;
+    private float green = 1f;
+    private float blue = 1f;
+    private float alpha = 1f;
+
+    public TextRenderer(@NonNull SpriteBatch spriteBatch, @NonNull GlyphSet glyphSet) {
+        this.spriteBatch = spriteBatch;
+        this.glyphSet = glyphSet;
+    }
+
+    /**
+     * Sets color of following text
+     *
+     * @param color new color
+     */
+    public void setColor(@NonNull Color color) {
+        red = color.getRed() / 255f;
+        green = color.getGreen() / 255f;
+        blue = color.getBlue() / 255f;
+        alpha = color.getAlpha() / 255f;
+    }
+
+    /**
+     * Adds text to sprite batch. The text is actually drawn when batch is flushed.
+     *
+     * @param x window x of text
+     * @param y window y of text baseline
+     * @param text text to draw
+     */
+    public void addStr2D(int x, int y, @NonNull String text) {
+        spriteBatch.drawLayout(getLayout(text), x, y, red, green, blue, alpha);
+    }
+
+    /**
+     * Adds text already laid out by glyphs of this renderer to sprite batch
+     *
+     * @param x window x of text
+     * @param y window y of text baseline
+     * @param layout layout of text built by {@link #getGlyphSet()}
+     */
+    public void addLayout2D(int x, int y, @NonNull TextLayout layout) {
+        spriteBatch.drawLayout(layout, x, y, red, green, blue, alpha);
+    }
+
+    /**
+     * Returns cached layout of text, lays the text out if not cached
+     *
+     * @param text text to lay out
+     * @return layout of text
+     */
+    public TextLayout getLayout(@NonNull String text) {
+        TextLayout layout = layoutCache.get(text);
+        if (layout == null) {
+            layout = glyphSet.layout(text);
+            layoutCache.put(text, layout);
+        }
+        return layout;
+    }
+}
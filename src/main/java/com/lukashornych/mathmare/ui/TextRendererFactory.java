@@ -1,13 +1,14 @@
 package com.lukashornych.mathmare.ui;
 
-import com.lukashornych.mathmare.Window;
 import lombok.NonNull;
-import lwjglutils.OGLTextRenderer;
 
 import java.awt.*;
+import java.util.HashMap;
+import java.util.Map;
 
 /**
- * Handles easy creating of text renderers
+ * Handles easy creating of text renderers. Base font, glyphs of each font size and shared renderers of each font size
+ * are created only once and cached for whole game, so scenes can get their renderers repeatedly without any cost.
  *
  * @author Lukáš Hornych 2021
  */
@@ -15,6 +16,26 @@ public class TextRendererFactory {
 
     private static Font baseFont = null;
 
+    private final SpriteBatch spriteBatch;
+
+    /**
+     * Glyphs of each font size are rasterized into atlas only once
+     */
+    private final Map<Float, GlyphSet> glyphSets = new HashMap<>();
+    /**
+     * Shared renderers of each font size
+     */
+    private final Map<Float, TextRenderer> sharedRenderers = new HashMap<>();
+
+    /**
+     * Creates factory of text renderers drawing into sprite batch
+     *
+     * @param spriteBatch batch to which all created renderers draw
+     */
+    public TextRendererFactory(@NonNull SpriteBatch spriteBatch) {
+        this.spriteBatch = spriteBatch;
+    }
+
     /**
      * Returns cached font. If missing loads it.
      *
@@ -38,11 +59,29 @@ public class TextRendererFactory {
     /**
      * Creates new configured text renderer with specified size
      *
-     * @param window game window
      * @param size size of font
      * @return new renderer
      */
-    public static OGLTextRenderer createTextRenderer(@NonNull Window window, float size) {
-        return new OGLTextRenderer(window.getWidth(), window.getHeight(), getBaseFont().deriveFont(Font.PLAIN, size));
+    public TextRenderer createTextRenderer(float size) {
+        return new TextRenderer(spriteBatch, getGlyphSet(size));
+    }
+
+    /**
+     * Returns renderer with specified size shared by all callers. Renderer keeps cached layouts of drawn strings, so
+     * sharing it across scenes keeps them warm.
+     *
+     * @param size size of font
+     * @return shared renderer
+     */
+    public TextRenderer getTextRenderer(float size) {
+        return sharedRenderers.computeIfAbsent(size, this::createTextRenderer);
+    }
+
+
+    private GlyphSet getGlyphSet(float size) {
+        return glyphSets.computeIfAbsent(
+                size,
+                s -> spriteBatch.getAtlas().addFont(getBaseFont().deriveFont(Font.PLAIN, s))
+        );
     }
 }
@@ -0,0 +1,23 @@
+package com.lukashornych.mathmare.world;
+
+import com.lukashornych.mathmare.physics.BoundingBox;
+import lombok.Data;
+
+/**
+ * CPU side geometry of single {@link DynamicObject}. Geometry consists of triangle strips of 4 vertices, each vertex
+ * stored as texture coordinates and position ({@code u, v, x, y, z}).
+ *
+ * @author Lukáš Hornych 2021
+ */
+@Data
+public class DynamicObjectMesh {
+
+    public static final int FLOATS_PER_VERTEX = 5;
+    public static final int VERTICES_PER_STRIP = 4;
+
+    private final DynamicObjectType type;
+    private final int mazeX;
+    private final int mazeY;
+    private final BoundingBox boundingBox;
+    private final float[] strips;
+}
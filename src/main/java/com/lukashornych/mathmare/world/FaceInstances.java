@@ -0,0 +1,25 @@
+package com.lukashornych.mathmare.world;
+
+import lombok.Data;
+
+/**
+ * GPU objects of all faces of single orientation rendered in {@link WorldRenderMode#INSTANCED} mode. Vertex array
+ * holds unit quad of the orientation and instance buffer holds maze coordinates of each face's tile as two shorts.
+ * Instances of each chunk are stored contiguously.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@Data
+public class FaceInstances {
+
+    /**
+     * Size of single instance in instance buffer, i.e. tile x and y as shorts
+     */
+    public static final int BYTES_PER_INSTANCE = 2 * Short.BYTES;
+
+    private final FaceOrientation orientation;
+    private final int vaoId;
+    private final int quadVboId;
+    private final int instanceVboId;
+    private final int instancesCount;
+}
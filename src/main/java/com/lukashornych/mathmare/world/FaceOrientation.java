@@ -0,0 +1,88 @@
+package com.lukashornych.mathmare.world;
+
+import lombok.Getter;
+
+/**
+ * Orientation of single face of static world geometry. Each orientation holds its unit quad, i.e. face of tile at maze
+ * coordinates [0, 0] with tile size of 1, which is then translated and scaled to particular tile.
+ *
+ * Quad vertex is stored as {@code x, y, z, u, v}, tile at maze coordinates [x, y] spans from {@code x} to
+ * {@code x + 1} on world x axis and from {@code -y} to {@code -y - 1} on world z axis.
+ *
+ * @author Lukáš Hornych 2021
+ */
+public enum FaceOrientation {
+    FLOOR(true, new float[] {
+            0f, 0f, 0f, 0f, 1f,
+            1f, 0f, -1f, 1f, 0f,
+            0f, 0f, -1f, 0f, 0f,
+            1f, 0f, 0f, 1f, 1f
+    }),
+    CEILING(false, new float[] {
+            0f, 1f, -1f, 0f, 1f,
+            1f, 1f, 0f, 1f, 0f,
+            0f, 1f, 0f, 0f, 0f,
+            1f, 1f, -1f, 1f, 1f
+    }),
+    LEFT_WALL(false, new float[] {
+            0f, 0f, 0f, 0f, 1f,
+            0f, 1f, -1f, 1f, 0f,
+            0f, 1f, 0f, 0f, 0f,
+            0f, 0f, -1f, 1f, 1f
+    }),
+    RIGHT_WALL(false, new float[] {
+            1f, 0f, -1f, 0f, 1f,
+            1f, 1f, 0f, 1f, 0f,
+            1f, 1f, -1f, 0f, 0f,
+            1f, 0f, 0f, 1f, 1f
+    }),
+    FRONT_WALL(false, new float[] {
+            1f, 0f, 0f, 0f, 1f,
+            0f, 1f, 0f, 1f, 0f,
+            1f, 1f, 0f, 0f, 0f,
+            0f, 0f, 0f, 1f, 1f
+    }),
+    BACK_WALL(false, new float[] {
+            0f, 0f, -1f, 0f, 1f,
+            1f, 1f, -1f, 1f, 0f,
+            0f, 1f, -1f, 0f, 0f,
+            1f, 0f, -1f, 1f, 1f
+    });
+
+    public static final int FLOATS_PER_VERTEX = 5;
+
+    /**
+     * Order in which quad vertices form two triangles
+     */
+    private static final int[] QUAD_TRIANGLES = { 0, 1, 2, 0, 3, 1 };
+
+    /**
+     * Whether the face is textured as floor, otherwise as wall
+     */
+    @Getter
+    private final boolean floor;
+    private final float[] unitQuad;
+
+    FaceOrientation(boolean floor, float[] unitQuad) {
+        this.floor = floor;
+        this.unitQuad = unitQuad;
+    }
+
+    /**
+     * @return vertices of unit quad as two separate triangles, i.e. 6 vertices
+     */
+    public float[] getUnitQuadTriangles() {
+        final float[] triangles = new float[QUAD_TRIANGLES.length * FLOATS_PER_VERTEX];
+        for (int i = 0; i < QUAD_TRIANGLES.length; i++) {
+            System.arraycopy(unitQuad, QUAD_TRIANGLES[i] * FLOATS_PER_VERTEX, triangles, i * FLOATS_PER_VERTEX, FLOATS_PER_VERTEX);
+        }
+        return triangles;
+    }
+
+    /**
+     * @return number of vertices of unit quad triangles
+     */
+    public static int getUnitQuadVerticesCount() {
+        return QUAD_TRIANGLES.length;
+    }
+}
@@ -0,0 +1,69 @@
+package com.lukashornych.mathmare.world;
+
+import com.lukashornych.mathmare.render.ShaderProgram;
+
+import java.util.Map;
+
+/**
+ * Shader placing instanced unit quads of {@link FaceOrientation} to their tiles. Uses fixed pipeline matrices and fog
+ * parameters so that instanced faces look same as faces rendered in {@link WorldRenderMode#MESH} mode.
+ *
+ * @author Lukáš Hornych 2021
+ */
+class InstancedFaceShader {
+
+    static final int CORNER_ATTRIBUTE = 0;
+    static final int TEXTURE_COORDS_ATTRIBUTE = 1;
+    static final int TILE_ATTRIBUTE = 2;
+
+    static final String TILE_SIZE_UNIFORM = "tileSize";
+    static final String FOG_ENABLED_UNIFORM = "fogEnabled";
+
+    private static final String VERTEX_SHADER =
+            "#version 120\n" +
+            "attribute vec3 corner;\n" +
+            "attribute vec2 textureCoords;\n" +
+            "attribute vec2 tile;\n" +
+            "uniform float tileSize;\n" +
+            "varying vec2 fragmentTextureCoords;\n" +
+            "varying float fogFactor;\n" +
+            "void main() {\n" +
+            "    vec4 position = vec4((corner.x + tile.x) * tileSize, corner.y * tileSize, (corner.z - tile.y) * tileSize, 1.0);\n" +
+            "    vec4 eyePosition = gl_ModelViewMatrix * position;\n" +
+            "    gl_Position = gl_ProjectionMatrix * eyePosition;\n" +
+            "    fragmentTextureCoords = textureCoords;\n" +
+            "    fogFactor = clamp((gl_Fog.end - abs(eyePosition.z)) * gl_Fog.scale, 0.0, 1.0);\n" +
+            "}\n";
+
+    private static final String FRAGMENT_SHADER =
+            "#version 120\n" +
+            "uniform sampler2D faceTexture;\n" +
+            "uniform bool fogEnabled;\n" +
+            "varying vec2 fragmentTextureCoords;\n" +
+            "varying float fogFactor;\n" +
+            "void main() {\n" +
+            "    vec4 color = texture2D(faceTexture, fragmentTextureCoords);\n" +
+            "    if (fogEnabled) {\n" +
+            "        color.rgb = mix(gl_Fog.color.rgb, color.rgb, fogFactor);\n" +
+            "    }\n" +
+            "    gl_FragColor = color;\n" +
+            "}\n";
+
+    private InstancedFaceShader() {
+    }
+
+    /**
+     * @return new uninitialized program
+     */
+    static ShaderProgram createProgram() {
+        return new ShaderProgram(
+                VERTEX_SHADER,
+                FRAGMENT_SHADER,
+                Map.of(
+                        "corner", CORNER_ATTRIBUTE,
+                        "textureCoords", TEXTURE_COORDS_ATTRIBUTE,
+                        "tile", TILE_ATTRIBUTE
+                )
+        );
+    }
+}
@@ -7,8 +7,14 @@ import org.joml.Vector3f;
 
 import java.util.List;
 
+import static org.lwjgl.opengl.GL11.glDeleteLists;
+import static org.lwjgl.opengl.GL11.glDeleteTextures;
+import static org.lwjgl.opengl.GL15.glDeleteBuffers;
+import static org.lwjgl.opengl.GL30.glDeleteVertexArrays;
+
 /**
- * Dungeon world descriptor. Holds static and dynamic objects and its metadata.
+ * Dungeon world descriptor. Holds static and dynamic objects and its metadata. Uploaded world owns its GPU objects
+ * and textures, which are released by {@link #destroy()}.
  *
  * @author Lukáš Hornych 2021
  */
@@ -17,17 +23,40 @@ public class World {
 
     public static final float TILE_WORLD_SIZE = 5f;
 
+    private final WorldRenderMode renderMode;
+
+    /**
+     * Dynamic objects are removed by simulation thread while render thread iterates them, so the list must be safe
+     * for concurrent iteration
+     */
     private final List<DynamicObject> allDynamicObjects;
     private final DynamicObject[][] dynamicObjectsInWorld;
 
     private final int wallVaoId;
+    private final int wallVboId;
     private final int wallIboId;
     private final int wallIndicesCount;
 
     private final int floorVaoId;
+    private final int floorVboId;
     private final int floorIboId;
     private final int floorIndicesCount;
 
+    /**
+     * Instanced faces of all orientations, empty if not rendered in {@link WorldRenderMode#INSTANCED} mode
+     */
+    private final List<FaceInstances> faceInstances;
+    /**
+     * Display lists of all dynamic objects, including those already removed from world
+     */
+    private final int[] displayListIds;
+
+    private final List<WorldChunk> chunks;
+    /**
+     * Size of GPU buffers holding static geometry in bytes
+     */
+    private final long staticGeometryBytes;
+
     private final PhysicsWorld physicsWorld;
 
     private final OGLTexture2D wallTexture;
@@ -41,4 +70,41 @@ public class World {
 
         return dynamicObjectsInWorld[positionXInMaze][positionYInMaze];
     }
+
+    /**
+     * Deletes all GPU objects and textures of this world. Objects which were not created (zero ids or missing
+     * textures) are skipped. Must be called from thread owning OpenGL context, world cannot be rendered afterwards.
+     */
+    public void destroy() {
+        glDeleteVertexArrays(wallVaoId);
+        glDeleteBuffers(wallVboId);
+        glDeleteBuffers(wallIboId);
+        glDeleteVertexArrays(floorVaoId);
+        glDeleteBuffers(floorVboId);
+        glDeleteBuffers(floorIboId);
+
+        for (FaceInstances instances : faceInstances) {
+            glDeleteVertexArrays(instances.getVaoId());
+            glDeleteBuffers(instances.getQuadVboId());
+            glDeleteBuffers(instances.getInstanceVboId());
+        }
+
+        for (int displayListId : displayListIds) {
+            if (displayListId != 0) {
+                glDeleteLists(displayListId, 1);
+            }
+        }
+
+        destroyTexture(wallTexture);
+        destroyTexture(floorTexture);
+        destroyTexture(doorTexture);
+        destroyTexture(exitPortalTexture);
+    }
+
+
+    private static void destroyTexture(OGLTexture2D texture) {
+        if (texture != null) {
+            glDeleteTextures(texture.getTextureId());
+        }
+    }
 }
@@ -1,33 +1,38 @@
 package com.lukashornych.mathmare.world;
 
+import com.lukashornych.mathmare.diagnostics.WorldBuildEvent;
 import com.lukashornych.mathmare.maze.MazeTile;
 import com.lukashornych.mathmare.physics.BoundingBox;
 import com.lukashornych.mathmare.physics.PhysicsWorld;
-import lwjglutils.OGLTexture2D;
+import lombok.NonNull;
 import org.joml.Vector2f;
 import org.joml.Vector3f;
-import org.lwjgl.BufferUtils;
 
-import java.io.IOException;
-import java.nio.FloatBuffer;
-import java.nio.IntBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
 import java.util.List;
 
-import static com.lukashornych.mathmare.maze.MazeGenerator.MAZE_SIZE;
 import static com.lukashornych.mathmare.world.World.TILE_WORLD_SIZE;
-import static org.lwjgl.opengl.GL11.*;
-import static org.lwjgl.opengl.GL15.*;
-import static org.lwjgl.opengl.GL30.glBindVertexArray;
-import static org.lwjgl.opengl.GL30.glGenVertexArrays;
+import static com.lukashornych.mathmare.world.WorldChunk.CHUNK_SIZE;
 
 /**
- * Builds {@link World} from maze recipe.
+ * Builds {@link World} from maze recipe of any size.
+ *
+ * Building is split into CPU part ({@link #buildMesh(MazeTile[][])}) which does not touch OpenGL and can run on any
+ * thread, and GPU part done by {@link WorldUploader}. World without any GPU objects can be built by
+ * {@link #buildHeadlessWorld(MazeTile[][])} for simulation without window.
+ *
+ * Each builder can build only single world.
  *
  * @author Lukáš Hornych 2021
  */
 public class WorldBuilder {
 
+    private static final int INITIAL_FACE_INSTANCES_CAPACITY = 256;
+
+    private final WorldRenderMode renderMode;
+
     private int wallQuadCounter;
     private int floorQuadCounter;
 
@@ -37,17 +42,31 @@ public class WorldBuilder {
     private final List<Vertex> floorVertexes;
     private final List<Integer> floorVertexIndices;
 
-    private final List<DynamicObject> allDynamicObjects;
-    private final DynamicObject[][] dynamicObjectsInWorld;
+    /**
+     * Tile coordinates (x and y pair) of faces of each orientation for instanced mode
+     */
+    private final short[][] faceInstances;
+    private final int[] faceInstancesCounts;
+
+    private final List<WorldChunk> chunks;
 
-    private final PhysicsWorld physicsWorld;
+    private final List<DynamicObjectMesh> dynamicObjects;
 
-    private final OGLTexture2D wallTexture;
-    private final OGLTexture2D floorTexture;
-    private final OGLTexture2D doorTexture;
-    private final OGLTexture2D exitPortalTexture;
+    /**
+     * Created by {@link #buildMesh(MazeTile[][])} as its size depends on maze
+     */
+    private PhysicsWorld physicsWorld;
 
     public WorldBuilder() {
+        this(WorldRenderMode.MESH);
+    }
+
+    /**
+     * @param renderMode how should be static geometry of built world stored
+     */
+    public WorldBuilder(@NonNull WorldRenderMode renderMode) {
+        this.renderMode = renderMode;
+
         wallQuadCounter = 0;
         floorQuadCounter = 0;
 
@@ -57,108 +76,265 @@ public class WorldBuilder {
         floorVertexes = new ArrayList<>();
         floorVertexIndices = new ArrayList<>();
 
-        allDynamicObjects = new ArrayList<>();
-        dynamicObjectsInWorld = new DynamicObject[MAZE_SIZE][MAZE_SIZE];
+        faceInstances = new short[FaceOrientation.values().length][INITIAL_FACE_INSTANCES_CAPACITY * 2];
+        faceInstancesCounts = new int[FaceOrientation.values().length];
 
-        physicsWorld = new PhysicsWorld();
+        chunks = new ArrayList<>();
 
-        try {
-            wallTexture = new OGLTexture2D("assets/texture/bricks.png");
-            floorTexture = new OGLTexture2D("assets/texture/pavement.png");
-            doorTexture = new OGLTexture2D("assets/texture/locked-doors.png");
-            exitPortalTexture = new OGLTexture2D("assets/texture/portal.png");
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        dynamicObjects = new ArrayList<>();
     }
 
 
+    /**
+     * Builds world and uploads its geometry and textures to GPU. Must be called from thread owning OpenGL context.
+     */
     public World buildWorld(MazeTile[][] mazeRecipe) {
-        for (int x = 0; x < MAZE_SIZE; x++) {
-            for (int y = 0; y < MAZE_SIZE; y++) {
-                final MazeTile tile = mazeRecipe[x][y];
-
-                // create only bounding box for wall tile
-                if (tile.equals(MazeTile.VOID)) {
-                    physicsWorld.getObjects().add(new BoundingBox(
-                            x * 5f,
-                            x * 5f + 5f,
-                            y * 5f,
-                            y * 5f + 5f
-                    ));
-                    continue;
-                }
+        return new WorldUploader(buildMesh(mazeRecipe)).uploadAll();
+    }
 
-                final MazeTile leftTile = mazeRecipe[x - 1][y];
-                final MazeTile rightTile = mazeRecipe[x + 1][y];
-                final MazeTile frontTile = mazeRecipe[x][y - 1];
-                final MazeTile backTile = mazeRecipe[x][y + 1];
+    /**
+     * Builds world without any GPU objects and textures. Such world cannot be rendered but is sufficient for whole
+     * game logic. Can be called from any thread.
+     */
+    public World buildHeadlessWorld(MazeTile[][] mazeRecipe) {
+        return WorldUploader.createHeadless(buildMesh(mazeRecipe));
+    }
 
-                if (tile.equals(MazeTile.DOOR)) {
-                    buildDoor(x, y, leftTile, rightTile, frontTile, backTile);
-                }
-                if (tile.equals(MazeTile.EXIT_PORTAL)) {
-                    buildExitPortal(x, y);
-                }
+    /**
+     * Builds CPU side geometry, chunks and physics of world. Does not touch OpenGL, so it can be called from any thread.
+     */
+    public WorldMesh buildMesh(MazeTile[][] mazeRecipe) {
+        final WorldBuildEvent event = new WorldBuildEvent();
+        event.begin();
 
-                buildFloor(x, y);
-                floorQuadCounter++;
+        final int mazeWidth = mazeRecipe.length;
+        final int mazeHeight = mazeRecipe[0].length;
 
-                buildCeiling(x, y);
-                wallQuadCounter++;
+        physicsWorld = new PhysicsWorld(mazeWidth, mazeHeight);
 
-                if (leftTile.equals(MazeTile.VOID)) {
-                    buildLeftWall(x, y);
-                    wallQuadCounter++;
+        for (int chunkX = 0; chunkX < mazeWidth; chunkX += CHUNK_SIZE) {
+            for (int chunkY = 0; chunkY < mazeHeight; chunkY += CHUNK_SIZE) {
+                buildChunk(mazeRecipe, chunkX, chunkY);
+            }
+        }
+        final int wallCollidersCount = buildWallColliders(mazeRecipe);
+
+        final WorldMesh mesh = new WorldMesh(
+                renderMode,
+                mazeWidth,
+                mazeHeight,
+                extractVertexes(wallVertexes),
+                extractIndices(wallVertexIndices),
+                extractVertexes(floorVertexes),
+                extractIndices(floorVertexIndices),
+                faceInstances,
+                faceInstancesCounts,
+                chunks,
+                dynamicObjects,
+                physicsWorld
+        );
+
+        if (event.shouldCommit()) {
+            event.renderMode = renderMode.name();
+            event.chunksCount = chunks.size();
+            event.staticGeometryBytes = WorldUploader.computeStaticGeometryBytes(mesh);
+            event.wallCollidersCount = wallCollidersCount;
+            event.commit();
+        }
+
+        return mesh;
+    }
+
+
+    /**
+     * Builds all tiles of single chunk so that indices (or instances) of the chunk are stored contiguously
+     *
+     * @param mazeRecipe maze to build
+     * @param chunkX maze x of first tile of chunk
+     * @param chunkY maze y of first tile of chunk
+     */
+    private void buildChunk(MazeTile[][] mazeRecipe, int chunkX, int chunkY) {
+        final int wallIndicesOffset = wallVertexIndices.size();
+        final int floorIndicesOffset = floorVertexIndices.size();
+        final int[] faceInstancesOffsets = faceInstancesCounts.clone();
+
+        final int chunkEndX = Math.min(chunkX + CHUNK_SIZE, mazeRecipe.length);
+        final int chunkEndY = Math.min(chunkY + CHUNK_SIZE, mazeRecipe[0].length);
+        for (int x = chunkX; x < chunkEndX; x++) {
+            for (int y = chunkY; y < chunkEndY; y++) {
+                buildTile(mazeRecipe, x, y);
+            }
+        }
+
+        final int wallIndicesCount = wallVertexIndices.size() - wallIndicesOffset;
+        final int floorIndicesCount = floorVertexIndices.size() - floorIndicesOffset;
+        final int[] chunkFaceInstancesCounts = new int[faceInstancesCounts.length];
+        int chunkFaceInstancesCount = 0;
+        for (int i = 0; i < faceInstancesCounts.length; i++) {
+            chunkFaceInstancesCounts[i] = faceInstancesCounts[i] - faceInstancesOffsets[i];
+            chunkFaceInstancesCount += chunkFaceInstancesCounts[i];
+        }
+        if ((wallIndicesCount == 0) && (floorIndicesCount == 0) && (chunkFaceInstancesCount == 0)) {
+            return;
+        }
+
+        chunks.add(new WorldChunk(
+                chunkX * TILE_WORLD_SIZE,
+                chunkEndX * TILE_WORLD_SIZE,
+                -chunkEndY * TILE_WORLD_SIZE,
+                -chunkY * TILE_WORLD_SIZE,
+                wallIndicesOffset,
+                wallIndicesCount,
+                floorIndicesOffset,
+                floorIndicesCount,
+                faceInstancesOffsets,
+                chunkFaceInstancesCounts
+        ));
+    }
+
+    /**
+     * Covers all wall (void) tiles by colliders. Contiguous walls are greedily decomposed into as large rectangles as
+     * possible: each rectangle starts at first uncovered wall tile in row order, is extended along x axis as far as
+     * possible and then along y axis while whole its row consists of uncovered walls. Covered area is same as with
+     * single collider for every tile, but number of colliders is only fraction of it.
+     *
+     * @param mazeRecipe maze to build
+     * @return number of created colliders
+     */
+    private int buildWallColliders(MazeTile[][] mazeRecipe) {
+        final int mazeWidth = mazeRecipe.length;
+        final int mazeHeight = mazeRecipe[0].length;
+        final BitSet covered = new BitSet(mazeWidth * mazeHeight);
+
+        int collidersCount = 0;
+        for (int y = 0; y < mazeHeight; y++) {
+            for (int x = 0; x < mazeWidth; x++) {
+                if (!isUncoveredWall(mazeRecipe, covered, x, y)) {
+                    continue;
                 }
 
-                if (rightTile.equals(MazeTile.VOID)) {
-                    buildRightWall(x, y);
-                    wallQuadCounter++;
+                int endX = x + 1;
+                while ((endX < mazeWidth) && isUncoveredWall(mazeRecipe, covered, endX, y)) {
+                    endX++;
                 }
 
-                if (frontTile.equals(MazeTile.VOID)) {
-                    buildFrontWall(x, y);
-                    wallQuadCounter++;
+                int endY = y + 1;
+                while ((endY < mazeHeight) && isUncoveredWallRow(mazeRecipe, covered, x, endX, endY)) {
+                    endY++;
                 }
 
-                if (backTile.equals(MazeTile.VOID)) {
-                    buildBackWall(x, y);
-                    wallQuadCounter++;
+                for (int coveredX = x; coveredX < endX; coveredX++) {
+                    covered.set(coveredX * mazeHeight + y, coveredX * mazeHeight + endY);
                 }
+                physicsWorld.add(new BoundingBox(
+                        x * 5f,
+                        endX * 5f,
+                        y * 5f,
+                        endY * 5f
+                ));
+                collidersCount++;
+
+                x = endX - 1;
             }
         }
+        return collidersCount;
+    }
 
-        final int wallVaoId = glGenVertexArrays();
-        fillVao(wallVaoId, extractVertexes(wallVertexes));
-        final int wallIboId = glGenBuffers();
-        fillIbo(wallIboId, wallVertexIndices);
-
-        final int floorVaoId = glGenVertexArrays();
-        fillVao(floorVaoId, extractVertexes(floorVertexes));
-        final int floorIboId = glGenBuffers();
-        fillIbo(floorIboId, floorVertexIndices);
-
-        return new World(
-                allDynamicObjects,
-                dynamicObjectsInWorld,
-                wallVaoId,
-                wallIboId,
-                wallVertexIndices.size(),
-                floorVaoId,
-                floorIboId,
-                floorVertexIndices.size(),
-                physicsWorld,
-                wallTexture,
-                floorTexture,
-                doorTexture,
-                exitPortalTexture
-        );
+    private boolean isUncoveredWall(MazeTile[][] mazeRecipe, BitSet covered, int x, int y) {
+        return mazeRecipe[x][y].equals(MazeTile.VOID) && !covered.get(x * mazeRecipe[0].length + y);
+    }
+
+    private boolean isUncoveredWallRow(MazeTile[][] mazeRecipe, BitSet covered, int startX, int endX, int y) {
+        for (int x = startX; x < endX; x++) {
+            if (!isUncoveredWall(mazeRecipe, covered, x, y)) {
+                return false;
+            }
+        }
+        return true;
     }
 
+    private void buildTile(MazeTile[][] mazeRecipe, int x, int y) {
+        final MazeTile tile = mazeRecipe[x][y];
+
+        // wall tile has no geometry of its own, its collider is built by buildWallColliders
+        if (tile.equals(MazeTile.VOID)) {
+            return;
+        }
 
-    private FloatBuffer extractVertexes(List<Vertex> vertexes) {
-        final float[] extractedVertexes = new float[vertexes.size() * 8];
+        final MazeTile leftTile = mazeRecipe[x - 1][y];
+        final MazeTile rightTile = mazeRecipe[x + 1][y];
+        final MazeTile frontTile = mazeRecipe[x][y - 1];
+        final MazeTile backTile = mazeRecipe[x][y + 1];
+
+        if (tile.equals(MazeTile.DOOR)) {
+            buildDoor(x, y, leftTile, rightTile, frontTile, backTile);
+        }
+        if (tile.equals(MazeTile.EXIT_PORTAL)) {
+            buildExitPortal(x, y);
+        }
+
+        buildFace(FaceOrientation.FLOOR, x, y);
+        buildFace(FaceOrientation.CEILING, x, y);
+
+        if (leftTile.equals(MazeTile.VOID)) {
+            buildFace(FaceOrientation.LEFT_WALL, x, y);
+        }
+        if (rightTile.equals(MazeTile.VOID)) {
+            buildFace(FaceOrientation.RIGHT_WALL, x, y);
+        }
+        if (frontTile.equals(MazeTile.VOID)) {
+            buildFace(FaceOrientation.FRONT_WALL, x, y);
+        }
+        if (backTile.equals(MazeTile.VOID)) {
+            buildFace(FaceOrientation.BACK_WALL, x, y);
+        }
+    }
+
+    /**
+     * Builds single face of tile either as unique mesh quad or as instance of unit quad depending on render mode
+     */
+    private void buildFace(FaceOrientation orientation, int x, int y) {
+        if (renderMode == WorldRenderMode.INSTANCED) {
+            addFaceInstance(orientation, x, y);
+            return;
+        }
+
+        switch (orientation) {
+            case FLOOR: buildFloor(x, y); break;
+            case CEILING: buildCeiling(x, y); break;
+            case LEFT_WALL: buildLeftWall(x, y); break;
+            case RIGHT_WALL: buildRightWall(x, y); break;
+            case FRONT_WALL: buildFrontWall(x, y); break;
+            case BACK_WALL: buildBackWall(x, y); break;
+        }
+
+        if (orientation.isFloor()) {
+            floorQuadCounter++;
+        } else {
+            wallQuadCounter++;
+        }
+    }
+
+    private void addFaceInstance(FaceOrientation orientation, int x, int y) {
+        if ((x > Short.MAX_VALUE) || (y > Short.MAX_VALUE)) {
+            throw new IllegalArgumentException("Maze is too large for instanced rendering.");
+        }
+
+        final int orientationIndex = orientation.ordinal();
+        short[] instances = faceInstances[orientationIndex];
+        final int count = faceInstancesCounts[orientationIndex];
+        if ((count + 1) * 2 > instances.length) {
+            instances = Arrays.copyOf(instances, instances.length * 2);
+            faceInstances[orientationIndex] = instances;
+        }
+
+        instances[count * 2] = (short) x;
+        instances[count * 2 + 1] = (short) y;
+        faceInstancesCounts[orientationIndex]++;
+    }
+
+    private float[] extractVertexes(List<Vertex> vertexes) {
+        final float[] extractedVertexes = new float[vertexes.size() * WorldMesh.FLOATS_PER_VERTEX];
         for (int i = 0; i < vertexes.size(); i++) {
             final Vertex v = vertexes.get(i);
             extractedVertexes[i * 8] = v.getPosition().x;
@@ -170,10 +346,15 @@ public class WorldBuilder {
             extractedVertexes[i * 8 + 6] = v.getColor().y;
             extractedVertexes[i * 8 + 7] = v.getColor().z;
         }
+        return extractedVertexes;
+    }
 
-        final FloatBuffer buffer = BufferUtils.createFloatBuffer(extractedVertexes.length);
-        buffer.put(extractedVertexes).flip();
-        return buffer;
+    private int[] extractIndices(List<Integer> vertexIndices) {
+        final int[] indicesArray = new int[vertexIndices.size()];
+        for (int i = 0; i < vertexIndices.size(); i++) {
+            indicesArray[i] = vertexIndices.get(i);
+        }
+        return indicesArray;
     }
 
     private void buildBackWall(int mazeX, int mazeY) {
@@ -241,75 +422,31 @@ public class WorldBuilder {
     }
 
     private void buildExitPortal(int mazeX, int mazeY) {
-        final int dlIndex = glGenLists(1);
-
-        glNewList(dlIndex, GL_COMPILE);
-
-        // front
-        glBegin(GL_TRIANGLE_STRIP);
-        glTexCoord2f(0f, 1f);
-        glColor3f(1f, 1f, 1f);
-        glVertex3f(mazeX * TILE_WORLD_SIZE, 0f, -mazeY * TILE_WORLD_SIZE - 2f);
-        glTexCoord2f(0.84f, 1f);
-        glColor3f(1f, 1f, 1f);
-        glVertex3f(mazeX * TILE_WORLD_SIZE + TILE_WORLD_SIZE, 0f, -mazeY * TILE_WORLD_SIZE - 2f);
-        glTexCoord2f(0f, 0f);
-        glColor3f(1f, 1f, 1f);
-        glVertex3f(mazeX * TILE_WORLD_SIZE, TILE_WORLD_SIZE, -mazeY * TILE_WORLD_SIZE - 2f);
-        glTexCoord2f(0.84f, 0f);
-        glColor3f(1f, 1f, 1f);
-        glVertex3f(mazeX * TILE_WORLD_SIZE + TILE_WORLD_SIZE, TILE_WORLD_SIZE, -mazeY * TILE_WORLD_SIZE - 2f);
-        glEnd();
-
-        // back
-        glBegin(GL_TRIANGLE_STRIP);
-        glTexCoord2f(0.84f, 1f);
-        glColor3f(1f, 1f, 1f);
-        glVertex3f(mazeX * TILE_WORLD_SIZE + TILE_WORLD_SIZE, 0f, -mazeY * TILE_WORLD_SIZE - 3f);
-        glTexCoord2f(0f, 1f);
-        glColor3f(1f, 1f, 1f);
-        glVertex3f(mazeX * 5f, 0f, -mazeY * 5f - 3f);
-        glTexCoord2f(0.84f, 0f);
-        glColor3f(1f, 1f, 1f);
-        glVertex3f(mazeX * 5f + 5f, 5f, -mazeY * 5f - 3f);
-        glTexCoord2f(0f, 0f);
-        glColor3f(1f, 1f, 1f);
-        glVertex3f(mazeX * 5f, 5f, -mazeY * 5f - 3f);
-        glEnd();
-
-        // left side
-        glBegin(GL_TRIANGLE_STRIP);
-        glTexCoord2f(0.84f, 1f);
-        glColor3f(1f, 1f, 1f);
-        glVertex3f(mazeX * 5f, 0f, -mazeY * 5f - 3f);
-        glTexCoord2f(1f, 1f);
-        glColor3f(1f, 1f, 1f);
-        glVertex3f(mazeX * 5f, 0f, -mazeY * 5f - 2f);
-        glTexCoord2f(0.84f, 0f);
-        glColor3f(1f, 1f, 1f);
-        glVertex3f(mazeX * 5f, 5f, -mazeY * 5f - 3f);
-        glTexCoord2f(1f, 0f);
-        glColor3f(1f, 1f, 1f);
-        glVertex3f(mazeX * 5f, 5f, -mazeY * 5f - 2f);
-        glEnd();
-
-        // right side
-        glBegin(GL_TRIANGLE_STRIP);
-        glTexCoord2f(0.84f, 1f);
-        glColor3f(1f, 1f, 1f);
-        glVertex3f(mazeX * 5f + 5f, 0f, -mazeY * 5f - 2f);
-        glTexCoord2f(1f, 1f);
-        glColor3f(1f, 1f, 1f);
-        glVertex3f(mazeX * 5f + 5f, 0f, -mazeY * 5f - 3f);
-        glTexCoord2f(0.84f, 0f);
-        glColor3f(1f, 1f, 1f);
-        glVertex3f(mazeX * 5f + 5f, 5f, -mazeY * 5f - 2f);
-        glTexCoord2f(1f, 0f);
-        glColor3f(1f, 1f, 1f);
-        glVertex3f(mazeX * 5f + 5, 5f, -mazeY * 5f - 3f);
-        glEnd();
-
-        glEndList();
+        final float[] strips = {
+                // front
+                0f, 1f, mazeX * TILE_WORLD_SIZE, 0f, -mazeY * TILE_WORLD_SIZE - 2f,
+                0.84f, 1f, mazeX * TILE_WORLD_SIZE + TILE_WORLD_SIZE, 0f, -mazeY * TILE_WORLD_SIZE - 2f,
+                0f, 0f, mazeX * TILE_WORLD_SIZE, TILE_WORLD_SIZE, -mazeY * TILE_WORLD_SIZE - 2f,
+                0.84f, 0f, mazeX * TILE_WORLD_SIZE + TILE_WORLD_SIZE, TILE_WORLD_SIZE, -mazeY * TILE_WORLD_SIZE - 2f,
+
+                // back
+                0.84f, 1f, mazeX * TILE_WORLD_SIZE + TILE_WORLD_SIZE, 0f, -mazeY * TILE_WORLD_SIZE - 3f,
+                0f, 1f, mazeX * 5f, 0f, -mazeY * 5f - 3f,
+                0.84f, 0f, mazeX * 5f + 5f, 5f, -mazeY * 5f - 3f,
+                0f, 0f, mazeX * 5f, 5f, -mazeY * 5f - 3f,
+
+                // left side
+                0.84f, 1f, mazeX * 5f, 0f, -mazeY * 5f - 3f,
+                1f, 1f, mazeX * 5f, 0f, -mazeY * 5f - 2f,
+                0.84f, 0f, mazeX * 5f, 5f, -mazeY * 5f - 3f,
+                1f, 0f, mazeX * 5f, 5f, -mazeY * 5f - 2f,
+
+                // right side
+                0.84f, 1f, mazeX * 5f + 5f, 0f, -mazeY * 5f - 2f,
+                1f, 1f, mazeX * 5f + 5f, 0f, -mazeY * 5f - 3f,
+                0.84f, 0f, mazeX * 5f + 5f, 5f, -mazeY * 5f - 2f,
+                1f, 0f, mazeX * 5f + 5, 5f, -mazeY * 5f - 3f
+        };
 
         final BoundingBox boundingBox = new BoundingBox(
                 mazeX * 5f,
@@ -317,53 +454,27 @@ public class WorldBuilder {
                 mazeY * 5f + 2f,
                 mazeY * 5f + 3f
         );
-        physicsWorld.getObjects().add(boundingBox);
+        physicsWorld.add(boundingBox);
 
-        final DynamicObject exitPortalObject = new DynamicObject(DynamicObjectType.EXIT_PORTAL, dlIndex, boundingBox, exitPortalTexture);
-        allDynamicObjects.add(exitPortalObject);
-        dynamicObjectsInWorld[mazeX][mazeY] = exitPortalObject;
+        dynamicObjects.add(new DynamicObjectMesh(DynamicObjectType.EXIT_PORTAL, mazeX, mazeY, boundingBox, strips));
     }
 
     private void buildDoor(int mazeX, int mazeY, MazeTile leftTile, MazeTile rightTile, MazeTile topTile, MazeTile bottomTile) {
-        final int dlIndex = glGenLists(1);
+        float[] strips = new float[0];
         BoundingBox boundingBox = null;
 
         if ((leftTile.equals(MazeTile.VOID)) && (rightTile.equals(MazeTile.VOID))) {
-            glNewList(dlIndex, GL_COMPILE);
-            glBegin(GL_TRIANGLE_STRIP);
-
-            glTexCoord2f(0f, 1f);
-            glColor3f(1f, 1f, 1f);
-            glVertex3f(mazeX * 5f, 0f, -mazeY * 5f - 2.4f);
-            glTexCoord2f(1f, 1f);
-            glColor3f(1f, 1f, 1f);
-            glVertex3f(mazeX * 5f + 5f, 0f, -mazeY * 5f - 2.4f);
-            glTexCoord2f(0f, 0f);
-            glColor3f(1f, 1f, 1f);
-            glVertex3f(mazeX * 5f, 5f, -mazeY * 5f - 2.4f);
-            glTexCoord2f(1f, 0f);
-            glColor3f(1f, 1f, 1f);
-            glVertex3f(mazeX * 5f + 5f, 5f, -mazeY * 5f - 2.4f);
-
-            glEnd();
-
-            glBegin(GL_TRIANGLE_STRIP);
-
-            glTexCoord2f(1f, 1f);
-            glColor3f(1f, 1f, 1f);
-            glVertex3f(mazeX * 5f + 5f, 0f, -mazeY * 5f - 2.6f);
-            glTexCoord2f(0f, 1f);
-            glColor3f(1f, 1f, 1f);
-            glVertex3f(mazeX * 5f, 0f, -mazeY * 5f - 2.6f);
-            glTexCoord2f(1f, 0f);
-            glColor3f(1f, 1f, 1f);
-            glVertex3f(mazeX * 5f + 5f, 5f, -mazeY * 5f - 2.6f);
-            glTexCoord2f(0f, 0f);
-            glColor3f(1f, 1f, 1f);
-            glVertex3f(mazeX * 5f, 5f, -mazeY * 5f - 2.6f);
-
-            glEnd();
-            glEndList();
+            strips = new float[] {
+                    0f, 1f, mazeX * 5f, 0f, -mazeY * 5f - 2.4f,
+                    1f, 1f, mazeX * 5f + 5f, 0f, -mazeY * 5f - 2.4f,
+                    0f, 0f, mazeX * 5f, 5f, -mazeY * 5f - 2.4f,
+                    1f, 0f, mazeX * 5f + 5f, 5f, -mazeY * 5f - 2.4f,
+
+                    1f, 1f, mazeX * 5f + 5f, 0f, -mazeY * 5f - 2.6f,
+                    0f, 1f, mazeX * 5f, 0f, -mazeY * 5f - 2.6f,
+                    1f, 0f, mazeX * 5f + 5f, 5f, -mazeY * 5f - 2.6f,
+                    0f, 0f, mazeX * 5f, 5f, -mazeY * 5f - 2.6f
+            };
 
             boundingBox = new BoundingBox(
                     mazeX * 5f,
@@ -371,43 +482,19 @@ public class WorldBuilder {
                     mazeY * 5f + 2.4f,
                     mazeY * 5f + 2.6f
             );
-            physicsWorld.getObjects().add(boundingBox);
+            physicsWorld.add(boundingBox);
         } else if ((topTile.equals(MazeTile.VOID)) && (bottomTile.equals(MazeTile.VOID))) {
-            glNewList(dlIndex, GL_COMPILE);
-            glBegin(GL_TRIANGLE_STRIP);
-
-            glTexCoord2f(0f, 1f);
-            glColor3f(1f, 1f, 1f);
-            glVertex3f(mazeX * 5f + 2.4f, 0f, -mazeY * 5f - 5f);
-            glTexCoord2f(1f, 1f);
-            glColor3f(1f, 1f, 1f);
-            glVertex3f(mazeX * 5f + 2.4f, 0f, -mazeY * 5f);
-            glTexCoord2f(0f, 0f);
-            glColor3f(1f, 1f, 1f);
-            glVertex3f(mazeX * 5f + 2.4f, 5f, -mazeY * 5f - 5f);
-            glTexCoord2f(1f, 0f);
-            glColor3f(1f, 1f, 1f);
-            glVertex3f(mazeX * 5f + 2.4f, 5f, -mazeY * 5f);
-
-            glEnd();
-
-            glBegin(GL_TRIANGLE_STRIP);
-
-            glTexCoord2f(1f, 1f);
-            glColor3f(1f, 1f, 1f);
-            glVertex3f(mazeX * 5f + 2.6f, 0f, -mazeY * 5f);
-            glTexCoord2f(0f, 1f);
-            glColor3f(1f, 1f, 1f);
-            glVertex3f(mazeX * 5f + 2.6f, 0f, -mazeY * 5f - 5f);
-            glTexCoord2f(1f, 0f);
-            glColor3f(1f, 1f, 1f);
-            glVertex3f(mazeX * 5f + 2.6f, 5f, -mazeY * 5f);
-            glTexCoord2f(0f, 0f);
-            glColor3f(1f, 1f, 1f);
-            glVertex3f(mazeX * 5f + 2.6f, 5f, -mazeY * 5f - 5f);
-
-            glEnd();
-            glEndList();
+            strips = new float[] {
+                    0f, 1f, mazeX * 5f + 2.4f, 0f, -mazeY * 5f - 5f,
+                    1f, 1f, mazeX * 5f + 2.4f, 0f, -mazeY * 5f,
+                    0f, 0f, mazeX * 5f + 2.4f, 5f, -mazeY * 5f - 5f,
+                    1f, 0f, mazeX * 5f + 2.4f, 5f, -mazeY * 5f,
+
+                    1f, 1f, mazeX * 5f + 2.6f, 0f, -mazeY * 5f,
+                    0f, 1f, mazeX * 5f + 2.6f, 0f, -mazeY * 5f - 5f,
+                    1f, 0f, mazeX * 5f + 2.6f, 5f, -mazeY * 5f,
+                    0f, 0f, mazeX * 5f + 2.6f, 5f, -mazeY * 5f - 5f
+            };
 
             boundingBox = new BoundingBox(
                     mazeX * 5f + 2.4f,
@@ -415,45 +502,9 @@ public class WorldBuilder {
                     mazeY * 5f,
                     mazeY * 5f + 5f
             );
-            physicsWorld.getObjects().add(boundingBox);
+            physicsWorld.add(boundingBox);
         }
 
-        final DynamicObject doorObject = new DynamicObject(DynamicObjectType.DOOR, dlIndex, boundingBox, doorTexture);
-        allDynamicObjects.add(doorObject);
-        dynamicObjectsInWorld[mazeX][mazeY] = doorObject;
-    }
-
-    private void fillIbo(int iboId, List<Integer> vertexIndices) {
-        final int[] indicesArray = new int[vertexIndices.size()];
-        for (int i = 0; i < vertexIndices.size(); i++) {
-            indicesArray[i] = vertexIndices.get(i);
-        }
-
-        final IntBuffer indexBuffer = BufferUtils.createIntBuffer(vertexIndices.size());
-        indexBuffer.put(indicesArray).flip();
-
-        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, iboId);
-        glBufferData(GL_ELEMENT_ARRAY_BUFFER, indexBuffer, GL_STATIC_DRAW);
-    }
-
-    private void fillVao(int vaoId, FloatBuffer vertexBuffer) {
-        glBindVertexArray(vaoId);
-
-        final int vboId = glGenBuffers();
-        glBindBuffer(GL_ARRAY_BUFFER, vboId);
-        glBufferData(GL_ARRAY_BUFFER, vertexBuffer, GL_STATIC_DRAW);
-
-        glVertexPointer(3, GL_FLOAT, 8 * 4, 0);
-        glTexCoordPointer(2, GL_FLOAT, 8 * 4, 3 * 4);
-        glColorPointer(3, GL_FLOAT, 8 * 4, 5 * 4);
-
-        glBindBuffer(GL_ARRAY_BUFFER, 0);
-
-        glEnableClientState(GL_VERTEX_ARRAY);
-        glEnableClientState(GL_COLOR_ARRAY);
-        glEnableClientState(GL_TEXTURE_COORD_ARRAY);
-        glEnableClientState(GL_INDEX_ARRAY);
-
-        glBindVertexArray(0);
+        dynamicObjects.add(new DynamicObjectMesh(DynamicObjectType.DOOR, mazeX, mazeY, boundingBox, strips));
     }
 }
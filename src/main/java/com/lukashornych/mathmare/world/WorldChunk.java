@@ -0,0 +1,39 @@
+package com.lukashornych.mathmare.world;
+
+import lombok.Data;
+
+/**
+ * Square part of static world geometry. Indices of all chunk's quads are stored contiguously in world's index buffers,
+ * so whole chunk can be drawn by single range of indices. Similarly, in {@link WorldRenderMode#INSTANCED} mode
+ * chunk's faces of each orientation are single range of instances.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@Data
+public class WorldChunk {
+
+    /**
+     * Number of maze tiles on each side of chunk
+     */
+    public static final int CHUNK_SIZE = 8;
+
+    private final float minX;
+    private final float maxX;
+    private final float minZ;
+    private final float maxZ;
+
+    private final int wallIndicesOffset;
+    private final int wallIndicesCount;
+
+    private final int floorIndicesOffset;
+    private final int floorIndicesCount;
+
+    /**
+     * First instance of chunk's faces for each {@link FaceOrientation} (indexed by ordinal)
+     */
+    private final int[] faceInstancesOffsets;
+    /**
+     * Number of chunk's faces for each {@link FaceOrientation} (indexed by ordinal)
+     */
+    private final int[] faceInstancesCounts;
+}
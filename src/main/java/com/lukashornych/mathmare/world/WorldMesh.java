@@ -0,0 +1,45 @@
+package com.lukashornych.mathmare.world;
+
+import com.lukashornych.mathmare.physics.PhysicsWorld;
+import lombok.Data;
+
+import java.util.List;
+
+/**
+ * CPU side result of building world from maze recipe, i.e. everything needed to create {@link World} except OpenGL
+ * objects. Can be built on any thread, the GPU part is created from it by {@link WorldUploader}.
+ *
+ * @author Lukáš Hornych 2021
+ */
+@Data
+public class WorldMesh {
+
+    /**
+     * Number of floats of single static geometry vertex, i.e. position, texture coordinates and color
+     */
+    public static final int FLOATS_PER_VERTEX = 8;
+
+    private final WorldRenderMode renderMode;
+    private final int mazeWidth;
+    private final int mazeHeight;
+
+    /**
+     * Static geometry of {@link WorldRenderMode#MESH} mode, empty in other modes
+     */
+    private final float[] wallVertices;
+    private final int[] wallIndices;
+    private final float[] floorVertices;
+    private final int[] floorIndices;
+
+    /**
+     * Tile coordinates (x and y pair) of faces of each {@link FaceOrientation} (indexed by ordinal) of
+     * {@link WorldRenderMode#INSTANCED} mode, arrays may be longer than actual count of faces
+     */
+    private final short[][] faceInstances;
+    private final int[] faceInstancesCounts;
+
+    private final List<WorldChunk> chunks;
+    private final List<DynamicObjectMesh> dynamicObjects;
+
+    private final PhysicsWorld physicsWorld;
+}
@@ -0,0 +1,18 @@
+package com.lukashornych.mathmare.world;
+
+/**
+ * Way in which static world geometry is stored and rendered.
+ *
+ * @author Lukáš Hornych 2021
+ */
+public enum WorldRenderMode {
+    /**
+     * Every face of walls, ceiling and floor is stored as unique vertices and indices. Rendered by fixed pipeline.
+     */
+    MESH,
+    /**
+     * Only single unit quad per face orientation is stored and faces are drawn instanced from compact buffer of tile
+     * coordinates. Geometry memory is only few bytes per face, which makes it suitable for very large mazes.
+     */
+    INSTANCED
+}
@@ -1,19 +1,46 @@
 package com.lukashornych.mathmare.world;
 
 import com.lukashornych.mathmare.Camera;
+import com.lukashornych.mathmare.GameConfiguration;
+import com.lukashornych.mathmare.diagnostics.FrameProfiler;
+import com.lukashornych.mathmare.diagnostics.FrameStage;
+import com.lukashornych.mathmare.physics.BoundingBox;
+import com.lukashornych.mathmare.render.GLStateCache;
+import com.lukashornych.mathmare.render.ShaderProgram;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.NonNull;
+import lombok.Setter;
+import lwjglutils.OGLTexture2D;
+import org.joml.FrustumIntersection;
+import org.joml.Matrix4f;
+import org.joml.Vector3f;
 import org.lwjgl.BufferUtils;
+import org.lwjgl.PointerBuffer;
 
 import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.util.List;
 
 import static org.lwjgl.opengl.GL11.*;
-import static org.lwjgl.opengl.GL15.GL_ELEMENT_ARRAY_BUFFER;
+import static org.lwjgl.opengl.GL14.glMultiDrawElements;
+import static org.lwjgl.opengl.GL15.GL_ARRAY_BUFFER;
 import static org.lwjgl.opengl.GL15.glBindBuffer;
-import static org.lwjgl.opengl.GL30.glBindVertexArray;
+import static org.lwjgl.opengl.GL20.*;
+import static org.lwjgl.opengl.GL31.glDrawArraysInstanced;
 
 /**
  * Handles rendering of built {@link World} descriptor.
  *
+ * Static geometry is rendered by chunks. Chunks outside of camera frustum are skipped and index ranges of all visible
+ * chunks are submitted by single {@code glMultiDrawElements} call per material, so the submission cost does not grow
+ * with number of visible chunks.
+ *
+ * Geometry further than configured render distance is skipped before submission and hidden under distance fog.
+ *
+ * World built in {@link WorldRenderMode#INSTANCED} mode is rendered by {@link InstancedFaceShader}, visible ranges
+ * of each face orientation are drawn instanced. Such renderer owns the shader, so it must be destroyed when not needed.
+ *
  * @author Lukáš Hornych 2021
  */
 @Data
@@ -21,57 +48,334 @@ public class WorldRenderer {
 
     private final World world;
     private final Camera camera;
+    private final GLStateCache glStateCache;
+    private final GameConfiguration configuration;
+    private final FrameProfiler frameProfiler;
+
+    @Setter(AccessLevel.NONE) private int drawCallsCount;
+    @Setter(AccessLevel.NONE) private int renderedTrianglesCount;
+    @Setter(AccessLevel.NONE) private int visibleChunksCount;
+
+    private final FloatBuffer projectionBuffer = BufferUtils.createFloatBuffer(16);
+    private final FloatBuffer viewBuffer = BufferUtils.createFloatBuffer(16);
+    private final Matrix4f viewProjection = new Matrix4f();
+    private final FrustumIntersection frustum = new FrustumIntersection();
+    private final FloatBuffer fogColor = BufferUtils.createFloatBuffer(4).put(new float[] { 0f, 0f, 0f, 0f }).flip();
+
+    /**
+     * Visibility of each world chunk in current frame
+     */
+    private final boolean[] visibleChunks;
+    /**
+     * Index counts of visible ranges for multi-draw
+     */
+    private final IntBuffer multiDrawCounts;
+    /**
+     * Byte offsets of visible ranges for multi-draw
+     */
+    private final PointerBuffer multiDrawOffsets;
+
+    /**
+     * Shader for instanced faces, null if world is not built in instanced mode
+     */
+    private final ShaderProgram instancedFaceProgram;
+    private int tileSizeUniformLocation;
+    private int fogEnabledUniformLocation;
+
+    public WorldRenderer(@NonNull World world,
+                         @NonNull Camera camera,
+                         @NonNull GLStateCache glStateCache,
+                         @NonNull GameConfiguration configuration,
+                         @NonNull FrameProfiler frameProfiler) {
+        this.world = world;
+        this.camera = camera;
+        this.glStateCache = glStateCache;
+        this.configuration = configuration;
+        this.frameProfiler = frameProfiler;
+
+        final int chunksCount = world.getChunks().size();
+        this.visibleChunks = new boolean[chunksCount];
+        this.multiDrawCounts = BufferUtils.createIntBuffer(Math.max(chunksCount, 1));
+        this.multiDrawOffsets = BufferUtils.createPointerBuffer(Math.max(chunksCount, 1));
+
+        if (world.getRenderMode() == WorldRenderMode.INSTANCED) {
+            instancedFaceProgram = InstancedFaceShader.createProgram();
+            instancedFaceProgram.init();
+            tileSizeUniformLocation = instancedFaceProgram.getUniformLocation(InstancedFaceShader.TILE_SIZE_UNIFORM);
+            fogEnabledUniformLocation = instancedFaceProgram.getUniformLocation(InstancedFaceShader.FOG_ENABLED_UNIFORM);
+        } else {
+            instancedFaceProgram = null;
+        }
+    }
+
+    /**
+     * Releases GPU objects owned by this renderer
+     */
+    public void destroy() {
+        if (instancedFaceProgram != null) {
+            instancedFaceProgram.destroy();
+        }
+    }
 
     public void renderWorld() {
+        drawCallsCount = 0;
+        renderedTrianglesCount = 0;
+
+        final Matrix4f projection = camera.getProjection();
+        final Matrix4f view = camera.getView();
+
         glMatrixMode(GL_PROJECTION);
         glLoadIdentity();
-        final FloatBuffer projectionBuffer = BufferUtils.createFloatBuffer(16);
-        camera.getProjection().get(projectionBuffer);
+        projection.get(projectionBuffer);
         glMultMatrixf(projectionBuffer);
 
         glMatrixMode(GL_MODELVIEW);
         glLoadIdentity();
-        final FloatBuffer viewBuffer = BufferUtils.createFloatBuffer(16);
-        camera.getView().get(viewBuffer);
+        view.get(viewBuffer);
         glMultMatrixf(viewBuffer);
 
-        renderStaticWalls();
-        renderStaticFloor();
+        cullChunks(projection.mul(view, viewProjection));
+
+        if (configuration.isFogEnabled()) {
+            setupFog();
+        }
+
+        if (world.getRenderMode() == WorldRenderMode.INSTANCED) {
+            glStateCache.useProgram(instancedFaceProgram.getProgramId());
+            glUniform1f(tileSizeUniformLocation, World.TILE_WORLD_SIZE);
+            glUniform1i(fogEnabledUniformLocation, configuration.isFogEnabled() ? GL_TRUE : GL_FALSE);
+
+            frameProfiler.beginStage(FrameStage.WALLS);
+            renderInstancedFaces(false, world.getWallTexture());
+            frameProfiler.endStage(FrameStage.WALLS);
+
+            frameProfiler.beginStage(FrameStage.FLOOR);
+            renderInstancedFaces(true, world.getFloorTexture());
+            frameProfiler.endStage(FrameStage.FLOOR);
+
+            glStateCache.useProgram(0);
+        } else {
+            frameProfiler.beginStage(FrameStage.WALLS);
+            renderStaticWalls();
+            frameProfiler.endStage(FrameStage.WALLS);
+
+            frameProfiler.beginStage(FrameStage.FLOOR);
+            renderStaticFloor();
+            frameProfiler.endStage(FrameStage.FLOOR);
+        }
+
+        frameProfiler.beginStage(FrameStage.DYNAMIC_OBJECTS);
         renderDynamicObjects();
+        frameProfiler.endStage(FrameStage.DYNAMIC_OBJECTS);
+
+        glDisable(GL_FOG);
+
+        // leave no world vertex array bound so it cannot be modified by other renderers
+        glStateCache.bindVertexArray(0);
+    }
+
+    /**
+     * Enables linear fog ending at render distance. Fog color matches clear color so geometry fades into background.
+     */
+    private void setupFog() {
+        glEnable(GL_FOG);
+        glFogi(GL_FOG_MODE, GL_LINEAR);
+        glFogf(GL_FOG_START, configuration.getFogStart());
+        glFogf(GL_FOG_END, configuration.getRenderDistance());
+        glFogfv(GL_FOG_COLOR, fogColor);
+    }
+
+    /**
+     * Finds out which chunks are inside camera frustum and render distance
+     *
+     * @param viewProjection current view-projection matrix
+     */
+    private void cullChunks(Matrix4f viewProjection) {
+        frustum.set(viewProjection);
+
+        final Vector3f cameraPosition = camera.getPosition();
+        final float renderDistance = configuration.getRenderDistance();
+
+        final List<WorldChunk> chunks = world.getChunks();
+        visibleChunksCount = 0;
+        for (int i = 0; i < chunks.size(); i++) {
+            final WorldChunk chunk = chunks.get(i);
+            visibleChunks[i] = isInRenderDistance(
+                    cameraPosition.x, cameraPosition.z,
+                    chunk.getMinX(), chunk.getMaxX(), chunk.getMinZ(), chunk.getMaxZ(),
+                    renderDistance
+            ) && frustum.testAab(
+                    chunk.getMinX(), 0f, chunk.getMinZ(),
+                    chunk.getMaxX(), World.TILE_WORLD_SIZE, chunk.getMaxZ()
+            );
+            if (visibleChunks[i]) {
+                visibleChunksCount++;
+            }
+        }
     }
 
     private void renderStaticWalls() {
-        glBindVertexArray(world.getWallVaoId());
-        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, world.getWallIboId());
+        final List<WorldChunk> chunks = world.getChunks();
 
-        world.getWallTexture().bind();
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
-        glDrawElements(GL_TRIANGLES, world.getWallIndicesCount(), GL_UNSIGNED_INT, 0);
+        multiDrawCounts.clear();
+        multiDrawOffsets.clear();
+        for (int i = 0; i < chunks.size(); i++) {
+            if (visibleChunks[i]) {
+                addMultiDrawRange(chunks.get(i).getWallIndicesOffset(), chunks.get(i).getWallIndicesCount(), Integer.BYTES);
+            }
+        }
 
-        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
-        glBindVertexArray(0);
+        multiDrawStaticGeometry(world.getWallVaoId(), world.getWallIboId(), world.getWallTexture());
     }
 
     private void renderStaticFloor() {
-        glBindVertexArray(world.getFloorVaoId());
-        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, world.getFloorIboId());
+        final List<WorldChunk> chunks = world.getChunks();
 
-        world.getFloorTexture().bind();
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
-        glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
-        glDrawElements(GL_TRIANGLES, world.getFloorIndicesCount(), GL_UNSIGNED_INT, 0);
+        multiDrawCounts.clear();
+        multiDrawOffsets.clear();
+        for (int i = 0; i < chunks.size(); i++) {
+            if (visibleChunks[i]) {
+                addMultiDrawRange(chunks.get(i).getFloorIndicesOffset(), chunks.get(i).getFloorIndicesCount(), Integer.BYTES);
+            }
+        }
 
-        glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, 0);
-        glBindVertexArray(0);
+        multiDrawStaticGeometry(world.getFloorVaoId(), world.getFloorIboId(), world.getFloorTexture());
+    }
+
+    /**
+     * Draws visible instances of all face orientations of either walls (including ceiling) or floor. Each continuous
+     * range of visible instances is drawn by single instanced draw call.
+     *
+     * @param floor whether to draw floor faces or wall faces
+     * @param texture texture of faces
+     */
+    private void renderInstancedFaces(boolean floor, OGLTexture2D texture) {
+        final List<WorldChunk> chunks = world.getChunks();
+
+        for (FaceInstances faceInstances : world.getFaceInstances()) {
+            final FaceOrientation orientation = faceInstances.getOrientation();
+            if (orientation.isFloor() != floor) {
+                continue;
+            }
+
+            multiDrawCounts.clear();
+            multiDrawOffsets.clear();
+            for (int i = 0; i < chunks.size(); i++) {
+                if (visibleChunks[i]) {
+                    addMultiDrawRange(
+                            chunks.get(i).getFaceInstancesOffsets()[orientation.ordinal()],
+                            chunks.get(i).getFaceInstancesCounts()[orientation.ordinal()],
+                            FaceInstances.BYTES_PER_INSTANCE
+                    );
+                }
+            }
+            multiDrawCounts.flip();
+            multiDrawOffsets.flip();
+            if (!multiDrawCounts.hasRemaining()) {
+                continue;
+            }
+
+            glStateCache.bindVertexArray(faceInstances.getVaoId());
+            glStateCache.bindTexture(texture, GL_NEAREST);
+
+            glBindBuffer(GL_ARRAY_BUFFER, faceInstances.getInstanceVboId());
+            for (int i = 0; i < multiDrawCounts.limit(); i++) {
+                final int instancesCount = multiDrawCounts.get(i);
+
+                // instance attribute is moved to start of range as base instance is not available before OpenGL 4.2
+                glVertexAttribPointer(InstancedFaceShader.TILE_ATTRIBUTE, 2, GL_SHORT, false, 0, multiDrawOffsets.get(i));
+                glDrawArraysInstanced(GL_TRIANGLES, 0, FaceOrientation.getUnitQuadVerticesCount(), instancesCount);
+                drawCallsCount++;
+                renderedTrianglesCount += instancesCount * 2;
+            }
+            glBindBuffer(GL_ARRAY_BUFFER, 0);
+        }
     }
 
     private void renderDynamicObjects() {
+        glStateCache.bindVertexArray(0);
+
+        final Vector3f cameraPosition = camera.getPosition();
+        final float renderDistance = configuration.getRenderDistance();
+
         world.getAllDynamicObjects().forEach(object -> {
-            object.getTexture().bind();
-            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MIN_FILTER, GL_NEAREST);
-            glTexParameteri(GL_TEXTURE_2D, GL_TEXTURE_MAG_FILTER, GL_NEAREST);
+            // bounding box y axis is world's negative z axis
+            final BoundingBox boundingBox = object.getBoundingBox();
+            if ((boundingBox != null) && !isInRenderDistance(
+                    cameraPosition.x, cameraPosition.z,
+                    boundingBox.getMinX(), boundingBox.getMaxX(), -boundingBox.getMaxY(), -boundingBox.getMinY(),
+                    renderDistance
+            )) {
+                return;
+            }
+
+            glStateCache.bindTexture(object.getTexture(), GL_NEAREST);
             glCallList(object.getDisplayListId());
+            drawCallsCount++;
         });
     }
+
+    /**
+     * Checks if any part of area on XZ plane is closer to camera than render distance
+     *
+     * @return true if area should be rendered
+     */
+    private boolean isInRenderDistance(float cameraX, float cameraZ,
+                                       float minX, float maxX, float minZ, float maxZ,
+                                       float renderDistance) {
+        final float distanceX = Math.max(Math.max(minX - cameraX, cameraX - maxX), 0f);
+        final float distanceZ = Math.max(Math.max(minZ - cameraZ, cameraZ - maxZ), 0f);
+
+        return (distanceX * distanceX + distanceZ * distanceZ) <= (renderDistance * renderDistance);
+    }
+
+    /**
+     * Adds range of elements (indices or instances) to be drawn by next multi-draw. Range continuing previously added
+     * range is merged into it.
+     *
+     * @param elementsOffset offset of first element of range
+     * @param elementsCount number of elements in range
+     * @param elementBytes size of single element in buffer
+     */
+    private void addMultiDrawRange(int elementsOffset, int elementsCount, int elementBytes) {
+        if (elementsCount == 0) {
+            return;
+        }
+
+        final long byteOffset = elementsOffset * (long) elementBytes;
+        final int lastRange = multiDrawCounts.position() - 1;
+        if ((lastRange >= 0) && (multiDrawOffsets.get(lastRange) + multiDrawCounts.get(lastRange) * (long) elementBytes == byteOffset)) {
+            multiDrawCounts.put(lastRange, multiDrawCounts.get(lastRange) + elementsCount);
+            return;
+        }
+
+        multiDrawCounts.put(elementsCount);
+        multiDrawOffsets.put(byteOffset);
+    }
+
+    /**
+     * Draws all collected ranges of static geometry in single draw call
+     *
+     * @param vaoId vertex array of geometry
+     * @param iboId index buffer of geometry
+     * @param texture texture of geometry
+     */
+    private void multiDrawStaticGeometry(int vaoId, int iboId, OGLTexture2D texture) {
+        multiDrawCounts.flip();
+        multiDrawOffsets.flip();
+        if (!multiDrawCounts.hasRemaining()) {
+            return;
+        }
+
+        glStateCache.bindVertexArray(vaoId);
+        glStateCache.bindElementArrayBuffer(iboId);
+        glStateCache.bindTexture(texture, GL_NEAREST);
+
+        glMultiDrawElements(GL_TRIANGLES, multiDrawCounts, GL_UNSIGNED_INT, multiDrawOffsets);
+        drawCallsCount++;
+
+        for (int i = 0; i < multiDrawCounts.limit(); i++) {
+            renderedTrianglesCount += multiDrawCounts.get(i) / 3;
+        }
+    }
 }
@@ -0,0 +1,426 @@
+package com.lukashornych.mathmare.world;
+
+import com.lukashornych.mathmare.TimeSlicedTask;
+import com.lukashornych.mathmare.diagnostics.TextureLoadEvent;
+import lombok.NonNull;
+import lwjglutils.OGLTexture2D;
+import org.lwjgl.BufferUtils;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntConsumer;
+
+import static org.lwjgl.opengl.GL11.*;
+import static org.lwjgl.opengl.GL15.*;
+import static org.lwjgl.opengl.GL20.glEnableVertexAttribArray;
+import static org.lwjgl.opengl.GL20.glVertexAttribPointer;
+import static org.lwjgl.opengl.GL30.glBindVertexArray;
+import static org.lwjgl.opengl.GL30.glGenVertexArrays;
+import static org.lwjgl.opengl.GL33.glVertexAttribDivisor;
+
+/**
+ * Creates {@link World} from {@link WorldMesh} by uploading its geometry and textures to GPU.
+ *
+ * Upload is split into small steps (single texture, part of buffer, single display list and so on), so it can be
+ * spread over several frames by {@link #runSlice(long)} as {@link TimeSlicedTask}, or done at once by
+ * {@link #uploadAll()}. Large buffers are allocated first and filled by parts through small staging buffer, so whole
+ * geometry is never copied to native memory at once. Every uploader uploads single mesh and must be used only from
+ * thread owning OpenGL context.
+ *
+ * @author Lukáš Hornych 2021
+ */
+public class WorldUploader implements TimeSlicedTask {
+
+    /**
+     * Size of single part of buffer uploaded in one step
+     */
+    private static final int BUFFER_PART_BYTES = 256 * 1024;
+
+    private final WorldMesh mesh;
+
+    private final Queue<Runnable> pendingSteps = new ArrayDeque<>();
+    private int plannedStepsCount;
+    private final ByteBuffer stagingBuffer = BufferUtils.createByteBuffer(BUFFER_PART_BYTES);
+
+    private OGLTexture2D wallTexture;
+    private OGLTexture2D floorTexture;
+    private OGLTexture2D doorTexture;
+    private OGLTexture2D exitPortalTexture;
+
+    private int wallVaoId = 0;
+    private int wallVboId = 0;
+    private int wallIboId = 0;
+    private int floorVaoId = 0;
+    private int floorVboId = 0;
+    private int floorIboId = 0;
+    private final List<FaceInstances> builtFaceInstances = new ArrayList<>();
+    private final int[] displayListIds;
+    private int displayListsCount = 0;
+
+    private final List<DynamicObject> allDynamicObjects = new ArrayList<>();
+    private final DynamicObject[][] dynamicObjectsInWorld;
+
+    private World world;
+    private boolean aborted = false;
+
+
+    /**
+     * @param mesh mesh to upload
+     */
+    public WorldUploader(@NonNull WorldMesh mesh) {
+        this.mesh = mesh;
+        this.dynamicObjectsInWorld = new DynamicObject[mesh.getMazeWidth()][mesh.getMazeHeight()];
+        this.displayListIds = new int[mesh.getDynamicObjects().size()];
+
+        planSteps();
+    }
+
+    /**
+     * Uploads whole world mesh at once.
+     *
+     * @return renderable world
+     */
+    public World uploadAll() {
+        while (!runSlice(Long.MAX_VALUE)) {
+            // every slice makes progress
+        }
+        return world;
+    }
+
+    /**
+     * Uploads next steps of world mesh until deadline passes.
+     *
+     * @param deadlineNanos {@link System#nanoTime()} after which no other step is started
+     * @return true if whole world is uploaded and can be obtained by {@link #getWorld()}
+     */
+    @Override
+    public boolean runSlice(long deadlineNanos) {
+        if (aborted) {
+            throw new IllegalStateException("Upload has been aborted.");
+        }
+
+        Runnable step;
+        while ((step = pendingSteps.poll()) != null) {
+            step.run();
+            if (System.nanoTime() >= deadlineNanos) {
+                break;
+            }
+        }
+
+        if (pendingSteps.isEmpty() && (world == null)) {
+            world = createWorld();
+        }
+        return world != null;
+    }
+
+    /**
+     * Stops unfinished upload and deletes GPU objects and textures uploaded so far. Does nothing if the world is
+     * already uploaded, such world is owned by caller and released by {@link World#destroy()}.
+     */
+    public void abort() {
+        if ((world != null) || aborted) {
+            return;
+        }
+        aborted = true;
+        pendingSteps.clear();
+        createWorld().destroy();
+    }
+
+    /**
+     * @return uploaded world or null if upload is not finished yet
+     */
+    public World getWorld() {
+        return world;
+    }
+
+    /**
+     * @return fraction of finished upload steps, from 0 to 1
+     */
+    public float getProgress() {
+        return (world != null) ? 1f : 1f - pendingSteps.size() / (float) plannedStepsCount;
+    }
+
+    /**
+     * Creates world without any GPU objects and textures. Such world cannot be rendered. Can be called from any
+     * thread.
+     *
+     * @param mesh mesh to create world from
+     * @return world for game logic only
+     */
+    public static World createHeadless(@NonNull WorldMesh mesh) {
+        final List<DynamicObject> allDynamicObjects = new ArrayList<>();
+        final DynamicObject[][] dynamicObjectsInWorld = new DynamicObject[mesh.getMazeWidth()][mesh.getMazeHeight()];
+        for (DynamicObjectMesh objectMesh : mesh.getDynamicObjects()) {
+            final DynamicObject object = new DynamicObject(objectMesh.getType(), 0, objectMesh.getBoundingBox(), null);
+            allDynamicObjects.add(object);
+            dynamicObjectsInWorld[objectMesh.getMazeX()][objectMesh.getMazeY()] = object;
+        }
+
+        return new World(
+                mesh.getRenderMode(),
+                new CopyOnWriteArrayList<>(allDynamicObjects),
+                dynamicObjectsInWorld,
+                0,
+                0,
+                0,
+                mesh.getWallIndices().length,
+                0,
+                0,
+                0,
+                mesh.getFloorIndices().length,
+                new ArrayList<>(),
+                new int[0],
+                mesh.getChunks(),
+                0,
+                mesh.getPhysicsWorld(),
+                null,
+                null,
+                null,
+                null
+        );
+    }
+
+
+    /**
+     * @return size of GPU buffers needed for static geometry of mesh in bytes
+     */
+    static long computeStaticGeometryBytes(WorldMesh mesh) {
+        if (mesh.getRenderMode() == WorldRenderMode.MESH) {
+            return (mesh.getWallVertices().length + mesh.getFloorVertices().length) * (long) Float.BYTES
+                    + (mesh.getWallIndices().length + mesh.getFloorIndices().length) * (long) Integer.BYTES;
+        }
+
+        long staticGeometryBytes = 0;
+        for (FaceOrientation orientation : FaceOrientation.values()) {
+            staticGeometryBytes += FaceOrientation.getUnitQuadVerticesCount() * FaceOrientation.FLOATS_PER_VERTEX * (long) Float.BYTES
+                    + mesh.getFaceInstancesCounts()[orientation.ordinal()] * (long) FaceInstances.BYTES_PER_INSTANCE;
+        }
+        return staticGeometryBytes;
+    }
+
+    /**
+     * Plans all upload steps of the mesh
+     */
+    private void planSteps() {
+        pendingSteps.add(() -> wallTexture = loadTexture("assets/texture/bricks.png"));
+        pendingSteps.add(() -> floorTexture = loadTexture("assets/texture/pavement.png"));
+        pendingSteps.add(() -> doorTexture = loadTexture("assets/texture/locked-doors.png"));
+        pendingSteps.add(() -> exitPortalTexture = loadTexture("assets/texture/portal.png"));
+
+        if (mesh.getRenderMode() == WorldRenderMode.MESH) {
+            planVao(mesh.getWallVertices(), vaoId -> wallVaoId = vaoId, vboId -> wallVboId = vboId);
+            planIbo(mesh.getWallIndices(), iboId -> wallIboId = iboId);
+            planVao(mesh.getFloorVertices(), vaoId -> floorVaoId = vaoId, vboId -> floorVboId = vboId);
+            planIbo(mesh.getFloorIndices(), iboId -> floorIboId = iboId);
+        } else {
+            for (FaceOrientation orientation : FaceOrientation.values()) {
+                pendingSteps.add(() -> builtFaceInstances.add(createFaceInstances(mesh, orientation)));
+            }
+        }
+
+        for (DynamicObjectMesh objectMesh : mesh.getDynamicObjects()) {
+            pendingSteps.add(() -> {
+                final OGLTexture2D texture = (objectMesh.getType() == DynamicObjectType.DOOR) ? doorTexture : exitPortalTexture;
+                final int displayListId = compileDisplayList(objectMesh.getStrips());
+                displayListIds[displayListsCount++] = displayListId;
+                final DynamicObject object = new DynamicObject(
+                        objectMesh.getType(),
+                        displayListId,
+                        objectMesh.getBoundingBox(),
+                        texture
+                );
+                allDynamicObjects.add(object);
+                dynamicObjectsInWorld[objectMesh.getMazeX()][objectMesh.getMazeY()] = object;
+            });
+        }
+
+        plannedStepsCount = pendingSteps.size();
+    }
+
+    private World createWorld() {
+        return new World(
+                mesh.getRenderMode(),
+                new CopyOnWriteArrayList<>(allDynamicObjects),
+                dynamicObjectsInWorld,
+                wallVaoId,
+                wallVboId,
+                wallIboId,
+                mesh.getWallIndices().length,
+                floorVaoId,
+                floorVboId,
+                floorIboId,
+                mesh.getFloorIndices().length,
+                builtFaceInstances,
+                Arrays.copyOf(displayListIds, displayListsCount),
+                mesh.getChunks(),
+                computeStaticGeometryBytes(mesh),
+                mesh.getPhysicsWorld(),
+                wallTexture,
+                floorTexture,
+                doorTexture,
+                exitPortalTexture
+        );
+    }
+
+    private OGLTexture2D loadTexture(String path) {
+        final TextureLoadEvent event = new TextureLoadEvent();
+        event.begin();
+        try {
+            return new OGLTexture2D(path);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } finally {
+            event.path = path;
+            event.commit();
+        }
+    }
+
+    /**
+     * Compiles triangle strips of dynamic object into display list
+     */
+    private int compileDisplayList(float[] strips) {
+        final int dlIndex = glGenLists(1);
+        if (strips.length == 0) {
+            return dlIndex;
+        }
+
+        final int stripFloats = DynamicObjectMesh.VERTICES_PER_STRIP * DynamicObjectMesh.FLOATS_PER_VERTEX;
+
+        glNewList(dlIndex, GL_COMPILE);
+        for (int strip = 0; strip < strips.length; strip += stripFloats) {
+            glBegin(GL_TRIANGLE_STRIP);
+            for (int v = strip; v < strip + stripFloats; v += DynamicObjectMesh.FLOATS_PER_VERTEX) {
+                glTexCoord2f(strips[v], strips[v + 1]);
+                glColor3f(1f, 1f, 1f);
+                glVertex3f(strips[v + 2], strips[v + 3], strips[v + 4]);
+            }
+            glEnd();
+        }
+        glEndList();
+
+        return dlIndex;
+    }
+
+    /**
+     * Uploads unit quad and all collected instances of single face orientation
+     */
+    private FaceInstances createFaceInstances(WorldMesh mesh, FaceOrientation orientation) {
+        final int vaoId = glGenVertexArrays();
+        glBindVertexArray(vaoId);
+
+        final float[] unitQuad = orientation.getUnitQuadTriangles();
+        final FloatBuffer unitQuadBuffer = BufferUtils.createFloatBuffer(unitQuad.length);
+        unitQuadBuffer.put(unitQuad).flip();
+
+        final int quadVboId = glGenBuffers();
+        glBindBuffer(GL_ARRAY_BUFFER, quadVboId);
+        glBufferData(GL_ARRAY_BUFFER, unitQuadBuffer, GL_STATIC_DRAW);
+        final int stride = FaceOrientation.FLOATS_PER_VERTEX * Float.BYTES;
+        glVertexAttribPointer(InstancedFaceShader.CORNER_ATTRIBUTE, 3, GL_FLOAT, false, stride, 0);
+        glVertexAttribPointer(InstancedFaceShader.TEXTURE_COORDS_ATTRIBUTE, 2, GL_FLOAT, false, stride, 3 * Float.BYTES);
+        glEnableVertexAttribArray(InstancedFaceShader.CORNER_ATTRIBUTE);
+        glEnableVertexAttribArray(InstancedFaceShader.TEXTURE_COORDS_ATTRIBUTE);
+
+        final int instancesCount = mesh.getFaceInstancesCounts()[orientation.ordinal()];
+        final ShortBuffer instanceBuffer = BufferUtils.createShortBuffer(Math.max(instancesCount * 2, 2));
+        instanceBuffer.put(mesh.getFaceInstances()[orientation.ordinal()], 0, instancesCount * 2).flip();
+
+        final int instanceVboId = glGenBuffers();
+        glBindBuffer(GL_ARRAY_BUFFER, instanceVboId);
+        glBufferData(GL_ARRAY_BUFFER, instanceBuffer, GL_STATIC_DRAW);
+        // pointer is set to actual range of instances when drawing
+        glVertexAttribPointer(InstancedFaceShader.TILE_ATTRIBUTE, 2, GL_SHORT, false, 0, 0);
+        glVertexAttribDivisor(InstancedFaceShader.TILE_ATTRIBUTE, 1);
+        glEnableVertexAttribArray(InstancedFaceShader.TILE_ATTRIBUTE);
+
+        glBindBuffer(GL_ARRAY_BUFFER, 0);
+        glBindVertexArray(0);
+
+        return new FaceInstances(orientation, vaoId, quadVboId, instanceVboId, instancesCount);
+    }
+
+    /**
+     * Plans creation of VAO with vertex buffer and upload of the buffer by parts
+     */
+    private void planVao(float[] vertices, IntConsumer vaoIdConsumer, IntConsumer vboIdConsumer) {
+        final int[] vboId = new int[1];
+        pendingSteps.add(() -> {
+            final int vaoId = glGenVertexArrays();
+            glBindVertexArray(vaoId);
+
+            vboId[0] = glGenBuffers();
+            glBindBuffer(GL_ARRAY_BUFFER, vboId[0]);
+            // storage is only allocated, data are uploaded by following steps
+            glBufferData(GL_ARRAY_BUFFER, vertices.length * (long) Float.BYTES, GL_STATIC_DRAW);
+
+            glVertexPointer(3, GL_FLOAT, 8 * 4, 0);
+            glTexCoordPointer(2, GL_FLOAT, 8 * 4, 3 * 4);
+            glColorPointer(3, GL_FLOAT, 8 * 4, 5 * 4);
+
+            glBindBuffer(GL_ARRAY_BUFFER, 0);
+
+            glEnableClientState(GL_VERTEX_ARRAY);
+            glEnableClientState(GL_COLOR_ARRAY);
+            glEnableClientState(GL_TEXTURE_COORD_ARRAY);
+            glEnableClientState(GL_INDEX_ARRAY);
+
+            glBindVertexArray(0);
+            vaoIdConsumer.accept(vaoId);
+            vboIdConsumer.accept(vboId[0]);
+        });
+
+        final int partFloats = BUFFER_PART_BYTES / Float.BYTES;
+        for (int offset = 0; offset < vertices.length; offset += partFloats) {
+            final int partOffset = offset;
+            final int partLength = Math.min(partFloats, vertices.length - offset);
+            pendingSteps.add(() -> {
+                stagingBuffer.clear();
+                final FloatBuffer part = stagingBuffer.asFloatBuffer();
+                part.put(vertices, partOffset, partLength).flip();
+
+                glBindBuffer(GL_ARRAY_BUFFER, vboId[0]);
+                glBufferSubData(GL_ARRAY_BUFFER, partOffset * (long) Float.BYTES, part);
+                glBindBuffer(GL_ARRAY_BUFFER, 0);
+            });
+        }
+    }
+
+    /**
+     * Plans creation of index buffer and its upload by parts
+     */
+    private void planIbo(int[] indices, IntConsumer iboIdConsumer) {
+        final int[] iboId = new int[1];
+        pendingSteps.add(() -> {
+            // element array buffer binding belongs to vertex array, so no vertex array of world may be bound
+            glBindVertexArray(0);
+            iboId[0] = glGenBuffers();
+            glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, iboId[0]);
+            glBufferData(GL_ELEMENT_ARRAY_BUFFER, indices.length * (long) Integer.BYTES, GL_STATIC_DRAW);
+            iboIdConsumer.accept(iboId[0]);
+        });
+
+        final int partInts = BUFFER_PART_BYTES / Integer.BYTES;
+        for (int offset = 0; offset < indices.length; offset += partInts) {
+            final int partOffset = offset;
+            final int partLength = Math.min(partInts, indices.length - offset);
+            pendingSteps.add(() -> {
+                stagingBuffer.clear();
+                final IntBuffer part = stagingBuffer.asIntBuffer();
+                part.put(indices, partOffset, partLength).flip();
+
+                glBindVertexArray(0);
+                glBindBuffer(GL_ELEMENT_ARRAY_BUFFER, iboId[0]);
+                glBufferSubData(GL_ELEMENT_ARRAY_BUFFER, partOffset * (long) Integer.BYTES, part);
+            });
+        }
+    }
+}